@@ -0,0 +1,44 @@
+#!/bin/sh
+# Training run for the class data sharing archive: starts the agent against the local AgentCore stub, sends one
+# invocation so the classes of the whole request path are loaded, and stops it again. The JVM writes the archive on
+# exit. Used by Dockerfile.startup; it also works on a developer machine with the output of
+# `mvn -Pstartup package` and `mvn test-compile`.
+#
+# Usage: cds-training.sh <extracted application dir> <stub classes dir> <archive file>
+set -eu
+
+APP_DIR=$1
+STUB_CLASSES=$2
+ARCHIVE=$3
+STUB_PORT=9999
+
+java -cp "$STUB_CLASSES" dev.jettro.AgentCoreStubServer "$STUB_PORT" &
+STUB_PID=$!
+
+AWS_ENDPOINT_URL="http://localhost:$STUB_PORT" \
+AWS_ACCESS_KEY_ID=stub AWS_SECRET_ACCESS_KEY=stub AWS_REGION=eu-west-1 \
+AGENTCORE_MEMORY_ID=stub-memory \
+java -XX:ArchiveClassesAtExit="$ARCHIVE" -Dspring.aot.enabled=true \
+     -Dagent.memory-snapshot.enabled=false -Dagentcore.memory.long-term.auto-discovery=false \
+     -jar "$APP_DIR"/bedrock-agent-1.0.0-SNAPSHOT.jar &
+APP_PID=$!
+
+# Wait for the runtime contract endpoint, then send one invocation
+for _ in $(seq 1 120); do
+    if wget -q -O /dev/null http://localhost:8080/ping 2>/dev/null; then
+        break
+    fi
+    sleep 0.5
+done
+wget -q -O - --header "Content-Type: application/json" \
+     --header "X-Amzn-Bedrock-AgentCore-Runtime-Session-Id: cds-training-session-0000000000001" \
+     --post-data '{"prompt":"What time is it?","actor":"cds-training"}' \
+     http://localhost:8080/invocations || true
+echo
+
+# A normal shutdown makes the JVM dump the archive
+kill -TERM "$APP_PID"
+wait "$APP_PID" || true
+kill "$STUB_PID" || true
+
+test -f "$ARCHIVE"
@@ -0,0 +1,77 @@
+package dev.jettro.agent;
+
+import dev.jettro.agent.profiling.ProfilingProperties;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Lets requests to the actuator endpoints in {@code agent.actuator.protected-endpoints}, those that change the agent
+ * or its memory, through only with {@code Authorization: Bearer <agent.actuator.token>}. Without a configured token
+ * these endpoints do not exist for callers, and neither does {@code /actuator/profiling} with profiling disabled.
+ */
+@Component
+public class ActuatorAccessFilter extends OncePerRequestFilter {
+
+    private static final String ACTUATOR_PATH = "/actuator/";
+    private static final String PROFILING = "profiling";
+    private static final String BEARER = "Bearer ";
+
+    private final String token;
+    private final List<String> endpoints;
+    private final ProfilingProperties profiling;
+
+    public ActuatorAccessFilter(@Value("${agent.actuator.token:}") String token,
+                                @Value("${agent.actuator.protected-endpoints:profiling,memory-consolidation}")
+                                List<String> endpoints, ProfilingProperties profiling) {
+        this.token = token;
+        this.endpoints = List.copyOf(endpoints);
+        this.profiling = profiling;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return endpoint(request.getRequestURI()) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (token.isBlank() || (PROFILING.equals(endpoint(request.getRequestURI())) && !profiling.enabled())) {
+            response.sendError(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+        String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authorization == null || !authorization.startsWith(BEARER) || !MessageDigest.isEqual(
+                authorization.substring(BEARER.length()).getBytes(StandardCharsets.UTF_8),
+                token.getBytes(StandardCharsets.UTF_8))) {
+            response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer");
+            response.sendError(HttpStatus.UNAUTHORIZED.value());
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+
+    /**
+     * The protected endpoint the path belongs to, null for any other path
+     */
+    private String endpoint(String path) {
+        for (String endpoint : endpoints) {
+            String endpointPath = ACTUATOR_PATH + endpoint;
+            if (path.equals(endpointPath) || path.startsWith(endpointPath + "/")) {
+                return endpoint;
+            }
+        }
+        return null;
+    }
+}
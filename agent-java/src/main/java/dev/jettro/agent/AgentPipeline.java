@@ -0,0 +1,26 @@
+package dev.jettro.agent;
+
+import java.util.List;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.client.advisor.api.Advisor;
+
+/**
+ * Builds the chat client pipeline of the agent: system prompt, memory advisors and tools. Shared by the
+ * {@link ChatController} and the warm-up, so warm-up exercises the same chain as real invocations.
+ */
+public final class AgentPipeline {
+
+    private AgentPipeline() {
+    }
+
+    public static ChatClient build(ChatClient.Builder builder, List<Advisor> memoryAdvisors, String systemPrompt) {
+        if (!systemPrompt.isBlank()) {
+            // Stable instructions first, so the prompt cache can reuse them on every turn
+            builder.defaultSystem(systemPrompt);
+        }
+        return builder
+                .defaultAdvisors(memoryAdvisors)  // Adds long and short-term advisors
+                .defaultTools(new DateTimeTools())
+                .build();
+    }
+}
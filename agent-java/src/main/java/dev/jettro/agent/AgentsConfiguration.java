@@ -1,13 +1,46 @@
 package dev.jettro.agent;
 
+import dev.jettro.agent.aws.AwsHttpClients;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import software.amazon.awssdk.services.bedrockagentcore.BedrockAgentCoreAsyncClient;
+import software.amazon.awssdk.services.bedrockagentcore.BedrockAgentCoreClient;
 import software.amazon.awssdk.services.bedrockagentcorecontrol.BedrockAgentCoreControlClient;
 
 @Configuration
 public class AgentsConfiguration {
     @Bean
-    BedrockAgentCoreControlClient bedrockAgentCoreControlClient() {
-        return BedrockAgentCoreControlClient.create();
+    @Primary
+    BedrockAgentCoreControlClient bedrockAgentCoreControlClient(AwsHttpClients httpClients) {
+        return BedrockAgentCoreControlClient.builder()
+                .httpClient(httpClients.httpClient(AwsHttpClients.CONTROL))
+                .overrideConfiguration(httpClients::configure)
+                .build();
+    }
+
+    /**
+     * Data plane client of AgentCore Memory. Primary, so the beans of the memory auto-configuration get this client
+     * injected even when the auto-configuration also defines a client of its own.
+     */
+    @Bean
+    @Primary
+    BedrockAgentCoreClient bedrockAgentCoreClient(AwsHttpClients httpClients) {
+        return BedrockAgentCoreClient.builder()
+                .httpClient(httpClients.httpClient(AwsHttpClients.MEMORY))
+                .overrideConfiguration(httpClients::configure)
+                .build();
+    }
+
+    /**
+     * Async data plane client, used to pipeline the pages of memory reads. Primary for the same reason.
+     */
+    @Bean
+    @Primary
+    BedrockAgentCoreAsyncClient bedrockAgentCoreAsyncClient(AwsHttpClients httpClients) {
+        return BedrockAgentCoreAsyncClient.builder()
+                .httpClient(httpClients.asyncHttpClient(AwsHttpClients.MEMORY))
+                .overrideConfiguration(httpClients::configure)
+                .build();
     }
 }
@@ -1,27 +1,61 @@
 package dev.jettro.agent;
 
+import dev.jettro.agent.cache.SemanticCache;
+import dev.jettro.agent.deadline.Deadline;
+import dev.jettro.agent.deadline.DeadlineExceededException;
+import dev.jettro.agent.deadline.DeadlineProperties;
+import dev.jettro.agent.memory.GuardedMemoryAdvisor;
+import dev.jettro.agent.memory.MemoryAdvisors;
+import dev.jettro.agent.memory.NextTurnContexts;
+import dev.jettro.agent.routing.ModelRouter;
+import dev.jettro.agent.scheduling.FairScheduler;
+import dev.jettro.agent.usage.AuthenticatedActor;
+import dev.jettro.agent.usage.UsageAccounting;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springaicommunity.agentcore.annotation.AgentCoreInvocation;
 import org.springaicommunity.agentcore.context.AgentCoreContext;
 import org.springaicommunity.agentcore.context.AgentCoreHeaders;
-import org.springaicommunity.agentcore.memory.longterm.AgentCoreMemory;
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.client.ChatClientResponse;
 import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.model.tool.ToolCallingChatOptions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
 public class ChatController {
 
     private final ChatClient chatClient;
+    private final FairScheduler scheduler;
+    private final ModelRouter modelRouter;
+    private final DeadlineProperties deadlineProperties;
+    private final UsageAccounting usageAccounting;
+    private final SemanticCache semanticCache;
+    private final NextTurnContexts nextTurn;
+    private final ChatMemory chatMemory;
 
     private static final Logger logger = LoggerFactory.getLogger(ChatController.class);
 
-    public ChatController(ChatClient.Builder chatClientBuilder, AgentCoreMemory agentCoreMemory) {
-        this.chatClient = chatClientBuilder
-                .defaultAdvisors(agentCoreMemory.advisors)  // Adds long and short-term advisors
-                .defaultTools(new DateTimeTools())
-                .build();
+    public ChatController(ChatClient.Builder chatClientBuilder, MemoryAdvisors memoryAdvisors,
+                          FairScheduler scheduler, ModelRouter modelRouter, DeadlineProperties deadlineProperties,
+                          UsageAccounting usageAccounting, SemanticCache semanticCache, NextTurnContexts nextTurn,
+                          ChatMemory chatMemory, @Value("${agent.system-prompt:}") String systemPrompt) {
+        this.scheduler = scheduler;
+        this.modelRouter = modelRouter;
+        this.deadlineProperties = deadlineProperties;
+        this.usageAccounting = usageAccounting;
+        this.semanticCache = semanticCache;
+        this.nextTurn = nextTurn;
+        this.chatMemory = chatMemory;
+        this.chatClient = AgentPipeline.build(chatClientBuilder, memoryAdvisors.advisors(), systemPrompt);
     }
 
     @AgentCoreInvocation
@@ -29,13 +63,90 @@ public class ChatController {
         logger.info("Received prompt: {}", promptRequest.prompt());
         var sessionId = agentCoreContext.getHeader(AgentCoreHeaders.SESSION_ID);
         logger.info("The session id for the prompt is: {}", sessionId);
+        var conversationId = conversationId(promptRequest, sessionId);
+        var deadline = deadline(agentCoreContext);
 
-        return chatClient
-                .prompt()
-                .advisors(a -> a.param(ChatMemory.CONVERSATION_ID, conversationId(promptRequest, sessionId)))
-                .user(promptRequest.prompt())
-                .call()
-                .content();
+        // Rejects with a 429 when this actor is over its limits, otherwise waits for a fair share of the workers. A
+        // cached answer counts too, the embedding and the memory write are not free.
+        try (var permit = acquire(promptRequest.actor(), deadline);
+             var scope = deadline.map(Deadline::bind).orElse(Deadline.Scope.NONE);
+             var turn = nextTurn.turn(conversationId)) {
+            var cached = semanticCache.lookup(promptRequest.actor(), promptRequest.prompt());
+            if (cached.isHit()) {
+                remember(conversationId, promptRequest.prompt(), cached.answer());
+                nextTurn.precompute(conversationId);
+                return cached.answer();
+            }
+
+            var tier = modelRouter.route(conversationId, promptRequest.prompt());
+
+            var options = ToolCallingChatOptions.builder().model(tier.model());
+            boolean capped = deadline.isPresent() && deadline.get().isWithin(deadlineProperties.lowBudget());
+            if (capped) {
+                // A shorter answer in time is worth more than a complete one nobody receives
+                logger.info("Little time left until deadline {}, capping the answer", deadline.get());
+                options.maxTokens(deadlineProperties.lowBudgetMaxTokens());
+            }
+
+            long start = System.nanoTime();
+            ChatClientResponse clientResponse = chatClient
+                    .prompt()
+                    .options(options.build())
+                    .advisors(a -> a.param(ChatMemory.CONVERSATION_ID, conversationId))
+                    .user(promptRequest.prompt())
+                    .call()
+                    .chatClientResponse();
+            ChatResponse response = clientResponse.chatResponse();
+            var latency = Duration.ofNanos(System.nanoTime() - start);
+            modelRouter.record(conversationId, tier, latency, response);
+            usageAccounting.record(AuthenticatedActor.of(agentCoreContext.getHeader(HttpHeaders.AUTHORIZATION)), tier,
+                    latency, response);
+
+            String answer = response != null && response.getResult() != null
+                    ? response.getResult().getOutput().getText()
+                    : null;
+            if (semanticCache.isPersonal(promptRequest.prompt())) {
+                // The prompt may tell something about the actor that ends up in its memory
+                semanticCache.invalidate(promptRequest.actor());
+            }
+            if (!capped) {
+                boolean usedMemory = Boolean.TRUE.equals(clientResponse.context()
+                        .get(GuardedMemoryAdvisor.CONTEXT_ADDED));
+                semanticCache.put(cached, answer, latency, usedMemory);
+            }
+            nextTurn.precompute(conversationId);
+            return answer;
+        }
+    }
+
+    /**
+     * Stores an exchange answered from the cache in short-term memory, the advisors that normally do never saw it.
+     */
+    private void remember(String conversationId, String prompt, String answer) {
+        try {
+            chatMemory.add(conversationId, List.of(new UserMessage(prompt), new AssistantMessage(answer)));
+        } catch (RuntimeException e) {
+            logger.warn("Storing the cached exchange in short-term memory failed", e);
+        }
+    }
+
+    private Optional<Deadline> deadline(AgentCoreContext agentCoreContext) {
+        if (!deadlineProperties.enabled()) {
+            return Optional.empty();
+        }
+        var deadline = Deadline.fromHeader(agentCoreContext.getHeader(Deadline.HEADER));
+        if (deadline.isPresent() && deadline.get().isWithin(deadlineProperties.minModelBudget())) {
+            throw new DeadlineExceededException("Deadline " + deadline.get() + " leaves no time to answer");
+        }
+        return deadline;
+    }
+
+    private FairScheduler.Permit acquire(String actor, Optional<Deadline> deadline) {
+        if (deadline.isEmpty()) {
+            return scheduler.acquire(actor);
+        }
+        // Waiting longer than this leaves too little time for the model
+        return scheduler.acquire(actor, deadline.get().remaining().minus(deadlineProperties.minModelBudget()));
     }
 
     private String conversationId(PromptRequest promptRequest, String sessionId) {
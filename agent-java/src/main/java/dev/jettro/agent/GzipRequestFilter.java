@@ -0,0 +1,160 @@
+package dev.jettro.agent;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Inflates invocation bodies the backend sent with {@code Content-Encoding: gzip}. Responses are compressed by the
+ * embedded server, see {@code server.compression.*}.
+ * <p>
+ * The body is inflated before the request goes on, at most {@code agent.compression.max-inflated-size} bytes of it;
+ * a larger body is answered with 413 without holding it in memory. The backend only forwards bodies that fitted in a
+ * Lambda payload, so the default is that limit. Inflated up front, the body can also be read asynchronously.
+ */
+@Component
+public class GzipRequestFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(GzipRequestFilter.class);
+
+    private static final String GZIP = "gzip";
+
+    private final int maxInflatedSize;
+
+    public GzipRequestFilter(@Value("${agent.compression.max-inflated-size:6MB}") DataSize maxInflatedSize) {
+        this.maxInflatedSize = Math.toIntExact(maxInflatedSize.toBytes());
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !GZIP.equalsIgnoreCase(request.getHeader(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        byte[] body;
+        try (GZIPInputStream gzip = new GZIPInputStream(request.getInputStream(), 8192)) {
+            body = gzip.readNBytes(maxInflatedSize);
+            if (gzip.read() >= 0) {
+                logger.warn("Rejected a gzipped body that inflates to more than {} bytes", maxInflatedSize);
+                response.sendError(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+                return;
+            }
+        } catch (ZipException | EOFException e) {
+            logger.warn("Rejected a body that is not valid gzip: {}", e.getMessage());
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+        chain.doFilter(new GzipRequest(request, body), response);
+    }
+
+    private static class GzipRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+        private ServletInputStream inputStream;
+
+        GzipRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            if (inputStream == null) {
+                inputStream = new InflatedInputStream(body);
+            }
+            return inputStream;
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+
+        // The encoding no longer applies to what the controller reads
+        @Override
+        public String getHeader(String name) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                return Integer.toString(body.length);
+            }
+            return HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name) ? null : super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                return Collections.enumeration(List.of(Integer.toString(body.length)));
+            }
+            return HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name)
+                    ? Collections.emptyEnumeration()
+                    : super.getHeaders(name);
+        }
+    }
+
+    private static class InflatedInputStream extends ServletInputStream {
+
+        private final ByteArrayInputStream delegate;
+
+        InflatedInputStream(byte[] body) {
+            this.delegate = new ByteArrayInputStream(body);
+        }
+
+        @Override
+        public int read() {
+            return delegate.read();
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            return delegate.read(buffer, offset, length);
+        }
+
+        @Override
+        public boolean isFinished() {
+            return delegate.available() == 0;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        // The whole body is in memory, so it is available right away
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            try {
+                if (!isFinished()) {
+                    readListener.onDataAvailable();
+                }
+                readListener.onAllDataRead();
+            } catch (IOException | RuntimeException e) {
+                readListener.onError(e);
+            }
+        }
+    }
+}
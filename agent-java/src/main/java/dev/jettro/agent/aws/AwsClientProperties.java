@@ -0,0 +1,68 @@
+package dev.jettro.agent.aws;
+
+import java.time.Duration;
+import java.util.Map;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * HTTP client settings of the AWS SDK clients, with one connection pool per service, for instance
+ * {@code agent.aws-clients.pools.bedrock}. A pool named {@code memory:<id>}, such as the pool of a memory shard,
+ * uses the settings of {@code memory} unless it has an entry of its own. Services without an entry use the defaults
+ * of {@link Pool}.
+ *
+ * @param syncClient     HTTP implementation of the synchronous clients.
+ * @param asyncClient    HTTP implementation of the asynchronous clients.
+ * @param metricsEnabled Publish SDK call, retry and pool metrics to the meter registry.
+ * @param pools          Connection pool per service.
+ */
+@ConfigurationProperties(prefix = "agent.aws-clients")
+public record AwsClientProperties(
+        @DefaultValue("apache") SyncClient syncClient,
+        @DefaultValue("netty") AsyncClient asyncClient,
+        @DefaultValue("true") boolean metricsEnabled,
+        Map<String, Pool> pools) {
+
+    public AwsClientProperties {
+        pools = pools == null ? Map.of() : Map.copyOf(pools);
+    }
+
+    public Pool pool(String service) {
+        int separator = service.indexOf(':');
+        Pool fallback = separator < 0 ? Pool.DEFAULTS
+                : pools.getOrDefault(service.substring(0, separator), Pool.DEFAULTS);
+        return pools.getOrDefault(service, fallback);
+    }
+
+    public enum SyncClient { APACHE, CRT }
+
+    public enum AsyncClient { NETTY, CRT }
+
+    /**
+     * @param maxConnections        Connections the pool opens to the service at most.
+     * @param connectionTimeout     Time to establish a new connection.
+     * @param acquisitionTimeout    Time a call waits for a connection from a full pool.
+     * @param maxIdleTime           Idle connections are closed after this time. Longer than the time between calls
+     *                              keeps connections, and their TLS sessions, warm.
+     * @param timeToLive            Connections are closed after this age, zero keeps them open. A finite age lets the
+     *                              pool pick up DNS changes of the endpoint.
+     * @param tcpKeepAlive          Send TCP keep-alive probes, so NAT gateways and load balancers keep idle
+     *                              connections open.
+     * @param keepAliveInterval     Interval between keep-alive probes, only used by the CRT client.
+     * @param keepAliveTimeout      Time to wait for the answer to a keep-alive probe before the connection is
+     *                              closed, only used by the CRT client.
+     */
+    public record Pool(
+            @DefaultValue("50") int maxConnections,
+            @DefaultValue("2s") Duration connectionTimeout,
+            @DefaultValue("10s") Duration acquisitionTimeout,
+            @DefaultValue("5m") Duration maxIdleTime,
+            @DefaultValue("10m") Duration timeToLive,
+            @DefaultValue("true") boolean tcpKeepAlive,
+            @DefaultValue("30s") Duration keepAliveInterval,
+            @DefaultValue("10s") Duration keepAliveTimeout) {
+
+        static final Pool DEFAULTS = new Pool(50, Duration.ofSeconds(2), Duration.ofSeconds(10), Duration.ofMinutes(5),
+                Duration.ofMinutes(10), true, Duration.ofSeconds(30), Duration.ofSeconds(10));
+    }
+}
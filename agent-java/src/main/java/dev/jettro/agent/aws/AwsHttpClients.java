@@ -0,0 +1,138 @@
+package dev.jettro.agent.aws;
+
+import dev.jettro.agent.resilience.RetryBudget;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+import software.amazon.awssdk.http.crt.AwsCrtAsyncHttpClient;
+import software.amazon.awssdk.http.crt.AwsCrtHttpClient;
+import software.amazon.awssdk.http.crt.TcpKeepAliveConfiguration;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.metrics.MetricPublisher;
+
+/**
+ * The HTTP clients of the AWS SDK clients, one sync and one async connection pool per service, shared by every SDK
+ * client of that service. The alternate-region Bedrock clients of hedging reuse the pool of the primary region, so
+ * no client opens connections of its own.
+ * <p>
+ * SDK clients do not close an HTTP client they were given, this component closes them all on shutdown. Every HTTP
+ * client sits behind the {@link WarmupHttpStub}.
+ */
+@Component
+public class AwsHttpClients implements AutoCloseable {
+
+    public static final String BEDROCK = "bedrock";
+    public static final String MEMORY = "memory";
+    public static final String CONTROL = "control";
+
+    private static final Logger logger = LoggerFactory.getLogger(AwsHttpClients.class);
+
+    private final AwsClientProperties properties;
+    private final MetricPublisher metricPublisher;
+    private final RetryBudget retryBudget;
+    private final WarmupHttpStub warmupStub;
+    private final Map<String, SdkHttpClient> syncClients = new ConcurrentHashMap<>();
+    private final Map<String, SdkAsyncHttpClient> asyncClients = new ConcurrentHashMap<>();
+
+    public AwsHttpClients(AwsClientProperties properties, MeterRegistry meterRegistry, RetryBudget retryBudget,
+                          WarmupHttpStub warmupStub) {
+        this.properties = properties;
+        this.metricPublisher = new MicrometerMetricPublisher(meterRegistry);
+        this.retryBudget = retryBudget;
+        this.warmupStub = warmupStub;
+    }
+
+    public SdkHttpClient httpClient(String service) {
+        return syncClients.computeIfAbsent(service, this::createSyncClient);
+    }
+
+    public SdkAsyncHttpClient asyncHttpClient(String service) {
+        return asyncClients.computeIfAbsent(service, this::createAsyncClient);
+    }
+
+    /**
+     * Adds the metric publisher and the retry strategy of the shared {@link RetryBudget} to the override
+     * configuration of an SDK client.
+     */
+    public void configure(ClientOverrideConfiguration.Builder config) {
+        if (properties.metricsEnabled()) {
+            config.addMetricPublisher(metricPublisher);
+        }
+        if (retryBudget.enabled()) {
+            config.retryStrategy(retryBudget.retryStrategy());
+        }
+    }
+
+    @Override
+    public void close() {
+        syncClients.values().forEach(SdkHttpClient::close);
+        asyncClients.values().forEach(SdkAsyncHttpClient::close);
+    }
+
+    private SdkHttpClient createSyncClient(String service) {
+        AwsClientProperties.Pool pool = properties.pool(service);
+        logger.info("Creating {} HTTP client for {} with {} connections", properties.syncClient(), service,
+                pool.maxConnections());
+        SdkHttpClient client = switch (properties.syncClient()) {
+            case APACHE -> ApacheHttpClient.builder()
+                    .maxConnections(pool.maxConnections())
+                    .connectionTimeout(pool.connectionTimeout())
+                    .connectionAcquisitionTimeout(pool.acquisitionTimeout())
+                    .connectionMaxIdleTime(pool.maxIdleTime())
+                    .connectionTimeToLive(pool.timeToLive())
+                    .tcpKeepAlive(pool.tcpKeepAlive())
+                    .useIdleConnectionReaper(true)
+                    .build();
+            case CRT -> AwsCrtHttpClient.builder()
+                    .maxConcurrency(pool.maxConnections())
+                    .connectionTimeout(pool.connectionTimeout())
+                    .connectionAcquisitionTimeout(pool.acquisitionTimeout())
+                    .connectionMaxIdleTime(pool.maxIdleTime())
+                    .tcpKeepAliveConfiguration(keepAlive(pool))
+                    .build();
+        };
+        return warmupStub.wrap(client);
+    }
+
+    private SdkAsyncHttpClient createAsyncClient(String service) {
+        AwsClientProperties.Pool pool = properties.pool(service);
+        logger.info("Creating {} async HTTP client for {} with {} connections", properties.asyncClient(), service,
+                pool.maxConnections());
+        SdkAsyncHttpClient client = switch (properties.asyncClient()) {
+            case NETTY -> NettyNioAsyncHttpClient.builder()
+                    .maxConcurrency(pool.maxConnections())
+                    .connectionTimeout(pool.connectionTimeout())
+                    .connectionAcquisitionTimeout(pool.acquisitionTimeout())
+                    .connectionMaxIdleTime(pool.maxIdleTime())
+                    .connectionTimeToLive(pool.timeToLive())
+                    .tcpKeepAlive(pool.tcpKeepAlive())
+                    .useIdleConnectionReaper(true)
+                    .build();
+            case CRT -> AwsCrtAsyncHttpClient.builder()
+                    .maxConcurrency(pool.maxConnections())
+                    .connectionTimeout(pool.connectionTimeout())
+                    .connectionAcquisitionTimeout(pool.acquisitionTimeout())
+                    .connectionMaxIdleTime(pool.maxIdleTime())
+                    .tcpKeepAliveConfiguration(keepAlive(pool))
+                    .build();
+        };
+        return warmupStub.wrap(client);
+    }
+
+    private static TcpKeepAliveConfiguration keepAlive(AwsClientProperties.Pool pool) {
+        if (!pool.tcpKeepAlive()) {
+            return null;
+        }
+        return TcpKeepAliveConfiguration.builder()
+                .keepAliveInterval(pool.keepAliveInterval())
+                .keepAliveTimeout(pool.keepAliveTimeout())
+                .build();
+    }
+}
@@ -0,0 +1,89 @@
+package dev.jettro.agent.aws;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import software.amazon.awssdk.core.metrics.CoreMetric;
+import software.amazon.awssdk.http.HttpMetric;
+import software.amazon.awssdk.metrics.MetricCollection;
+import software.amazon.awssdk.metrics.MetricPublisher;
+import software.amazon.awssdk.metrics.SdkMetric;
+
+/**
+ * Exports the metrics the AWS SDK collects per API call to the meter registry:
+ * <ul>
+ *     <li>{@code aws.sdk.api-call} timer per service, operation and outcome,</li>
+ *     <li>{@code aws.sdk.retries} summary of the retries per call,</li>
+ *     <li>{@code aws.sdk.pool.leased}, {@code aws.sdk.pool.pending} and {@code aws.sdk.pool.max} gauges with the state
+ *     of the connection pool at the last request to a service.</li>
+ * </ul>
+ * A pool with leased close to max, or any pending acquires, is saturated and makes calls wait for a connection.
+ */
+public class MicrometerMetricPublisher implements MetricPublisher {
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, PoolState> pools = new ConcurrentHashMap<>();
+
+    public MicrometerMetricPublisher(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void publish(MetricCollection metrics) {
+        String service = first(metrics, CoreMetric.SERVICE_ID, "unknown");
+        Tags tags = Tags.of("service", service, "operation", first(metrics, CoreMetric.OPERATION_NAME, "unknown"));
+
+        Duration duration = first(metrics, CoreMetric.API_CALL_DURATION, null);
+        if (duration != null) {
+            boolean successful = first(metrics, CoreMetric.API_CALL_SUCCESSFUL, false);
+            meterRegistry.timer("aws.sdk.api-call", tags.and("outcome", successful ? "success" : "failure"))
+                    .record(duration);
+        }
+        DistributionSummary.builder("aws.sdk.retries")
+                .tags(tags)
+                .register(meterRegistry)
+                .record(first(metrics, CoreMetric.RETRY_COUNT, 0));
+
+        // Pool metrics live in the http client collection of every attempt, the last attempt has the latest state
+        PoolState pool = pools.computeIfAbsent(service, this::registerPool);
+        metrics.childrenWithName("ApiCallAttempt")
+                .flatMap(attempt -> attempt.childrenWithName("HttpClient"))
+                .reduce((previous, last) -> last)
+                .ifPresent(pool::update);
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private PoolState registerPool(String service) {
+        PoolState pool = new PoolState();
+        Tags tags = Tags.of("service", service);
+        meterRegistry.gauge("aws.sdk.pool.leased", tags, pool.leased);
+        meterRegistry.gauge("aws.sdk.pool.pending", tags, pool.pending);
+        meterRegistry.gauge("aws.sdk.pool.max", tags, pool.max);
+        return pool;
+    }
+
+    private static <T> T first(MetricCollection metrics, SdkMetric<T> metric, T fallback) {
+        List<T> values = metrics.metricValues(metric);
+        return values.isEmpty() ? fallback : values.getFirst();
+    }
+
+    private static final class PoolState {
+        private final AtomicInteger leased = new AtomicInteger();
+        private final AtomicInteger pending = new AtomicInteger();
+        private final AtomicInteger max = new AtomicInteger();
+
+        void update(MetricCollection httpClient) {
+            leased.set(first(httpClient, HttpMetric.LEASED_CONCURRENCY, leased.get()));
+            pending.set(first(httpClient, HttpMetric.PENDING_CONCURRENCY_ACQUIRES, pending.get()));
+            max.set(first(httpClient, HttpMetric.MAX_CONCURRENCY, max.get()));
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package dev.jettro.agent.aws;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.http.ExecutableHttpRequest;
+import software.amazon.awssdk.http.HttpExecuteRequest;
+import software.amazon.awssdk.http.HttpExecuteResponse;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.SdkHttpFullResponse;
+import software.amazon.awssdk.http.SdkHttpResponse;
+import software.amazon.awssdk.http.async.AsyncExecuteRequest;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+
+/**
+ * Sits in front of the HTTP clients of {@link AwsHttpClients} and, while the warm-up runs, answers every request with
+ * an empty JSON object instead of sending it. Warm-up so runs the real SDK clients, with their marshalling, signing,
+ * interceptors and retry strategy, and the real memory advisors without calling AWS.
+ * <p>
+ * The agent takes no invocations before warm-up is done and the background jobs start once it is ready, so the only
+ * requests answered by the stub are those of the warm-up.
+ */
+@Component
+public class WarmupHttpStub {
+
+    private static final byte[] EMPTY_OBJECT = "{}".getBytes(StandardCharsets.UTF_8);
+
+    private volatile boolean active;
+
+    public void activate() {
+        active = true;
+    }
+
+    public void deactivate() {
+        active = false;
+    }
+
+    SdkHttpClient wrap(SdkHttpClient delegate) {
+        return new SdkHttpClient() {
+            @Override
+            public ExecutableHttpRequest prepareRequest(HttpExecuteRequest request) {
+                if (!active) {
+                    return delegate.prepareRequest(request);
+                }
+                return new ExecutableHttpRequest() {
+                    @Override
+                    public HttpExecuteResponse call() {
+                        return HttpExecuteResponse.builder()
+                                .response(response())
+                                .responseBody(AbortableInputStream.create(new ByteArrayInputStream(EMPTY_OBJECT)))
+                                .build();
+                    }
+
+                    @Override
+                    public void abort() {
+                    }
+                };
+            }
+
+            @Override
+            public String clientName() {
+                return delegate.clientName();
+            }
+
+            @Override
+            public void close() {
+                delegate.close();
+            }
+        };
+    }
+
+    SdkAsyncHttpClient wrap(SdkAsyncHttpClient delegate) {
+        return new SdkAsyncHttpClient() {
+            @Override
+            public CompletableFuture<Void> execute(AsyncExecuteRequest request) {
+                if (!active) {
+                    return delegate.execute(request);
+                }
+                request.responseHandler().onHeaders(response());
+                request.responseHandler().onStream(Flux.just(ByteBuffer.wrap(EMPTY_OBJECT)));
+                return CompletableFuture.completedFuture(null);
+            }
+
+            @Override
+            public String clientName() {
+                return delegate.clientName();
+            }
+
+            @Override
+            public void close() {
+                delegate.close();
+            }
+        };
+    }
+
+    private static SdkHttpResponse response() {
+        return SdkHttpFullResponse.builder()
+                .statusCode(200)
+                .putHeader("Content-Type", "application/json")
+                .putHeader("Content-Length", Integer.toString(EMPTY_OBJECT.length))
+                .build();
+    }
+}
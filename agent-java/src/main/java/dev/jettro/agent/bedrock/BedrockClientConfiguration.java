@@ -0,0 +1,69 @@
+package dev.jettro.agent.bedrock;
+
+import dev.jettro.agent.aws.AwsHttpClients;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.regions.providers.AwsRegionProvider;
+import software.amazon.awssdk.services.bedrockruntime.BedrockRuntimeAsyncClient;
+import software.amazon.awssdk.services.bedrockruntime.BedrockRuntimeClient;
+
+/**
+ * Bedrock runtime clients used by the Spring AI converse chat model. Defining them here, instead of letting the
+ * auto-configuration create them, lets us add our own execution interceptors. The same settings are used for the
+ * clients of alternate regions, and all of them share the Bedrock connection pools of {@link AwsHttpClients}.
+ */
+@Configuration
+public class BedrockClientConfiguration {
+
+    private final AwsCredentialsProvider credentialsProvider;
+    private final PromptCacheInterceptor promptCacheInterceptor;
+    private final AwsHttpClients httpClients;
+    private final Duration timeout;
+
+    public BedrockClientConfiguration(AwsCredentialsProvider credentialsProvider,
+                                      PromptCacheInterceptor promptCacheInterceptor, AwsHttpClients httpClients,
+                                      @Value("${spring.ai.bedrock.aws.timeout:5m}") Duration timeout) {
+        this.credentialsProvider = credentialsProvider;
+        this.promptCacheInterceptor = promptCacheInterceptor;
+        this.httpClients = httpClients;
+        this.timeout = timeout;
+    }
+
+    @Bean
+    BedrockRuntimeClient bedrockRuntimeClient(AwsRegionProvider regionProvider) {
+        return runtimeClient(regionProvider.getRegion());
+    }
+
+    @Bean
+    BedrockRuntimeAsyncClient bedrockRuntimeAsyncClient(AwsRegionProvider regionProvider) {
+        return runtimeAsyncClient(regionProvider.getRegion());
+    }
+
+    public BedrockRuntimeClient runtimeClient(Region region) {
+        return BedrockRuntimeClient.builder()
+                .credentialsProvider(credentialsProvider)
+                .region(region)
+                .httpClient(httpClients.httpClient(AwsHttpClients.BEDROCK))
+                .overrideConfiguration(config -> {
+                    config.apiCallTimeout(timeout).addExecutionInterceptor(promptCacheInterceptor);
+                    httpClients.configure(config);
+                })
+                .build();
+    }
+
+    public BedrockRuntimeAsyncClient runtimeAsyncClient(Region region) {
+        return BedrockRuntimeAsyncClient.builder()
+                .credentialsProvider(credentialsProvider)
+                .region(region)
+                .httpClient(httpClients.asyncHttpClient(AwsHttpClients.BEDROCK))
+                .overrideConfiguration(config -> {
+                    config.apiCallTimeout(timeout).addExecutionInterceptor(promptCacheInterceptor);
+                    httpClients.configure(config);
+                })
+                .build();
+    }
+}
@@ -0,0 +1,110 @@
+package dev.jettro.agent.bedrock;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.SdkRequest;
+import software.amazon.awssdk.core.interceptor.Context;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.interceptor.ExecutionInterceptor;
+import software.amazon.awssdk.services.bedrockruntime.model.CachePointBlock;
+import software.amazon.awssdk.services.bedrockruntime.model.CachePointType;
+import software.amazon.awssdk.services.bedrockruntime.model.ContentBlock;
+import software.amazon.awssdk.services.bedrockruntime.model.ConverseRequest;
+import software.amazon.awssdk.services.bedrockruntime.model.ConverseStreamRequest;
+import software.amazon.awssdk.services.bedrockruntime.model.Message;
+import software.amazon.awssdk.services.bedrockruntime.model.SystemContentBlock;
+import software.amazon.awssdk.services.bedrockruntime.model.Tool;
+import software.amazon.awssdk.services.bedrockruntime.model.ToolConfiguration;
+
+/**
+ * Adds Converse cache points to the requests built by the Bedrock converse chat model.
+ * <p>
+ * The context is assembled as: tool schemas, the stable system prompt, memories added by the advisors, conversation
+ * history and finally the newest message. Cache points go after the stable system prompt (splitting it from any
+ * memories that were appended to the same block), optionally after the tool schemas, and after the history. Requests
+ * that already contain a cache point in a section are left alone in that section.
+ */
+@Component
+public class PromptCacheInterceptor implements ExecutionInterceptor {
+
+    private static final CachePointBlock CACHE_POINT = CachePointBlock.builder().type(CachePointType.DEFAULT).build();
+
+    private final PromptCacheProperties properties;
+    private final String systemPrompt;
+
+    public PromptCacheInterceptor(PromptCacheProperties properties,
+                                  @Value("${agent.system-prompt:}") String systemPrompt) {
+        this.properties = properties;
+        this.systemPrompt = systemPrompt;
+    }
+
+    @Override
+    public SdkRequest modifyRequest(Context.ModifyRequest context, ExecutionAttributes executionAttributes) {
+        if (!properties.enabled()) {
+            return context.request();
+        }
+        if (context.request() instanceof ConverseRequest request) {
+            return request.toBuilder()
+                    .system(cacheSystem(request.system()))
+                    .toolConfig(cacheTools(request.toolConfig()))
+                    .messages(cacheHistory(request.messages()))
+                    .build();
+        }
+        if (context.request() instanceof ConverseStreamRequest request) {
+            return request.toBuilder()
+                    .system(cacheSystem(request.system()))
+                    .toolConfig(cacheTools(request.toolConfig()))
+                    .messages(cacheHistory(request.messages()))
+                    .build();
+        }
+        return context.request();
+    }
+
+    List<SystemContentBlock> cacheSystem(List<SystemContentBlock> system) {
+        if (system.isEmpty() || system.stream().anyMatch(block -> block.cachePoint() != null)) {
+            return system;
+        }
+
+        List<SystemContentBlock> result = new ArrayList<>(system.size() + 2);
+        String first = system.getFirst().text();
+        if (!systemPrompt.isBlank() && first != null && first.startsWith(systemPrompt)
+                && first.length() > systemPrompt.length()) {
+            // Memories were appended to the stable instructions, split them so the instructions stay cacheable
+            result.add(SystemContentBlock.builder().text(systemPrompt).build());
+            result.add(SystemContentBlock.builder().cachePoint(CACHE_POINT).build());
+            result.add(SystemContentBlock.builder().text(first.substring(systemPrompt.length())).build());
+        } else {
+            result.add(system.getFirst());
+            result.add(SystemContentBlock.builder().cachePoint(CACHE_POINT).build());
+        }
+        result.addAll(system.subList(1, system.size()));
+        return result;
+    }
+
+    ToolConfiguration cacheTools(ToolConfiguration toolConfig) {
+        if (!properties.cacheTools() || toolConfig == null || !toolConfig.hasTools() || toolConfig.tools().isEmpty()
+                || toolConfig.tools().stream().anyMatch(tool -> tool.cachePoint() != null)) {
+            return toolConfig;
+        }
+        List<Tool> tools = new ArrayList<>(toolConfig.tools());
+        tools.add(Tool.builder().cachePoint(CACHE_POINT).build());
+        return toolConfig.toBuilder().tools(tools).build();
+    }
+
+    List<Message> cacheHistory(List<Message> messages) {
+        if (!properties.cacheHistory() || messages.size() < 2 || messages.stream()
+                .flatMap(message -> message.content().stream())
+                .anyMatch(block -> block.cachePoint() != null)) {
+            return messages;
+        }
+        List<Message> result = new ArrayList<>(messages);
+        int lastOfHistory = messages.size() - 2;
+        Message history = messages.get(lastOfHistory);
+        List<ContentBlock> content = new ArrayList<>(history.content());
+        content.add(ContentBlock.builder().cachePoint(CACHE_POINT).build());
+        result.set(lastOfHistory, history.toBuilder().content(content).build());
+        return result;
+    }
+}
@@ -0,0 +1,19 @@
+package dev.jettro.agent.bedrock;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuration of Bedrock Converse prompt caching.
+ *
+ * @param enabled      Add cache points to Converse requests.
+ * @param cacheTools   Add a cache point after the tool schemas. Not every model accepts one there; models that render
+ *                     tools before the system prompt already cache them with the system cache point.
+ * @param cacheHistory Add a cache point after the conversation history, before the newest message.
+ */
+@ConfigurationProperties(prefix = "agent.prompt-cache")
+public record PromptCacheProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("false") boolean cacheTools,
+        @DefaultValue("true") boolean cacheHistory) {
+}
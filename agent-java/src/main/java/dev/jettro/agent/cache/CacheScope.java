@@ -0,0 +1,113 @@
+package dev.jettro.agent.cache;
+
+import dev.jettro.agent.vectorindex.HnswIndex;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The cached answers of one actor, or of the global scope, with an HNSW index over their prompt embeddings.
+ * <p>
+ * The graph has no removal, so expired and dropped answers are only marked. Once twice as many nodes as
+ * {@code maxEntries} are in the graph, it is rebuilt from the live answers.
+ */
+class CacheScope {
+
+    private static final int CANDIDATES = 4;
+    private static final int LINKS = 8;
+    private static final int EF = 32;
+
+    private final int maxEntries;
+    private final Duration ttl;
+    private HnswIndex index;
+    private List<Entry> entries = new ArrayList<>();
+    private BitSet removed = new BitSet();
+    private int oldestLive;
+    private int live;
+
+    CacheScope(int maxEntries, Duration ttl) {
+        this.maxEntries = maxEntries;
+        this.ttl = ttl;
+    }
+
+    synchronized Optional<Entry> lookup(float[] embedding, float threshold, Instant now) {
+        if (index == null) {
+            return Optional.empty();
+        }
+        for (HnswIndex.Hit hit : index.search(embedding, CANDIDATES, EF)) {
+            Entry entry = entries.get(hit.node());
+            if (hit.score() >= threshold && !removed.get(hit.node()) && !entry.isExpired(now, ttl)) {
+                return Optional.of(entry);
+            }
+        }
+        return Optional.empty();
+    }
+
+    synchronized void put(Entry entry, Instant now) {
+        // Entries are added in time order, so the expired ones are at the front
+        while (oldestLive < entries.size()
+                && (removed.get(oldestLive) || entries.get(oldestLive).isExpired(now, ttl) || live >= maxEntries)) {
+            remove(oldestLive++);
+        }
+        if (entries.size() >= 2 * maxEntries) {
+            compact();
+        }
+        if (index == null) {
+            index = new HnswIndex(entry.embedding().length, LINKS, EF, maxEntries);
+        }
+        index.add(entry.embedding());
+        entries.add(entry);
+        live++;
+    }
+
+    synchronized boolean isEmpty() {
+        return live == 0;
+    }
+
+    private void remove(int node) {
+        if (!removed.get(node)) {
+            removed.set(node);
+            live--;
+        }
+    }
+
+    private void compact() {
+        List<Entry> current = new ArrayList<>(live);
+        for (int node = oldestLive; node < entries.size(); node++) {
+            if (!removed.get(node)) {
+                current.add(entries.get(node));
+            }
+        }
+        index = null;
+        entries = new ArrayList<>(2 * maxEntries);
+        removed = new BitSet();
+        oldestLive = 0;
+        live = 0;
+        for (Entry entry : current) {
+            if (index == null) {
+                index = new HnswIndex(entry.embedding().length, LINKS, EF, maxEntries);
+            }
+            index.add(entry.embedding());
+            entries.add(entry);
+            live++;
+        }
+    }
+
+    /**
+     * A cached answer.
+     *
+     * @param embedding Embedding of the prompt it answered
+     * @param answer    The answer of the model
+     * @param createdAt When the answer was cached
+     * @param latency   How long the model took for it, the time a hit saves
+     */
+    record Entry(float[] embedding, String answer, Instant createdAt, Duration latency) {
+
+        boolean isExpired(Instant now, Duration ttl) {
+            return createdAt.plus(ttl).isBefore(now);
+        }
+    }
+}
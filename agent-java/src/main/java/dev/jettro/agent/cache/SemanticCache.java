@@ -0,0 +1,211 @@
+package dev.jettro.agent.cache;
+
+import dev.jettro.agent.deadline.Deadline;
+import dev.jettro.agent.deadline.DeadlineProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.stereotype.Component;
+
+/**
+ * Returns an earlier answer for a prompt that is close to an earlier prompt of the same actor. Answers are shared
+ * across actors only for prompts that match one of the {@code globalIntents}, contain none of the
+ * {@code personalWords}, and were answered without anything from memory; everything else stays in the actor's scope.
+ * <p>
+ * A cached answer stays valid for the {@code ttl}. The cache of an actor is cleared when a prompt may have changed
+ * what the agent remembers about it, which is when the prompt is personal; long-term records are extracted from the
+ * conversation in the background, the ttl bounds how long an answer can miss them. A failing embedding counts as a
+ * miss that is not cached, and so does one that would leave the model less than its minimum budget of the
+ * {@link Deadline}. Metrics: {@code agent.semantic-cache.requests} with result hit or miss,
+ * {@code agent.semantic-cache.lookup} for the time a lookup takes including the embedding, and
+ * {@code agent.semantic-cache.saved} for the model time the hits saved.
+ */
+@Component
+public class SemanticCache {
+
+    static final String GLOBAL = "*global*";
+
+    private static final Logger logger = LoggerFactory.getLogger(SemanticCache.class);
+
+    private final SemanticCacheProperties properties;
+    private final EmbeddingModel embeddingModel;
+    private final DeadlineProperties deadlineProperties;
+    private final List<Pattern> globalIntents;
+    private final Pattern personalWords;
+    private final CacheScope global;
+    private final Map<String, CacheScope> actors;
+    private final Counter hits;
+    private final Counter misses;
+    private final Timer lookups;
+    private final Timer saved;
+
+    public SemanticCache(SemanticCacheProperties properties, EmbeddingModel embeddingModel,
+                         DeadlineProperties deadlineProperties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.embeddingModel = embeddingModel;
+        this.deadlineProperties = deadlineProperties;
+        this.globalIntents = properties.globalIntents().stream()
+                .map(intent -> Pattern.compile(intent, Pattern.CASE_INSENSITIVE))
+                .toList();
+        this.personalWords = properties.personalWords().isEmpty() ? null : Pattern.compile(properties.personalWords()
+                        .stream()
+                        .map(Pattern::quote)
+                        .collect(Collectors.joining("|", "\\b(?:", ")\\b")),
+                Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE | Pattern.UNICODE_CHARACTER_CLASS);
+        this.global = new CacheScope(properties.maxGlobalEntries(), properties.ttl());
+        this.actors = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CacheScope> eldest) {
+                return size() > properties.maxActors();
+            }
+        };
+        this.hits = meterRegistry.counter("agent.semantic-cache.requests", "result", "hit");
+        this.misses = meterRegistry.counter("agent.semantic-cache.requests", "result", "miss");
+        this.lookups = meterRegistry.timer("agent.semantic-cache.lookup");
+        this.saved = meterRegistry.timer("agent.semantic-cache.saved");
+    }
+
+    /**
+     * Looks up the prompt; the returned lookup holds the embedding, so a miss can be stored without embedding again.
+     */
+    public Lookup lookup(String actor, String prompt) {
+        if (!properties.enabled() || prompt == null || prompt.isBlank()) {
+            return Lookup.NONE;
+        }
+        long start = System.nanoTime();
+        boolean shareable = !isPersonal(prompt)
+                && globalIntents.stream().anyMatch(intent -> intent.matcher(prompt.strip()).matches());
+        float[] embedding = embed(prompt);
+        if (embedding == null) {
+            misses.increment();
+            return Lookup.NONE;
+        }
+        Instant now = Instant.now();
+        Optional<CacheScope.Entry> entry = shareable ? find(GLOBAL, embedding, now) : Optional.empty();
+        if (entry.isEmpty()) {
+            entry = find(actor, embedding, now);
+        }
+        lookups.record(Duration.ofNanos(System.nanoTime() - start));
+
+        if (entry.isEmpty()) {
+            misses.increment();
+            return new Lookup(actor, shareable, embedding, null);
+        }
+        hits.increment();
+        saved.record(entry.get().latency());
+        return new Lookup(actor, shareable, embedding, entry.get().answer());
+    }
+
+    /**
+     * Caches the answer to a prompt that missed the cache.
+     *
+     * @param usedMemory Whether memory added anything to the prompt, such an answer is never shared across actors
+     */
+    public void put(Lookup lookup, String answer, Duration latency, boolean usedMemory) {
+        if (lookup.embedding() == null || lookup.isHit() || answer == null || answer.isBlank()) {
+            return;
+        }
+        var entry = new CacheScope.Entry(lookup.embedding(), answer, Instant.now(), latency);
+        String scope = lookup.shareable() && !usedMemory ? GLOBAL : lookup.actor();
+        scope(scope, true).ifPresent(cache -> cache.put(entry, entry.createdAt()));
+    }
+
+    /**
+     * Whether the prompt refers to the actor, so its answer is personal and the prompt may change the actor's memory
+     */
+    public boolean isPersonal(String prompt) {
+        return personalWords != null && prompt != null && personalWords.matcher(prompt).find();
+    }
+
+    /**
+     * Drops the cached answers of an actor, because what the agent remembers about it may have changed.
+     */
+    public void invalidate(String actor) {
+        if (properties.enabled()) {
+            synchronized (actors) {
+                actors.remove(actor);
+            }
+        }
+    }
+
+    /**
+     * Embeds the prompt, within the {@link Deadline} of the invocation minus the budget the model needs. Returns null
+     * when it failed or took too long.
+     */
+    private float[] embed(String prompt) {
+        Optional<Duration> budget = Deadline.current()
+                .map(deadline -> deadline.remaining().minus(deadlineProperties.minModelBudget()));
+        if (budget.isEmpty()) {
+            try {
+                return embeddingModel.embed(prompt);
+            } catch (RuntimeException e) {
+                logger.warn("Embedding the prompt for the semantic cache failed, answering without the cache", e);
+                return null;
+            }
+        }
+        CompletableFuture<float[]> embedding = CompletableFuture.supplyAsync(() -> embeddingModel.embed(prompt),
+                task -> Thread.ofVirtual().name("semantic-cache-embed").start(task));
+        try {
+            return embedding.get(Math.max(0, budget.get().toNanos()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            embedding.cancel(true);
+            logger.warn("Embedding the prompt for the semantic cache took too long, answering without the cache");
+        } catch (ExecutionException e) {
+            logger.warn("Embedding the prompt for the semantic cache failed, answering without the cache",
+                    e.getCause());
+        } catch (InterruptedException e) {
+            embedding.cancel(true);
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    private Optional<CacheScope.Entry> find(String scope, float[] embedding, Instant now) {
+        return scope(scope, false).flatMap(cache -> cache.lookup(embedding, properties.threshold(), now));
+    }
+
+    private Optional<CacheScope> scope(String scope, boolean create) {
+        if (GLOBAL.equals(scope)) {
+            return Optional.of(global);
+        }
+        synchronized (actors) {
+            CacheScope cache = create
+                    ? actors.computeIfAbsent(scope, actor -> new CacheScope(properties.maxEntriesPerActor(),
+                            properties.ttl()))
+                    : actors.get(scope);
+            return Optional.ofNullable(cache);
+        }
+    }
+
+    /**
+     * Result of a lookup.
+     *
+     * @param actor     Actor the prompt was looked up for
+     * @param shareable Whether the prompt is one whose answer may be shared across actors
+     * @param embedding Embedding of the prompt, null when the cache is disabled or the embedding failed
+     * @param answer    Cached answer, null on a miss
+     */
+    public record Lookup(String actor, boolean shareable, float[] embedding, String answer) {
+
+        static final Lookup NONE = new Lookup(null, false, null, null);
+
+        public boolean isHit() {
+            return answer != null;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package dev.jettro.agent.cache;
+
+import java.time.Duration;
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuration of the semantic response cache.
+ *
+ * @param enabled            Answer prompts that are close enough to an earlier prompt with the earlier answer.
+ * @param threshold          Lowest cosine similarity between two prompts for a cached answer to be returned.
+ * @param ttl                Time a cached answer stays valid.
+ * @param maxEntriesPerActor Answers cached per actor, the oldest is dropped above it.
+ * @param maxGlobalEntries   Answers cached in the global scope.
+ * @param maxActors          Number of actors with a cache, the least recently used is dropped above it.
+ * @param globalIntents      Regular expressions for prompts that are not personal; their answers are shared by all
+ *                           actors. Matched case-insensitively against the whole prompt.
+ * @param personalWords      Words that make a prompt personal wherever they appear: it is never shared across
+ *                           actors, and it may tell the agent something that changes the actor's memory.
+ */
+@ConfigurationProperties(prefix = "agent.semantic-cache")
+public record SemanticCacheProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("0.92") float threshold,
+        @DefaultValue("10m") Duration ttl,
+        @DefaultValue("100") int maxEntriesPerActor,
+        @DefaultValue("1000") int maxGlobalEntries,
+        @DefaultValue("10000") int maxActors,
+        List<String> globalIntents,
+        @DefaultValue({"i", "me", "my", "mine", "myself", "we", "us", "our", "ours", "ourselves"})
+        List<String> personalWords) {
+
+    public SemanticCacheProperties {
+        globalIntents = globalIntents == null ? List.of() : List.copyOf(globalIntents);
+        personalWords = personalWords == null ? List.of() : List.copyOf(personalWords);
+    }
+}
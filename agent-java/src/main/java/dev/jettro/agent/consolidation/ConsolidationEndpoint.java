@@ -0,0 +1,36 @@
+package dev.jettro.agent.consolidation;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint {@code /actuator/memory-consolidation}, only reachable with the bearer token, see
+ * {@code ActuatorAccessFilter}. A GET returns the report of the last run, a POST starts a
+ * run and returns its report; the optional {@code dryRun} parameter defaults to
+ * {@code agent.memory-consolidation.dry-run}.
+ */
+@Component
+@Endpoint(id = "memory-consolidation")
+public class ConsolidationEndpoint {
+
+    private final MemoryConsolidation consolidation;
+    private final ConsolidationProperties properties;
+
+    public ConsolidationEndpoint(MemoryConsolidation consolidation, ConsolidationProperties properties) {
+        this.consolidation = consolidation;
+        this.properties = properties;
+    }
+
+    @ReadOperation
+    public ConsolidationReport lastReport() {
+        return consolidation.lastReport();
+    }
+
+    @WriteOperation
+    public ConsolidationReport run(@Nullable Boolean dryRun) {
+        return consolidation.run(dryRun == null ? properties.dryRun() : dryRun);
+    }
+}
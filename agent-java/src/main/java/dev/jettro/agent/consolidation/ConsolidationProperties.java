@@ -0,0 +1,54 @@
+package dev.jettro.agent.consolidation;
+
+import java.time.Duration;
+import java.util.Comparator;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import software.amazon.awssdk.services.bedrockagentcore.model.MemoryRecordSummary;
+
+/**
+ * Configuration of the job that removes near-duplicate long-term memory records.
+ *
+ * @param dryRun             Only report what a run would delete.
+ * @param threshold          Lowest cosine similarity at which two records of a namespace are duplicates.
+ * @param keep               Which record of a group of duplicates is kept.
+ * @param minAge             Records younger than this are left alone, the memory strategies may still be updating them.
+ * @param maxDeletesPerActor Most records deleted for a single actor in one run.
+ * @param maxConcurrency     Number of actors scanned in parallel, and the most calls to the memory service in flight.
+ * @param reportSize         Number of duplicates listed in the report.
+ */
+@ConfigurationProperties(prefix = "agent.memory-consolidation")
+public record ConsolidationProperties(
+        @DefaultValue("true") boolean dryRun,
+        @DefaultValue("0.93") float threshold,
+        @DefaultValue("NEWEST") Keep keep,
+        @DefaultValue("1h") Duration minAge,
+        @DefaultValue("200") int maxDeletesPerActor,
+        @DefaultValue("4") int maxConcurrency,
+        @DefaultValue("50") int reportSize) {
+
+    public enum Keep {
+        /**
+         * The most recently created record, older ones are pruned.
+         */
+        NEWEST,
+        /**
+         * The longest record, usually the one that consolidates what the shorter ones say.
+         */
+        LONGEST;
+
+        /**
+         * Orders records with the one to keep first.
+         */
+        Comparator<MemoryRecordSummary> order() {
+            Comparator<MemoryRecordSummary> newest = Comparator.comparing(MemoryRecordSummary::createdAt,
+                    Comparator.nullsLast(Comparator.reverseOrder()));
+            return switch (this) {
+                case NEWEST -> newest;
+                case LONGEST -> Comparator.<MemoryRecordSummary>comparingInt(record -> record.content().text().length())
+                        .reversed()
+                        .thenComparing(newest);
+            };
+        }
+    }
+}
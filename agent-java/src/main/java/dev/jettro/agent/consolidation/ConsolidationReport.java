@@ -0,0 +1,26 @@
+package dev.jettro.agent.consolidation;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Outcome of a memory consolidation run.
+ *
+ * @param dryRun       Nothing was deleted, the duplicates are what a real run would delete
+ * @param startedAt    When the run started
+ * @param duration     How long the run took
+ * @param actors       Number of actors scanned
+ * @param failedActors Number of actors whose scan stopped with an error
+ * @param records      Number of records listed
+ * @param duplicates   Number of records found to repeat a record that is kept
+ * @param deleted      Number of records deleted
+ * @param examples     The first duplicates found, each with the record kept in its place
+ */
+public record ConsolidationReport(boolean dryRun, Instant startedAt, Duration duration, int actors, int failedActors,
+                                  int records, int duplicates, int deleted, List<Duplicate> examples) {
+
+    public record Duplicate(String actorId, String namespace, String recordId, String text, String keptRecordId,
+                            String keptText, float similarity) {
+    }
+}
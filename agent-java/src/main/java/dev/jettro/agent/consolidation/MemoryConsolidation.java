@@ -0,0 +1,274 @@
+package dev.jettro.agent.consolidation;
+
+import dev.jettro.agent.memory.StrategySnapshot;
+import dev.jettro.agent.sharding.MemoryShard;
+import dev.jettro.agent.sharding.MemoryShards;
+import dev.jettro.agent.vectorindex.HnswIndex;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.bedrockagentcore.model.ActorSummary;
+import software.amazon.awssdk.services.bedrockagentcore.model.ListActorsResponse;
+import software.amazon.awssdk.services.bedrockagentcore.model.ListMemoryRecordsResponse;
+import software.amazon.awssdk.services.bedrockagentcore.model.ListSessionsResponse;
+import software.amazon.awssdk.services.bedrockagentcore.model.MemoryRecordSummary;
+import software.amazon.awssdk.services.bedrockagentcore.model.SessionSummary;
+import software.amazon.awssdk.services.bedrockagentcorecontrol.BedrockAgentCoreControlClient;
+
+/**
+ * Removes near-duplicate long-term memory records, which pile up as the memory strategies extract the same fact or
+ * preference from several conversations and make retrieval return the same thing more than once.
+ * <p>
+ * Actors are scanned in parallel, at most {@code maxConcurrency} at a time, and every call to the memory service goes
+ * through a {@link ThrottleAwareLimiter}. All namespaces of the memory strategies are scanned; session-level ones,
+ * such as summaries, for every session of the actor. The records of a namespace are embedded and grouped greedily:
+ * in the order of the {@code keep} policy, a record is a duplicate of the most similar record kept before it when
+ * their cosine similarity is at least {@code threshold}, and is kept itself otherwise. Duplicates are only looked
+ * for within a namespace, a session summary is never removed because another session had a similar one.
+ * <p>
+ * With sharded memory every memory shard is scanned, with the strategies of that memory; the limiter is shared, so
+ * the shards together stay within {@code maxConcurrency}.
+ * <p>
+ * A dry run lists the duplicates without deleting them. The report of the last run is kept for the
+ * {@link ConsolidationEndpoint}.
+ * <p>
+ * The agent never starts a run by itself: it runs in short-lived microVMs, one per session, that would all scan and
+ * delete at the same time. Runs are started from one place, by a single scheduled {@code ConsolidateMemory} task or
+ * through the endpoint; a second run in the same process is refused.
+ */
+@Component
+public class MemoryConsolidation {
+
+    private static final Logger logger = LoggerFactory.getLogger(MemoryConsolidation.class);
+
+    private static final int PAGE_SIZE = 100;
+    private static final int EMBEDDING_BATCH = 32;
+    private static final int MAX_LINKS = 16;
+    private static final int EF_CONSTRUCTION = 100;
+    private static final int EF_SEARCH = 64;
+
+    private final ConsolidationProperties properties;
+    private final MemoryShards shards;
+    private final BedrockAgentCoreControlClient controlClient;
+    private final EmbeddingModel embeddingModel;
+    private final ThrottleAwareLimiter limiter;
+    private final Counter deletions;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile ConsolidationReport lastReport;
+
+    public MemoryConsolidation(ConsolidationProperties properties, MemoryShards shards,
+                               BedrockAgentCoreControlClient controlClient, EmbeddingModel embeddingModel,
+                               MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.shards = shards;
+        this.controlClient = controlClient;
+        this.embeddingModel = embeddingModel;
+        this.limiter = new ThrottleAwareLimiter(properties.maxConcurrency(),
+                meterRegistry.counter("agent.memory-consolidation.throttled"));
+        this.deletions = meterRegistry.counter("agent.memory-consolidation.deleted");
+        meterRegistry.gauge("agent.memory-consolidation.limit", limiter, ThrottleAwareLimiter::limit);
+    }
+
+    public ConsolidationReport lastReport() {
+        return lastReport;
+    }
+
+    /**
+     * Scans all actors of every memory shard and returns once every actor is done.
+     *
+     * @throws IllegalStateException when another run is in progress
+     */
+    public ConsolidationReport run(boolean dryRun) {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("A memory consolidation run is already in progress");
+        }
+        try {
+            Instant startedAt = Instant.now();
+            Run run = new Run(dryRun);
+            try (ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, properties.maxConcurrency()),
+                    Thread.ofVirtual().name("memory-consolidation-", 0).factory())) {
+                for (MemoryShard shard : shards.all()) {
+                    List<StrategySnapshot.Strategy> strategies = StrategySnapshot.of(limiter.call(() -> controlClient
+                            .getMemory(request -> request.memoryId(shard.memoryId()))).memory()).strategies();
+                    List<String> actors = pages(token -> shard.client().listActors(request -> request
+                                    .memoryId(shard.memoryId())
+                                    .maxResults(PAGE_SIZE)
+                                    .nextToken(token)),
+                            ListActorsResponse::actorSummaries, ListActorsResponse::nextToken)
+                            .stream()
+                            .map(ActorSummary::actorId)
+                            .toList();
+                    actors.forEach(actorId -> executor.execute(() -> run.actor(shard, strategies, actorId)));
+                }
+            }
+            ConsolidationReport report = run.report(startedAt);
+            lastReport = report;
+            return report;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private <R, T> List<T> pages(Function<String, R> call, Function<R, List<T>> items, Function<R, String> nextToken) {
+        List<T> all = new ArrayList<>();
+        String token = null;
+        do {
+            String current = token;
+            R page = limiter.call(() -> call.apply(current));
+            all.addAll(items.apply(page));
+            token = nextToken.apply(page);
+        } while (token != null);
+        return all;
+    }
+
+    private List<float[]> embed(List<MemoryRecordSummary> records) {
+        List<float[]> embeddings = new ArrayList<>(records.size());
+        for (int from = 0; from < records.size(); from += EMBEDDING_BATCH) {
+            List<String> texts = records.subList(from, Math.min(records.size(), from + EMBEDDING_BATCH)).stream()
+                    .map(record -> record.content().text())
+                    .toList();
+            embeddings.addAll(embeddingModel.embed(texts));
+        }
+        return embeddings;
+    }
+
+    /**
+     * The state of a single run, shared by the threads scanning its actors.
+     */
+    private final class Run {
+
+        private final boolean dryRun;
+        private final AtomicInteger actors = new AtomicInteger();
+        private final AtomicInteger failedActors = new AtomicInteger();
+        private final AtomicInteger records = new AtomicInteger();
+        private final AtomicInteger duplicates = new AtomicInteger();
+        private final AtomicInteger deleted = new AtomicInteger();
+        private final List<ConsolidationReport.Duplicate> examples = Collections.synchronizedList(new ArrayList<>());
+
+        Run(boolean dryRun) {
+            this.dryRun = dryRun;
+        }
+
+        void actor(MemoryShard shard, List<StrategySnapshot.Strategy> strategies, String actorId) {
+            try {
+                int allowed = properties.maxDeletesPerActor();
+                List<String> sessions = null;
+                for (StrategySnapshot.Strategy strategy : strategies) {
+                    for (String template : strategy.namespaces()) {
+                        String namespace = template
+                                .replace("{actorId}", actorId)
+                                .replace("{memoryStrategyId}", strategy.strategyId())
+                                .replace("{strategyId}", strategy.strategyId());
+                        if (!namespace.contains("{sessionId}")) {
+                            allowed -= namespace(shard, actorId, strategy.strategyId(), namespace, allowed);
+                            continue;
+                        }
+                        if (sessions == null) {
+                            sessions = sessions(shard, actorId);
+                        }
+                        for (String sessionId : sessions) {
+                            allowed -= namespace(shard, actorId, strategy.strategyId(),
+                                    namespace.replace("{sessionId}", sessionId), allowed);
+                        }
+                    }
+                }
+                actors.incrementAndGet();
+            } catch (RuntimeException e) {
+                failedActors.incrementAndGet();
+                logger.warn("Consolidating the long-term memory of {} failed", actorId, e);
+            }
+        }
+
+        /**
+         * Groups the records of one namespace and removes the duplicates, returns the number of duplicates.
+         */
+        private int namespace(MemoryShard shard, String actorId, String strategyId, String namespace, int allowed) {
+            List<MemoryRecordSummary> listed = pages(token -> shard.client().listMemoryRecords(request -> request
+                            .memoryId(shard.memoryId())
+                            .namespace(namespace)
+                            .memoryStrategyId(strategyId)
+                            .maxResults(PAGE_SIZE)
+                            .nextToken(token)),
+                    ListMemoryRecordsResponse::memoryRecordSummaries, ListMemoryRecordsResponse::nextToken);
+            records.addAndGet(listed.size());
+
+            Instant settled = Instant.now().minus(properties.minAge());
+            List<MemoryRecordSummary> candidates = listed.stream()
+                    .filter(record -> record.content() != null && record.content().text() != null)
+                    .filter(record -> record.createdAt() == null || record.createdAt().isBefore(settled))
+                    .sorted(properties.keep().order())
+                    .toList();
+            if (candidates.size() < 2 || allowed <= 0) {
+                return 0;
+            }
+
+            List<float[]> embeddings = embed(candidates);
+            HnswIndex keptIndex = new HnswIndex(embeddings.getFirst().length, MAX_LINKS, EF_CONSTRUCTION,
+                    candidates.size());
+            List<MemoryRecordSummary> kept = new ArrayList<>();
+            int found = 0;
+            for (int i = 0; i < candidates.size() && found < allowed; i++) {
+                List<HnswIndex.Hit> closest = keptIndex.search(embeddings.get(i), 1, EF_SEARCH);
+                if (!closest.isEmpty() && closest.getFirst().score() >= properties.threshold()) {
+                    remove(shard, actorId, namespace, candidates.get(i), kept.get(closest.getFirst().node()),
+                            closest.getFirst().score());
+                    found++;
+                } else {
+                    keptIndex.add(embeddings.get(i));
+                    kept.add(candidates.get(i));
+                }
+            }
+            return found;
+        }
+
+        private void remove(MemoryShard shard, String actorId, String namespace, MemoryRecordSummary duplicate,
+                            MemoryRecordSummary survivor, float similarity) {
+            duplicates.incrementAndGet();
+            if (!dryRun) {
+                limiter.call(() -> shard.client().deleteMemoryRecord(request -> request
+                        .memoryId(shard.memoryId())
+                        .memoryRecordId(duplicate.memoryRecordId())));
+                deleted.incrementAndGet();
+                deletions.increment();
+            }
+            synchronized (examples) {
+                if (examples.size() < properties.reportSize()) {
+                    examples.add(new ConsolidationReport.Duplicate(actorId, namespace, duplicate.memoryRecordId(),
+                            duplicate.content().text(), survivor.memoryRecordId(), survivor.content().text(),
+                            similarity));
+                }
+            }
+        }
+
+        private List<String> sessions(MemoryShard shard, String actorId) {
+            return pages(token -> shard.client().listSessions(request -> request
+                            .memoryId(shard.memoryId())
+                            .actorId(actorId)
+                            .maxResults(PAGE_SIZE)
+                            .nextToken(token)),
+                    ListSessionsResponse::sessionSummaries, ListSessionsResponse::nextToken)
+                    .stream()
+                    .map(SessionSummary::sessionId)
+                    .toList();
+        }
+
+        ConsolidationReport report(Instant startedAt) {
+            return new ConsolidationReport(dryRun, startedAt, Duration.between(startedAt, Instant.now()),
+                    actors.get(), failedActors.get(), records.get(), duplicates.get(), deleted.get(),
+                    List.copyOf(examples));
+        }
+    }
+}
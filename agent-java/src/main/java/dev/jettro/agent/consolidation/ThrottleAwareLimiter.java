@@ -0,0 +1,99 @@
+package dev.jettro.agent.consolidation;
+
+import io.micrometer.core.instrument.Counter;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+import software.amazon.awssdk.core.exception.SdkServiceException;
+
+/**
+ * Bounds the number of calls to the memory service in flight. The limit starts at its maximum, is halved when the
+ * service throttles and grows by one after a full limit of calls went through. A throttled call waits with
+ * exponential backoff and is tried again, at most {@link #MAX_ATTEMPTS} times.
+ * <p>
+ * The SDK retries throttled calls as well; this limiter sees the throttling that is left after those retries, and
+ * makes the whole job slow down instead of every call on its own.
+ */
+final class ThrottleAwareLimiter {
+
+    private static final int MAX_ATTEMPTS = 6;
+    private static final long BASE_BACKOFF_MILLIS = 200;
+
+    private final int maxLimit;
+    private final Counter throttles;
+    private int limit;
+    private int inFlight;
+    private int successes;
+
+    ThrottleAwareLimiter(int maxLimit, Counter throttles) {
+        this.maxLimit = Math.max(1, maxLimit);
+        this.throttles = throttles;
+        this.limit = this.maxLimit;
+    }
+
+    synchronized int limit() {
+        return limit;
+    }
+
+    <T> T call(Supplier<T> call) {
+        for (int attempt = 1; ; attempt++) {
+            acquire();
+            T result;
+            try {
+                result = call.get();
+            } catch (SdkServiceException e) {
+                release(e.isThrottlingException());
+                if (!e.isThrottlingException() || attempt == MAX_ATTEMPTS) {
+                    throw e;
+                }
+                backoff(attempt);
+                continue;
+            } catch (RuntimeException e) {
+                release(false);
+                throw e;
+            }
+            succeeded();
+            return result;
+        }
+    }
+
+    private synchronized void acquire() {
+        while (inFlight >= limit) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the memory service", e);
+            }
+        }
+        inFlight++;
+    }
+
+    private synchronized void succeeded() {
+        inFlight--;
+        if (++successes >= limit && limit < maxLimit) {
+            limit++;
+            successes = 0;
+        }
+        notifyAll();
+    }
+
+    private synchronized void release(boolean throttled) {
+        inFlight--;
+        if (throttled) {
+            throttles.increment();
+            limit = Math.max(1, limit / 2);
+            successes = 0;
+        }
+        notifyAll();
+    }
+
+    private static void backoff(int attempt) {
+        long millis = BASE_BACKOFF_MILLIS << (attempt - 1);
+        try {
+            Thread.sleep(millis / 2 + ThreadLocalRandom.current().nextLong(millis / 2 + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while backing off from the memory service", e);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package dev.jettro.agent.deadline;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Absolute point in time after which nobody waits for the answer of an invocation anymore.
+ * <p>
+ * The backend sends it as epoch milliseconds in the {@link #HEADER} header. The controller binds it to the invocation
+ * thread, so memory advisors and the chat model can look at the remaining budget without passing it around. Model
+ * calls that run on other threads read it before they leave the invocation thread.
+ */
+public final class Deadline {
+
+    public static final String HEADER = "X-Amzn-Bedrock-AgentCore-Runtime-Custom-Deadline";
+
+    private static final Logger logger = LoggerFactory.getLogger(Deadline.class);
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    private final Instant instant;
+
+    private Deadline(Instant instant) {
+        this.instant = instant;
+    }
+
+    /**
+     * Parses the header value.
+     *
+     * @param header epoch milliseconds, may be null
+     * @return the deadline, or empty when there is no valid header
+     */
+    public static Optional<Deadline> fromHeader(String header) {
+        if (header == null || header.isBlank()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(new Deadline(Instant.ofEpochMilli(Long.parseLong(header.trim()))));
+        } catch (NumberFormatException e) {
+            logger.warn("Ignoring invalid deadline header: {}", header);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * The deadline of the invocation running on this thread.
+     */
+    public static Optional<Deadline> current() {
+        return Optional.ofNullable(CURRENT.get());
+    }
+
+    /**
+     * Makes this the deadline of the current thread until the returned scope is closed.
+     */
+    public Scope bind() {
+        Deadline previous = CURRENT.get();
+        CURRENT.set(this);
+        return () -> {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    public Instant instant() {
+        return instant;
+    }
+
+    /**
+     * Time left until the deadline, negative when it has passed.
+     */
+    public Duration remaining() {
+        return Duration.between(Instant.now(), instant);
+    }
+
+    /**
+     * Whether less than the given budget is left.
+     */
+    public boolean isWithin(Duration budget) {
+        return remaining().compareTo(budget) < 0;
+    }
+
+    @Override
+    public String toString() {
+        return instant.toString();
+    }
+
+    public interface Scope extends AutoCloseable {
+
+        Scope NONE = () -> {
+        };
+
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,15 @@
+package dev.jettro.agent.deadline;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Thrown when the budget of an invocation is too small to do useful work, or ran out while waiting for the model.
+ * Spring MVC turns it into a 504; the caller has given up already, so this mostly stops work nobody waits for.
+ */
+public class DeadlineExceededException extends ResponseStatusException {
+
+    public DeadlineExceededException(String reason) {
+        super(HttpStatus.GATEWAY_TIMEOUT, reason);
+    }
+}
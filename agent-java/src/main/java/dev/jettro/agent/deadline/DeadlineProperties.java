@@ -0,0 +1,21 @@
+package dev.jettro.agent.deadline;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * How the agent spends the budget between now and the {@link Deadline} of an invocation.
+ *
+ * @param enabled            Honour the deadline header sent by the backend.
+ * @param minModelBudget     Below this budget the model is not called and the invocation fails with a 504.
+ * @param lowBudget          Below this budget long-term memory retrieval is skipped and output tokens are capped.
+ * @param lowBudgetMaxTokens Maximum output tokens when the budget is low.
+ */
+@ConfigurationProperties(prefix = "agent.deadline")
+public record DeadlineProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("2s") Duration minModelBudget,
+        @DefaultValue("10s") Duration lowBudget,
+        @DefaultValue("512") int lowBudgetMaxTokens) {
+}
@@ -0,0 +1,206 @@
+package dev.jettro.agent.memory;
+
+import dev.jettro.agent.deadline.Deadline;
+import dev.jettro.agent.deadline.DeadlineProperties;
+import dev.jettro.agent.resilience.DependencyGuards;
+import dev.jettro.agent.sharding.MemoryShards;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisorChain;
+import org.springframework.ai.chat.memory.ChatMemory;
+
+/**
+ * Runs a memory advisor behind the memory circuit breaker and bulkhead. With sharded memory, those of the memory shard
+ * of the actor, so a failing shard only takes the memory of its own actors away.
+ * <p>
+ * A memory advisor wraps the rest of the chain: it loads memory, calls the next advisor and stores the exchange.
+ * Only the time and failures outside the downstream call are attributed to memory, and the bulkhead only holds a
+ * permit while memory is loaded and while the exchange is stored, not during the model call. When memory is down or
+ * saturated the advisor is skipped and the agent answers without it; a failure while storing the exchange, or a full
+ * bulkhead by then, is logged and the answer is still returned. Failures of the model itself are passed on untouched.
+ * <p>
+ * Long-term retrieval is optional: it is also skipped when little time is left until the {@link Deadline} of the
+ * invocation, so the remaining budget goes to the model.
+ * <p>
+ * When the advisor added anything to the prompt, such as history or long-term records, it sets
+ * {@link #CONTEXT_ADDED} in the request context, which ends up in the context of the response.
+ */
+public class GuardedMemoryAdvisor implements CallAdvisor {
+
+    public static final String CONTEXT_ADDED = "agent.memory.context-added";
+
+    private static final Logger logger = LoggerFactory.getLogger(GuardedMemoryAdvisor.class);
+
+    private final CallAdvisor delegate;
+    private final MemoryStage stage;
+    private final DependencyGuards guards;
+    private final MemoryShards shards;
+    private final DeadlineProperties deadlineProperties;
+
+    public GuardedMemoryAdvisor(CallAdvisor delegate, MemoryStage stage, DependencyGuards guards, MemoryShards shards,
+                                DeadlineProperties deadlineProperties) {
+        this.delegate = delegate;
+        this.stage = stage;
+        this.guards = guards;
+        this.shards = shards;
+        this.deadlineProperties = deadlineProperties;
+    }
+
+    @Override
+    public ChatClientResponse adviseCall(ChatClientRequest request, CallAdvisorChain chain) {
+        if (stage == MemoryStage.LONG_TERM && lowBudget()) {
+            logger.info("Little time left until the deadline, answering without {} memory", stage);
+            return chain.nextCall(request);
+        }
+        String dependency = dependency(request);
+        CircuitBreaker breaker = guards.circuitBreaker(dependency);
+        if (!breaker.tryAcquirePermission()) {
+            logger.warn("Memory circuit is open, answering without {} memory", stage);
+            return chain.nextCall(request);
+        }
+        Bulkhead bulkhead = guards.bulkhead(dependency);
+        if (!bulkhead.tryAcquirePermission()) {
+            breaker.releasePermission();
+            logger.warn("Memory bulkhead is full, answering without {} memory", stage);
+            return chain.nextCall(request);
+        }
+
+        TrackingChain tracking = new TrackingChain(chain, request, bulkhead);
+        long start = System.nanoTime();
+        try {
+            ChatClientResponse response = delegate.adviseCall(request, tracking);
+            breaker.onSuccess(tracking.memoryNanos(start), TimeUnit.NANOSECONDS);
+            return response;
+        } catch (RuntimeException e) {
+            if (tracking.storeSkipped) {
+                breaker.releasePermission();
+                logger.warn("Memory bulkhead is full, the exchange is not stored in {} memory", stage);
+                return tracking.response;
+            }
+            if (tracking.downstreamFailure != null) {
+                // The model or a later advisor failed, that says nothing about memory
+                breaker.releasePermission();
+                throw e;
+            }
+            breaker.onError(tracking.memoryNanos(start), TimeUnit.NANOSECONDS, e);
+            if (!tracking.entered) {
+                logger.warn("Loading {} memory failed, answering without it", stage, e);
+                tracking.releasePermit();
+                return chain.nextCall(request);
+            }
+            logger.warn("Storing the exchange in {} memory failed", stage, e);
+            return tracking.response;
+        } finally {
+            tracking.releasePermit();
+        }
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public int getOrder() {
+        return delegate.getOrder();
+    }
+
+    public MemoryStage getStage() {
+        return stage;
+    }
+
+    private String dependency(ChatClientRequest request) {
+        Object conversationId = request.context().get(ChatMemory.CONVERSATION_ID);
+        if (conversationId == null || !shards.sharded()) {
+            return DependencyGuards.MEMORY;
+        }
+        return shards.forConversation(conversationId.toString()).dependency();
+    }
+
+    private boolean lowBudget() {
+        return deadlineProperties.enabled()
+                && Deadline.current().map(deadline -> deadline.isWithin(deadlineProperties.lowBudget())).orElse(false);
+    }
+
+    /**
+     * Records whether and how long the memory advisor spent in the downstream part of the chain, and marks the
+     * request when the memory advisor changed the prompt. The bulkhead permit is given back while the downstream part
+     * runs, so it only covers loading and storing memory, and is taken again to store the exchange.
+     */
+    private static final class TrackingChain implements CallAdvisorChain {
+
+        private final CallAdvisorChain delegate;
+        private final ChatClientRequest original;
+        private final Bulkhead bulkhead;
+        private boolean holdsPermit = true;
+        private boolean storeSkipped;
+        private boolean entered;
+        private long downstreamNanos;
+        private RuntimeException downstreamFailure;
+        private ChatClientResponse response;
+
+        private TrackingChain(CallAdvisorChain delegate, ChatClientRequest original, Bulkhead bulkhead) {
+            this.delegate = delegate;
+            this.original = original;
+            this.bulkhead = bulkhead;
+        }
+
+        @Override
+        public ChatClientResponse nextCall(ChatClientRequest request) {
+            entered = true;
+            if (addedContext(request)) {
+                request = request.mutate().context(CONTEXT_ADDED, true).build();
+            }
+            releasePermit();
+            long start = System.nanoTime();
+            try {
+                response = delegate.nextCall(request);
+            } catch (RuntimeException e) {
+                downstreamFailure = e;
+                throw e;
+            } finally {
+                downstreamNanos += System.nanoTime() - start;
+            }
+            if (!bulkhead.tryAcquirePermission()) {
+                // Stops the memory advisor before it stores the exchange, the answer is returned without it
+                storeSkipped = true;
+                throw BulkheadFullException.createBulkheadFullException(bulkhead);
+            }
+            holdsPermit = true;
+            return response;
+        }
+
+        private void releasePermit() {
+            if (holdsPermit) {
+                holdsPermit = false;
+                bulkhead.onComplete();
+            }
+        }
+
+        @Override
+        public List<CallAdvisor> getCallAdvisors() {
+            return delegate.getCallAdvisors();
+        }
+
+        public CallAdvisorChain copy(CallAdvisor after) {
+            return delegate.copy(after);
+        }
+
+        private boolean addedContext(ChatClientRequest request) {
+            return request.prompt().getInstructions().size() != original.prompt().getInstructions().size()
+                    || !request.prompt().getContents().equals(original.prompt().getContents());
+        }
+
+        private long memoryNanos(long start) {
+            return Math.max(0, System.nanoTime() - start - downstreamNanos);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package dev.jettro.agent.memory;
+
+import dev.jettro.agent.deadline.DeadlineProperties;
+import dev.jettro.agent.resilience.DependencyGuards;
+import dev.jettro.agent.sharding.MemoryShardProperties;
+import dev.jettro.agent.sharding.MemoryShards;
+import dev.jettro.agent.sharding.ShardStrategies;
+import dev.jettro.agent.sharding.ShardedLongTermAdvisor;
+import dev.jettro.agent.vectorindex.LocalMemoryAdvisor;
+import dev.jettro.agent.vectorindex.LocalMemoryIndexes;
+import java.util.ArrayList;
+import java.util.List;
+import org.springaicommunity.agentcore.memory.longterm.AgentCoreMemory;
+import org.springframework.ai.chat.client.advisor.api.Advisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * The AgentCore memory advisors, each wrapped in a {@link GuardedMemoryAdvisor}, plus the
+ * {@link LocalMemoryAdvisor} when the local long-term memory index is enabled.
+ * <p>
+ * The AgentCore long-term advisors only know the memory of the auto-configuration and can not leave out the
+ * namespaces the local index covers. With sharded memory or the local index they are replaced by a single
+ * {@link ShardedLongTermAdvisor} at the order of the first of them.
+ */
+@Component
+public class MemoryAdvisors {
+
+    private final List<Advisor> advisors;
+
+    public MemoryAdvisors(AgentCoreMemory agentCoreMemory, DependencyGuards guards,
+                          DeadlineProperties deadlineProperties, LocalMemoryIndexes localMemory,
+                          MemoryShards shards, ShardStrategies strategies, MemoryShardProperties shardProperties,
+                          @Value("${agentcore.memory.default-session:default}") String defaultSession) {
+        List<Advisor> guarded = new ArrayList<>();
+        boolean replaceLongTerm = shards.sharded() || localMemory.enabled();
+        int firstLongTermOrder = Integer.MAX_VALUE;
+        for (Advisor advisor : agentCoreMemory.advisors) {
+            if (MemoryStage.of(advisor) == MemoryStage.LONG_TERM) {
+                firstLongTermOrder = Math.min(firstLongTermOrder, advisor.getOrder());
+                if (replaceLongTerm) {
+                    continue;
+                }
+            }
+            if (advisor instanceof CallAdvisor callAdvisor) {
+                guarded.add(new GuardedMemoryAdvisor(callAdvisor, MemoryStage.of(advisor), guards, shards,
+                        deadlineProperties));
+            } else {
+                guarded.add(advisor);
+            }
+        }
+        if (replaceLongTerm && firstLongTermOrder != Integer.MAX_VALUE) {
+            guarded.add(new GuardedMemoryAdvisor(new ShardedLongTermAdvisor(shards, strategies,
+                    shardProperties.topK(), defaultSession, firstLongTermOrder), MemoryStage.LONG_TERM, guards,
+                    shards, deadlineProperties));
+        }
+        if (localMemory.enabled() && firstLongTermOrder != Integer.MAX_VALUE) {
+            guarded.add(new LocalMemoryAdvisor(localMemory, firstLongTermOrder - 1));
+        }
+        this.advisors = List.copyOf(guarded);
+    }
+
+    public List<Advisor> advisors() {
+        return advisors;
+    }
+}
@@ -0,0 +1,24 @@
+package dev.jettro.agent.memory;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuration of the pipelined reads of short-term memory.
+ *
+ * @param enabled          Load conversation history with {@link PipelinedEventReader} instead of the default
+ *                         repository.
+ * @param minPageSize      Page size for conversations the agent has not seen yet.
+ * @param maxPageSize      Largest page size, ListEvents accepts at most 100.
+ * @param maxConversations Number of conversations whose length is remembered to size their first page.
+ * @param readTimeout      Longest wait for the pages of a conversation, a closer deadline of the invocation wins.
+ */
+@ConfigurationProperties(prefix = "agent.memory-prefetch")
+public record MemoryPrefetchProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("20") int minPageSize,
+        @DefaultValue("100") int maxPageSize,
+        @DefaultValue("10000") int maxConversations,
+        @DefaultValue("10s") Duration readTimeout) {
+}
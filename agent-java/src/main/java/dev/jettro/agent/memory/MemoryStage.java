@@ -0,0 +1,25 @@
+package dev.jettro.agent.memory;
+
+import org.springframework.ai.chat.client.advisor.MessageChatMemoryAdvisor;
+import org.springframework.ai.chat.client.advisor.PromptChatMemoryAdvisor;
+import org.springframework.ai.chat.client.advisor.api.Advisor;
+
+/**
+ * The memory stages of the advisor chain. Short-term memory carries the conversation, long-term memory adds
+ * retrieved records and is optional: the agent can answer without it.
+ */
+public enum MemoryStage {
+    SHORT_TERM,
+    LONG_TERM;
+
+    /**
+     * Short-term memory is implemented with the Spring AI chat memory advisors, every other memory advisor retrieves
+     * long-term records.
+     */
+    public static MemoryStage of(Advisor advisor) {
+        if (advisor instanceof MessageChatMemoryAdvisor || advisor instanceof PromptChatMemoryAdvisor) {
+            return SHORT_TERM;
+        }
+        return LONG_TERM;
+    }
+}
@@ -0,0 +1,276 @@
+package dev.jettro.agent.memory;
+
+import dev.jettro.agent.sharding.MemoryShard;
+import dev.jettro.agent.sharding.MemoryShards;
+import dev.jettro.agent.vectorindex.LocalMemoryIndexes;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.bedrockagentcore.model.Event;
+
+/**
+ * The context of the next turn of recently answered conversations, prepared while the agent waits for the user.
+ * <p>
+ * The history is what the chat memory last wrote for the conversation: the earlier turns with the latest exchange
+ * appended. The next prompt only adds its user message to it instead of reading the session from memory again. After
+ * an answer, {@link #precompute(String)} notes the newest event of the session and loads or refreshes the actor's
+ * local long-term memory index, so the next retrieval is answered in process.
+ * <p>
+ * Histories are bounded by {@code maxConversations}, an estimated {@code memoryCap} and a {@code ttl}; the least
+ * recently used go first. Writes and deletes through the chat memory replace or drop a history. A write to the
+ * session from anywhere else is caught by reading its newest event, without payloads, before a history is used for a
+ * new turn; a different event drops the history.
+ * <p>
+ * A history is used without a check only during the {@link #turn(String)} that read or wrote it. When the turn ends
+ * without a {@link #precompute(String)} noting the newest event, because the model failed or nothing was answered,
+ * the next turn reads the session from memory.
+ */
+@Component
+public class NextTurnContexts {
+
+    private static final Logger logger = LoggerFactory.getLogger(NextTurnContexts.class);
+
+    private static final long MESSAGE_OVERHEAD = 96;
+    private static final long ENTRY_OVERHEAD = 160;
+    /** Newest event of a history nobody checked, never an event id; the history is not used for a new turn */
+    private static final String UNVERIFIED = "?";
+
+    private final NextTurnProperties properties;
+    private final MemoryShards shards;
+    private final LocalMemoryIndexes localMemory;
+    private final String defaultSession;
+    private final Map<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private final Map<String, Integer> turns = new HashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter stale;
+    private long bytes;
+
+    public NextTurnContexts(NextTurnProperties properties, MemoryShards shards, LocalMemoryIndexes localMemory,
+                            MeterRegistry meterRegistry,
+                            @Value("${agentcore.memory.default-session:default}") String defaultSession) {
+        this.properties = properties;
+        this.shards = shards;
+        this.localMemory = localMemory;
+        this.defaultSession = defaultSession;
+        this.hits = meterRegistry.counter("agent.next-turn.requests", "result", "hit");
+        this.misses = meterRegistry.counter("agent.next-turn.requests", "result", "miss");
+        this.stale = meterRegistry.counter("agent.next-turn.requests", "result", "stale");
+        meterRegistry.gauge("agent.next-turn.bytes", this, NextTurnContexts::bytes);
+    }
+
+    public boolean enabled() {
+        return properties.enabled();
+    }
+
+    /**
+     * Starts a turn of the conversation. Until it is closed the histories it reads and writes are used without
+     * checking the session.
+     */
+    public Turn turn(String conversationId) {
+        if (!properties.enabled()) {
+            return () -> {
+            };
+        }
+        synchronized (entries) {
+            turns.merge(conversationId, 1, Integer::sum);
+        }
+        return () -> {
+            synchronized (entries) {
+                turns.computeIfPresent(conversationId, (id, count) -> count == 1 ? null : count - 1);
+                Entry entry = entries.get(conversationId);
+                if (entry != null && entry.newestEvent == null && properties.verify()
+                        && !turns.containsKey(conversationId)) {
+                    entry.newestEvent = UNVERIFIED;
+                }
+            }
+        };
+    }
+
+    /**
+     * Prepares the next turn of a conversation that was just answered, in the background.
+     */
+    public void precompute(String conversationId) {
+        if (!properties.enabled()) {
+            return;
+        }
+        Thread.ofVirtual().name("next-turn-precompute").start(() -> {
+            String[] actorAndSession = actorAndSession(conversationId);
+            if (localMemory.enabled()) {
+                localMemory.prefetch(actorAndSession[0]);
+            }
+            Entry entry;
+            synchronized (entries) {
+                entry = entries.get(conversationId);
+            }
+            if (entry == null || !properties.verify()) {
+                return;
+            }
+            try {
+                String newest = newestEvent(actorAndSession[0], actorAndSession[1]);
+                synchronized (entries) {
+                    entry.newestEvent = newest;
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Reading the newest event of {} failed, its next turn reads memory", conversationId, e);
+                remove(conversationId, entry);
+            }
+        });
+    }
+
+    /**
+     * Returns the kept history of the conversation, or empty when it must be read from memory.
+     */
+    Optional<List<Message>> history(String conversationId) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(conversationId);
+        }
+        if (entry == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        if (System.nanoTime() - entry.storedAt > properties.ttl().toNanos()) {
+            remove(conversationId, entry);
+            misses.increment();
+            return Optional.empty();
+        }
+
+        String expected = entry.newestEvent;
+        if (UNVERIFIED.equals(expected)) {
+            remove(conversationId, entry);
+            misses.increment();
+            return Optional.empty();
+        }
+        if (expected != null) {
+            // First read of a new turn, somebody else may have written to the session in between
+            String[] actorAndSession = actorAndSession(conversationId);
+            String newest;
+            try {
+                newest = newestEvent(actorAndSession[0], actorAndSession[1]);
+            } catch (RuntimeException e) {
+                newest = null;
+            }
+            if (!expected.equals(newest)) {
+                logger.debug("Session {} changed since its last answer, reading it again", conversationId);
+                remove(conversationId, entry);
+                stale.increment();
+                return Optional.empty();
+            }
+            entry.newestEvent = null;
+        }
+        hits.increment();
+        return Optional.of(entry.messages);
+    }
+
+    /**
+     * Keeps the history the chat memory just read or wrote. During a running {@link #turn(String)} it is used without
+     * checking the session; after it, only once {@link #precompute(String)} noted the newest event.
+     */
+    void store(String conversationId, List<Message> messages) {
+        if (!properties.enabled()) {
+            return;
+        }
+        Entry entry = new Entry(List.copyOf(messages), System.nanoTime(), estimate(messages));
+        synchronized (entries) {
+            if (properties.verify() && !turns.containsKey(conversationId)) {
+                entry.newestEvent = UNVERIFIED;
+            }
+            Entry previous = entries.put(conversationId, entry);
+            bytes += entry.bytes - (previous == null ? 0 : previous.bytes);
+            Iterator<Entry> eldest = entries.values().iterator();
+            while ((bytes > properties.memoryCap().toBytes() || entries.size() > properties.maxConversations())
+                    && entries.size() > 1) {
+                Entry evicted = eldest.next();
+                bytes -= evicted.bytes;
+                eldest.remove();
+            }
+        }
+    }
+
+    void invalidate(String conversationId) {
+        synchronized (entries) {
+            Entry removed = entries.remove(conversationId);
+            if (removed != null) {
+                bytes -= removed.bytes;
+            }
+        }
+    }
+
+    long bytes() {
+        synchronized (entries) {
+            return bytes;
+        }
+    }
+
+    private void remove(String conversationId, Entry entry) {
+        synchronized (entries) {
+            if (entries.remove(conversationId, entry)) {
+                bytes -= entry.bytes;
+            }
+        }
+    }
+
+    private String newestEvent(String actorId, String sessionId) {
+        MemoryShard shard = shards.forActor(actorId);
+        List<Event> events = shard.asyncClient().listEvents(request -> request
+                        .memoryId(shard.memoryId())
+                        .actorId(actorId)
+                        .sessionId(sessionId)
+                        .includePayloads(false)
+                        .maxResults(1))
+                .join()
+                .events();
+        return events.isEmpty() ? "" : events.getFirst().eventId();
+    }
+
+    private String[] actorAndSession(String conversationId) {
+        int separator = conversationId.indexOf(':');
+        if (separator < 0) {
+            return new String[]{conversationId, defaultSession};
+        }
+        return new String[]{conversationId.substring(0, separator), conversationId.substring(separator + 1)};
+    }
+
+    private static long estimate(List<Message> messages) {
+        long size = ENTRY_OVERHEAD;
+        for (Message message : messages) {
+            String text = message.getText();
+            size += MESSAGE_OVERHEAD + (text == null ? 0 : 2L * text.length());
+        }
+        return size;
+    }
+
+    /**
+     * A running turn of a conversation, closing it ends the turn.
+     */
+    public interface Turn extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+
+    private static final class Entry {
+
+        private final List<Message> messages;
+        private final long storedAt;
+        private final long bytes;
+        private volatile String newestEvent;
+
+        private Entry(List<Message> messages, long storedAt, long bytes) {
+            this.messages = messages;
+            this.storedAt = storedAt;
+            this.bytes = bytes;
+        }
+    }
+}
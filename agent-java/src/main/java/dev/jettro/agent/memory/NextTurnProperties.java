@@ -0,0 +1,25 @@
+package dev.jettro.agent.memory;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Configuration of the context the agent prepares for the next turn of a conversation after answering.
+ *
+ * @param enabled          Keep the history of answered conversations in process and prefetch long-term memory.
+ * @param maxConversations Number of conversations kept; the least recently used one is dropped above it.
+ * @param memoryCap        Estimated size of all kept histories; the least recently used ones are dropped above it.
+ * @param ttl              Age after which a kept history is read from memory again.
+ * @param verify           Check with a single event read that nobody else wrote to the session before a kept
+ *                         history is used for a new turn.
+ */
+@ConfigurationProperties(prefix = "agent.next-turn")
+public record NextTurnProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("1000") int maxConversations,
+        @DefaultValue("16MB") DataSize memoryCap,
+        @DefaultValue("15m") Duration ttl,
+        @DefaultValue("true") boolean verify) {
+}
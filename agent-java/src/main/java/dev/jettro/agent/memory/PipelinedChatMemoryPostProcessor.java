@@ -0,0 +1,67 @@
+package dev.jettro.agent.memory;
+
+import dev.jettro.agent.sharding.MemoryShards;
+import dev.jettro.agent.sharding.ShardedChatMemoryRepository;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
+import org.springframework.stereotype.Component;
+
+/**
+ * Wraps the AgentCore chat memory repository in a {@link PipelinedChatMemoryRepository} when
+ * {@code agent.memory-prefetch.enabled} is set, and that in a {@link PrecomputedChatMemoryRepository} when
+ * {@code agent.next-turn.enabled} is set. The reader and the contexts are looked up lazily, a post processor must not
+ * pull its dependencies into early initialization.
+ * <p>
+ * With {@code agent.memory-shards.memory-ids} the reads always go through the pipelined reader, which reads the shard
+ * of the actor, and a {@link ShardedChatMemoryRepository} writes to that shard instead of the AgentCore repository.
+ */
+@Component
+public class PipelinedChatMemoryPostProcessor implements BeanPostProcessor {
+
+    private final ObjectProvider<PipelinedEventReader> reader;
+    private final ObjectProvider<NextTurnContexts> contexts;
+    private final ObjectProvider<MemoryShards> shards;
+    private final boolean enabled;
+    private final boolean nextTurnEnabled;
+    private final String defaultSession;
+    private final int maxConversations;
+
+    public PipelinedChatMemoryPostProcessor(ObjectProvider<PipelinedEventReader> reader,
+                                            ObjectProvider<NextTurnContexts> contexts,
+                                            ObjectProvider<MemoryShards> shards,
+                                            @Value("${agent.memory-prefetch.enabled:true}") boolean enabled,
+                                            @Value("${agent.next-turn.enabled:false}") boolean nextTurnEnabled,
+                                            @Value("${agentcore.memory.default-session:default}") String defaultSession,
+                                            @Value("${agent.memory-prefetch.max-conversations:10000}")
+                                            int maxConversations) {
+        this.reader = reader;
+        this.contexts = contexts;
+        this.shards = shards;
+        this.enabled = enabled;
+        this.nextTurnEnabled = nextTurnEnabled;
+        this.defaultSession = defaultSession;
+        this.maxConversations = maxConversations;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof ChatMemoryRepository repository) || bean instanceof PipelinedChatMemoryRepository
+                || bean instanceof ShardedChatMemoryRepository || bean instanceof PrecomputedChatMemoryRepository) {
+            return bean;
+        }
+        MemoryShards memoryShards = shards.getObject();
+        if (enabled || memoryShards.sharded()) {
+            repository = new PipelinedChatMemoryRepository(repository, reader.getObject(), defaultSession);
+        }
+        if (memoryShards.sharded()) {
+            repository = new ShardedChatMemoryRepository(repository, memoryShards, defaultSession,
+                    maxConversations);
+        }
+        if (nextTurnEnabled) {
+            repository = new PrecomputedChatMemoryRepository(repository, contexts.getObject());
+        }
+        return repository;
+    }
+}
@@ -0,0 +1,50 @@
+package dev.jettro.agent.memory;
+
+import java.util.List;
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
+import org.springframework.ai.chat.messages.Message;
+
+/**
+ * Chat memory repository that loads history with the {@link PipelinedEventReader} and leaves writes and deletes to
+ * the AgentCore repository it wraps.
+ * <p>
+ * Conversation ids have the form {@code actor:session}, as the {@code ChatController} builds them; an id without a
+ * session uses the default session.
+ */
+public class PipelinedChatMemoryRepository implements ChatMemoryRepository {
+
+    private final ChatMemoryRepository delegate;
+    private final PipelinedEventReader reader;
+    private final String defaultSession;
+
+    public PipelinedChatMemoryRepository(ChatMemoryRepository delegate, PipelinedEventReader reader,
+                                         String defaultSession) {
+        this.delegate = delegate;
+        this.reader = reader;
+        this.defaultSession = defaultSession;
+    }
+
+    @Override
+    public List<String> findConversationIds() {
+        return delegate.findConversationIds();
+    }
+
+    @Override
+    public List<Message> findByConversationId(String conversationId) {
+        int separator = conversationId.indexOf(':');
+        if (separator < 0) {
+            return reader.read(conversationId, defaultSession);
+        }
+        return reader.read(conversationId.substring(0, separator), conversationId.substring(separator + 1));
+    }
+
+    @Override
+    public void saveAll(String conversationId, List<Message> messages) {
+        delegate.saveAll(conversationId, messages);
+    }
+
+    @Override
+    public void deleteByConversationId(String conversationId) {
+        delegate.deleteByConversationId(conversationId);
+    }
+}
@@ -0,0 +1,199 @@
+package dev.jettro.agent.memory;
+
+import dev.jettro.agent.deadline.Deadline;
+import dev.jettro.agent.sharding.MemoryShard;
+import dev.jettro.agent.sharding.MemoryShards;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.bedrockagentcore.model.Conversational;
+import software.amazon.awssdk.services.bedrockagentcore.model.Event;
+import software.amazon.awssdk.services.bedrockagentcore.model.ListEventsResponse;
+import software.amazon.awssdk.services.bedrockagentcore.model.PayloadType;
+
+/**
+ * Reads the short-term memory of a conversation with ListEvents calls whose first page is sized for the conversation.
+ * <p>
+ * The first page is sized on the number of events the conversation had at its previous read, so a known
+ * conversation is usually read in a single round trip while a new one does not pay for a large page. ListEvents only
+ * hands out the token of the next page with the current one, so further pages are read one after the other; a page
+ * is converted while the request for the next one is in flight, which saves little next to the round trips. The
+ * messages of all pages are collected and returned oldest first. Events are read from the memory shard of the actor.
+ * <p>
+ * Events become messages the way the AgentCore repository reads them: user and assistant turns in event order, other
+ * roles skipped when {@code agentcore.memory.ignore-unknown-roles} is set and rejected otherwise. The repository has
+ * no conversion of its own that can be handed a single page. A read waits at most until the {@link Deadline} of the
+ * invocation, and never longer than {@code agent.memory-prefetch.read-timeout}.
+ */
+@Component
+public class PipelinedEventReader {
+
+    private static final Logger logger = LoggerFactory.getLogger(PipelinedEventReader.class);
+
+    private final MemoryShards shards;
+    private final MemoryPrefetchProperties properties;
+    private final int eventsLimit;
+    private final boolean ignoreUnknownRoles;
+    private final Map<String, Integer> eventsPerConversation;
+
+    public PipelinedEventReader(MemoryShards shards, MemoryPrefetchProperties properties,
+                                @Value("${agentcore.memory.total-events-limit:100}") int eventsLimit,
+                                @Value("${agentcore.memory.ignore-unknown-roles:false}") boolean ignoreUnknownRoles) {
+        this.shards = shards;
+        this.properties = properties;
+        this.eventsLimit = eventsLimit;
+        this.ignoreUnknownRoles = ignoreUnknownRoles;
+        this.eventsPerConversation = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+                return size() > properties.maxConversations();
+            }
+        };
+    }
+
+    /**
+     * Returns the messages of a session, oldest first, from at most {@code total-events-limit} events.
+     */
+    public List<Message> read(String actorId, String sessionId) {
+        String conversation = actorId + ":" + sessionId;
+        var page = new PageReader(actorId, sessionId);
+        List<TimedMessage> messages = await(page.fetch(null, firstPageSize(conversation)), conversation);
+
+        synchronized (eventsPerConversation) {
+            eventsPerConversation.put(conversation, page.events);
+        }
+        logger.debug("Read {} events of {} in {} pages", page.events, conversation, page.pages);
+        return messages.stream()
+                .sorted(Comparator.comparing(TimedMessage::timestamp))
+                .map(TimedMessage::message)
+                .toList();
+    }
+
+    /**
+     * Waits for the read until the deadline of the invocation or the read timeout, whichever comes first
+     */
+    private List<TimedMessage> await(CompletableFuture<List<TimedMessage>> read, String conversation) {
+        Duration wait = Deadline.current()
+                .map(Deadline::remaining)
+                .filter(remaining -> remaining.compareTo(properties.readTimeout()) < 0)
+                .orElse(properties.readTimeout());
+        try {
+            return read.get(Math.max(0, wait.toNanos()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            read.cancel(true);
+            throw new IllegalStateException("Events of " + conversation + " not read within " + wait, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Reading the events of " + conversation + " failed", e.getCause());
+        } catch (InterruptedException e) {
+            read.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reading the events of " + conversation, e);
+        }
+    }
+
+    int firstPageSize(String conversation) {
+        Integer known;
+        synchronized (eventsPerConversation) {
+            known = eventsPerConversation.get(conversation);
+        }
+        // Room for the turn that was added since the previous read
+        int wanted = known == null ? properties.minPageSize() : known + 2;
+        return clamp(Math.min(wanted, eventsLimit));
+    }
+
+    private int clamp(int pageSize) {
+        return Math.max(properties.minPageSize(), Math.min(properties.maxPageSize(), pageSize));
+    }
+
+    private record TimedMessage(Instant timestamp, Message message) {
+    }
+
+    /**
+     * The pagination of a single read; each page appends to the messages of the pages after it.
+     */
+    private final class PageReader {
+
+        private final MemoryShard shard;
+        private final String actorId;
+        private final String sessionId;
+        private int events;
+        private int pages;
+
+        PageReader(String actorId, String sessionId) {
+            this.shard = shards.forActor(actorId);
+            this.actorId = actorId;
+            this.sessionId = sessionId;
+        }
+
+        CompletableFuture<List<TimedMessage>> fetch(String nextToken, int pageSize) {
+            return shard.asyncClient().listEvents(request -> request
+                            .memoryId(shard.memoryId())
+                            .actorId(actorId)
+                            .sessionId(sessionId)
+                            .includePayloads(true)
+                            .maxResults(pageSize)
+                            .nextToken(nextToken))
+                    .thenCompose(this::onPage);
+        }
+
+        private CompletableFuture<List<TimedMessage>> onPage(ListEventsResponse response) {
+            pages++;
+            events += response.events().size();
+            int remaining = eventsLimit - events;
+
+            // Ask for the next page before converting this one; later pages are larger, the conversation is long
+            CompletableFuture<List<TimedMessage>> next = response.nextToken() != null && remaining > 0
+                    ? fetch(response.nextToken(), clamp(Math.min(remaining, properties.maxPageSize())))
+                    : CompletableFuture.completedFuture(new ArrayList<>());
+
+            List<TimedMessage> converted = new ArrayList<>();
+            for (Event event : response.events()) {
+                for (PayloadType payload : event.payload()) {
+                    Message message = toMessage(payload.conversational());
+                    if (message != null) {
+                        converted.add(new TimedMessage(event.eventTimestamp(), message));
+                    }
+                }
+            }
+            return next.thenApply(later -> {
+                later.addAll(converted);
+                return later;
+            });
+        }
+    }
+
+    private Message toMessage(Conversational conversational) {
+        if (conversational == null || conversational.content() == null || conversational.role() == null) {
+            return null;
+        }
+        String text = conversational.content().text();
+        return switch (conversational.role()) {
+            case USER -> new UserMessage(text);
+            case ASSISTANT -> new AssistantMessage(text);
+            default -> {
+                if (!ignoreUnknownRoles) {
+                    throw new IllegalStateException("Unknown role in short-term memory: " + conversational.role());
+                }
+                yield null;
+            }
+        };
+    }
+}
@@ -0,0 +1,53 @@
+package dev.jettro.agent.memory;
+
+import java.util.List;
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
+import org.springframework.ai.chat.messages.Message;
+
+/**
+ * Chat memory repository that answers reads from the history {@link NextTurnContexts} kept for the conversation, and
+ * keeps what the chat memory writes as the history of the next read. A turn reads and writes its conversation more
+ * than once, only the first read of a turn goes to the repository it wraps, and only when nothing is kept.
+ */
+public class PrecomputedChatMemoryRepository implements ChatMemoryRepository {
+
+    private final ChatMemoryRepository delegate;
+    private final NextTurnContexts contexts;
+
+    public PrecomputedChatMemoryRepository(ChatMemoryRepository delegate, NextTurnContexts contexts) {
+        this.delegate = delegate;
+        this.contexts = contexts;
+    }
+
+    @Override
+    public List<String> findConversationIds() {
+        return delegate.findConversationIds();
+    }
+
+    @Override
+    public List<Message> findByConversationId(String conversationId) {
+        return contexts.history(conversationId).orElseGet(() -> {
+            List<Message> messages = delegate.findByConversationId(conversationId);
+            contexts.store(conversationId, messages);
+            return messages;
+        });
+    }
+
+    @Override
+    public void saveAll(String conversationId, List<Message> messages) {
+        try {
+            delegate.saveAll(conversationId, messages);
+        } catch (RuntimeException e) {
+            // Unknown what was stored, the next read goes to memory
+            contexts.invalidate(conversationId);
+            throw e;
+        }
+        contexts.store(conversationId, messages);
+    }
+
+    @Override
+    public void deleteByConversationId(String conversationId) {
+        contexts.invalidate(conversationId);
+        delegate.deleteByConversationId(conversationId);
+    }
+}
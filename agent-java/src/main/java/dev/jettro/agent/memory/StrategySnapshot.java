@@ -0,0 +1,107 @@
+package dev.jettro.agent.memory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import org.springframework.core.io.ClassPathResource;
+import software.amazon.awssdk.services.bedrockagentcorecontrol.model.Memory;
+
+/**
+ * The long-term memory strategies of a memory resource, as discovered through the control plane. Stored as JSON, so
+ * the next start can configure the memory advisors without calling {@code GetMemory} first.
+ *
+ * @param memoryId   Memory the strategies belong to, a snapshot of another memory is ignored
+ * @param capturedAt When the strategies were read from the control plane
+ * @param strategies The strategies of the memory
+ */
+public record StrategySnapshot(String memoryId, Instant capturedAt, List<Strategy> strategies) {
+
+    static final String CLASSPATH_SNAPSHOT = "memory-strategies.json";
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper().findAndRegisterModules();
+
+    public StrategySnapshot {
+        strategies = strategies == null ? List.of() : List.copyOf(strategies);
+    }
+
+    /**
+     * @param type       Strategy type as reported by the control plane, e.g. SEMANTIC or USER_PREFERENCE
+     * @param strategyId Id used in the memory record namespaces
+     * @param name       Name of the strategy
+     * @param namespaces Namespace templates the strategy writes to
+     */
+    public record Strategy(String type, String strategyId, String name, List<String> namespaces) {
+
+        /**
+         * Whether the namespace template holds records of the actor as a whole, rather than of one of its sessions
+         */
+        public static boolean actorLevel(String namespaceTemplate) {
+            return !namespaceTemplate.contains("{sessionId}");
+        }
+
+        /**
+         * The part of the property name for this strategy type, for instance {@code user-preference}
+         */
+        public String propertyName() {
+            return switch (type) {
+                case "SUMMARIZATION" -> "summary";
+                default -> type.toLowerCase(Locale.ROOT).replace('_', '-');
+            };
+        }
+    }
+
+    public static StrategySnapshot of(Memory memory) {
+        List<Strategy> strategies = memory.strategies().stream()
+                .map(strategy -> new Strategy(strategy.typeAsString(), strategy.strategyId(), strategy.name(),
+                        strategy.namespaces()))
+                .toList();
+        return new StrategySnapshot(memory.id(), Instant.now(), strategies);
+    }
+
+    /**
+     * Whether both snapshots describe the same strategies, ignoring when they were captured
+     */
+    public boolean sameStrategiesAs(StrategySnapshot other) {
+        return other != null && memoryId.equals(other.memoryId) && strategies.equals(other.strategies);
+    }
+
+    public static StrategySnapshot read(InputStream json) throws IOException {
+        return OBJECT_MAPPER.readValue(json, StrategySnapshot.class);
+    }
+
+    /**
+     * Reads the snapshot at the path, written by an earlier run, or else {@code memory-strategies.json} on the
+     * classpath, baked into the image; null without either
+     */
+    public static StrategySnapshot load(String path) throws IOException {
+        if (path != null && !path.isBlank() && Files.isReadable(Path.of(path))) {
+            try (InputStream json = Files.newInputStream(Path.of(path))) {
+                return read(json);
+            }
+        }
+        ClassPathResource resource = new ClassPathResource(CLASSPATH_SNAPSHOT);
+        if (resource.exists()) {
+            try (InputStream json = resource.getInputStream()) {
+                return read(json);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Writes the snapshot through a temporary file, so a reader never sees half a snapshot
+     */
+    public void write(Path file) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, "memory-strategies", ".tmp");
+        OBJECT_MAPPER.writerWithDefaultPrettyPrinter().writeValue(temp.toFile(), this);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,114 @@
+package dev.jettro.agent.memory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import org.apache.commons.logging.Log;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.config.ConfigDataEnvironmentPostProcessor;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.boot.logging.DeferredLogFactory;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+/**
+ * Configures the long-term memory strategies from a {@link StrategySnapshot} instead of discovering them at startup.
+ * <p>
+ * The snapshot is read from {@code agent.memory-snapshot.path}, written by the {@link StrategySnapshotRefresher} of an
+ * earlier run, or from {@code memory-strategies.json} on the classpath, baked into the image at build time. When one
+ * matches the configured memory id, auto-discovery is switched off and the strategy ids are set as properties, so
+ * the memory advisors are created without a call to the control plane. Without a usable snapshot nothing changes.
+ * <p>
+ * The property names are checked against the configuration metadata the memory starter ships. When the starter does
+ * not declare one of them, for instance after an upgrade renamed it, auto-discovery stays on: a strategy id that is
+ * not bound would otherwise leave its advisor out without a word.
+ */
+public class StrategySnapshotEnvironmentPostProcessor implements EnvironmentPostProcessor, Ordered {
+
+    static final String PROPERTY_SOURCE_NAME = "memoryStrategySnapshot";
+    static final String CONFIGURATION_METADATA = "classpath*:META-INF/spring-configuration-metadata.json";
+
+    private final Log logger;
+
+    public StrategySnapshotEnvironmentPostProcessor(DeferredLogFactory logFactory) {
+        this.logger = logFactory.getLog(StrategySnapshotEnvironmentPostProcessor.class);
+    }
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        if (!environment.getProperty("agent.memory-snapshot.enabled", Boolean.class, true)
+                || !environment.getProperty("agentcore.memory.long-term.auto-discovery", Boolean.class, false)) {
+            return;
+        }
+        String memoryId = environment.getProperty("agentcore.memory.memory-id");
+        StrategySnapshot snapshot = load(environment.getProperty("agent.memory-snapshot.path"));
+        if (snapshot == null) {
+            return;
+        }
+        if (!snapshot.memoryId().equals(memoryId)) {
+            logger.info("Memory strategy snapshot is for memory " + snapshot.memoryId() + ", not " + memoryId
+                    + ", discovering strategies instead");
+            return;
+        }
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("agentcore.memory.long-term.auto-discovery", false);
+        for (StrategySnapshot.Strategy strategy : snapshot.strategies()) {
+            properties.put("agentcore.memory.long-term." + strategy.propertyName() + ".strategy-id",
+                    strategy.strategyId());
+        }
+        Set<String> declared = declaredProperties();
+        Set<String> unknown = new HashSet<>(properties.keySet());
+        unknown.removeAll(declared);
+        if (!unknown.isEmpty()) {
+            logger.warn("The memory starter does not declare " + unknown + ", discovering strategies instead");
+            return;
+        }
+        environment.getPropertySources().addFirst(new MapPropertySource(PROPERTY_SOURCE_NAME, properties));
+        logger.info("Using memory strategy snapshot of " + snapshot.capturedAt() + " with "
+                + snapshot.strategies().size() + " strategies");
+    }
+
+    @Override
+    public int getOrder() {
+        // After application.properties has been loaded
+        return ConfigDataEnvironmentPostProcessor.ORDER + 1;
+    }
+
+    /**
+     * All property names declared in the configuration metadata on the classpath
+     */
+    private Set<String> declaredProperties() {
+        Set<String> names = new HashSet<>();
+        ObjectMapper objectMapper = new ObjectMapper();
+        try {
+            for (Resource resource : new PathMatchingResourcePatternResolver().getResources(CONFIGURATION_METADATA)) {
+                try (InputStream json = resource.getInputStream()) {
+                    for (JsonNode property : objectMapper.readTree(json).path("properties")) {
+                        names.add(property.path("name").asText());
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Cannot read the configuration metadata", e);
+        }
+        return names;
+    }
+
+    private StrategySnapshot load(String path) {
+        try {
+            return StrategySnapshot.load(path);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Cannot read memory strategy snapshot, discovering strategies instead", e);
+            return null;
+        }
+    }
+}
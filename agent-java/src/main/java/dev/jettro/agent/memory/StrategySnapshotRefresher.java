@@ -0,0 +1,75 @@
+package dev.jettro.agent.memory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Objects;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.bedrockagentcorecontrol.BedrockAgentCoreControlClient;
+
+/**
+ * Reads the memory strategies from the control plane once the agent is serving, and stores them as a
+ * {@link StrategySnapshot} for the next start. The running agent keeps the strategies it started with: when the
+ * snapshot it started from turns out to be stale, only a warning asks for a restart, as the memory advisors are not
+ * rebuilt while running.
+ */
+@Component
+public class StrategySnapshotRefresher {
+
+    private static final Logger logger = LoggerFactory.getLogger(StrategySnapshotRefresher.class);
+
+    private final BedrockAgentCoreControlClient controlClient;
+    private final ConfigurableEnvironment environment;
+    private final boolean enabled;
+    private final String memoryId;
+    private final String path;
+
+    public StrategySnapshotRefresher(BedrockAgentCoreControlClient controlClient, ConfigurableEnvironment environment,
+                                     @Value("${agent.memory-snapshot.enabled:true}") boolean enabled,
+                                     @Value("${agentcore.memory.memory-id}") String memoryId,
+                                     @Value("${agent.memory-snapshot.path:}") String path) {
+        this.controlClient = controlClient;
+        this.environment = environment;
+        this.enabled = enabled;
+        this.memoryId = memoryId;
+        this.path = path;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void revalidateInBackground() {
+        if (enabled) {
+            Thread.ofVirtual().name("memory-snapshot-refresh").start(this::revalidate);
+        }
+    }
+
+    void revalidate() {
+        try {
+            StrategySnapshot current = StrategySnapshot.of(
+                    controlClient.getMemory(request -> request.memoryId(memoryId)).memory());
+
+            boolean startedFromSnapshot = environment.getPropertySources()
+                    .contains(StrategySnapshotEnvironmentPostProcessor.PROPERTY_SOURCE_NAME);
+            if (startedFromSnapshot && !matchesEnvironment(current)) {
+                logger.warn("Memory strategies changed since the snapshot this agent started with, restart to use "
+                        + "the new strategies");
+            }
+
+            if (!path.isBlank()) {
+                current.write(Path.of(path));
+                logger.info("Stored snapshot of {} memory strategies in {}", current.strategies().size(), path);
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Revalidating the memory strategy snapshot failed", e);
+        }
+    }
+
+    private boolean matchesEnvironment(StrategySnapshot snapshot) {
+        return snapshot.strategies().stream().allMatch(strategy -> Objects.equals(strategy.strategyId(),
+                environment.getProperty("agentcore.memory.long-term." + strategy.propertyName() + ".strategy-id")));
+    }
+}
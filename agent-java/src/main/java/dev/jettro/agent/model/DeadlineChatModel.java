@@ -0,0 +1,68 @@
+package dev.jettro.agent.model;
+
+import dev.jettro.agent.deadline.Deadline;
+import dev.jettro.agent.deadline.DeadlineExceededException;
+import dev.jettro.agent.deadline.DeadlineProperties;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.MessageAggregator;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+
+/**
+ * Stops model calls at the {@link Deadline} of the invocation.
+ * <p>
+ * With a deadline, a call runs as a stream with a timeout of the remaining budget. Cancelling the stream aborts the
+ * HTTP request to Bedrock, including the tool calls the model makes in between, instead of letting the synchronous
+ * client wait for its own timeout. Calls without a deadline go to the delegate unchanged.
+ */
+public class DeadlineChatModel implements ChatModel {
+
+    private final ChatModel delegate;
+    private final DeadlineProperties properties;
+
+    public DeadlineChatModel(ChatModel delegate, DeadlineProperties properties) {
+        this.delegate = delegate;
+        this.properties = properties;
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        Optional<Deadline> deadline = Deadline.current();
+        if (deadline.isEmpty()) {
+            return delegate.call(prompt);
+        }
+        AtomicReference<ChatResponse> aggregated = new AtomicReference<>();
+        new MessageAggregator().aggregate(withDeadline(delegate.stream(prompt), deadline.get()), aggregated::set)
+                .blockLast();
+        return aggregated.get();
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        // Read on the calling thread, the stream itself may be subscribed on another one
+        Optional<Deadline> deadline = Deadline.current();
+        return deadline.map(value -> withDeadline(delegate.stream(prompt), value)).orElseGet(() -> delegate.stream(prompt));
+    }
+
+    @Override
+    public ChatOptions getDefaultOptions() {
+        return delegate.getDefaultOptions();
+    }
+
+    private Flux<ChatResponse> withDeadline(Flux<ChatResponse> responses, Deadline deadline) {
+        Duration remaining = deadline.remaining();
+        if (remaining.compareTo(properties.minModelBudget()) < 0) {
+            return Flux.error(new DeadlineExceededException("Not enough time left to call the model"));
+        }
+        return responses
+                .timeout(remaining)
+                .onErrorMap(TimeoutException.class,
+                        e -> new DeadlineExceededException("Deadline " + deadline + " passed while calling the model"));
+    }
+}
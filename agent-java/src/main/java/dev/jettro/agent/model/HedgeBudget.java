@@ -0,0 +1,31 @@
+package dev.jettro.agent.model;
+
+/**
+ * Limits hedged requests to a fraction of primary requests. Every primary request earns {@code ratio} of a hedge,
+ * every hedge spends one. Savings are capped at {@code burst}, so a quiet period cannot be spent all at once during an
+ * incident.
+ */
+class HedgeBudget {
+
+    private final double ratio;
+    private final double burst;
+    private double balance;
+
+    HedgeBudget(double ratio, int burst) {
+        this.ratio = ratio;
+        this.burst = burst;
+        this.balance = burst;
+    }
+
+    synchronized void onRequest() {
+        balance = Math.min(burst, balance + ratio);
+    }
+
+    synchronized boolean tryHedge() {
+        if (balance >= 1) {
+            balance -= 1;
+            return true;
+        }
+        return false;
+    }
+}
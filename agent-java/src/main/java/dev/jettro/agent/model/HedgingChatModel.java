@@ -0,0 +1,152 @@
+package dev.jettro.agent.model;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.MessageAggregator;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.model.tool.ToolCallingChatOptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Sends a second request to an alternate region when the first token of a Converse call is late.
+ * <p>
+ * The hedge delay is a percentile of recent first-token latencies of the primary model. Whichever request produces
+ * the first token wins; the other one is cancelled. An error does not win: a primary that fails before its first token
+ * starts the hedge right away, and its error is only returned when the hedge fails too or is not sent. Hedges are
+ * limited by a {@link HedgeBudget}, so during an incident where every call is slow the extra load stays a small
+ * fraction of the normal load.
+ * <p>
+ * A primary that is cancelled before its first token is recorded with the time it took until then, a lower bound of
+ * its latency, so hedges that win do not pull the delay down.
+ */
+public class HedgingChatModel implements ChatModel {
+
+    private static final Logger logger = LoggerFactory.getLogger(HedgingChatModel.class);
+
+    private final ChatModel primary;
+    private final ChatModel alternate;
+    private final HedgingProperties properties;
+    private final LatencyPercentiles firstTokenLatencies;
+    private final HedgeBudget budget;
+    private final Counter hedgesStarted;
+    private final Counter hedgesWon;
+    private final Counter hedgesDenied;
+
+    public HedgingChatModel(ChatModel primary, ChatModel alternate, HedgingProperties properties,
+                            MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.alternate = alternate;
+        this.properties = properties;
+        this.firstTokenLatencies = new LatencyPercentiles(properties.sampleSize());
+        this.budget = new HedgeBudget(properties.budgetRatio(), properties.budgetBurst());
+        this.hedgesStarted = meterRegistry.counter("agent.model.hedges", "outcome", "started");
+        this.hedgesWon = meterRegistry.counter("agent.model.hedges", "outcome", "won");
+        this.hedgesDenied = meterRegistry.counter("agent.model.hedges", "outcome", "denied");
+        meterRegistry.gauge("agent.model.hedge.delay", this, model -> model.hedgeDelay().toMillis());
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        AtomicReference<ChatResponse> aggregated = new AtomicReference<>();
+        new MessageAggregator().aggregate(stream(prompt), aggregated::set).blockLast();
+        return aggregated.get();
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        budget.onRequest();
+        Duration delay = hedgeDelay();
+        AtomicBoolean hedgeWon = new AtomicBoolean();
+        AtomicReference<Throwable> primaryError = new AtomicReference<>();
+        Sinks.One<Long> primaryFailed = Sinks.one();
+
+        Flux<ChatResponse> primaryResponses = Flux.defer(() -> {
+            long start = System.nanoTime();
+            AtomicBoolean firstToken = new AtomicBoolean(true);
+            return primary.stream(prompt)
+                    .doOnNext(response -> {
+                        if (firstToken.getAndSet(false)) {
+                            firstTokenLatencies.record(Duration.ofNanos(System.nanoTime() - start));
+                        }
+                    })
+                    .doOnCancel(() -> {
+                        if (firstToken.getAndSet(false)) {
+                            firstTokenLatencies.record(Duration.ofNanos(System.nanoTime() - start));
+                        }
+                    })
+                    .doOnError(e -> {
+                        primaryError.compareAndSet(null, e);
+                        primaryFailed.tryEmitValue(0L);
+                    });
+        });
+
+        // Starts after the hedge delay, or right away when the primary fails before its first token
+        Mono<Long> trigger = Mono.firstWithSignal(Mono.delay(delay), primaryFailed.asMono());
+        Flux<ChatResponse> hedgedResponses = trigger.flatMapMany(tick -> {
+            if (!budget.tryHedge()) {
+                hedgesDenied.increment();
+                return Flux.empty();
+            }
+            hedgesStarted.increment();
+            logger.debug("No first token after {} ms, hedging to {}", delay.toMillis(), properties.alternateRegion());
+            AtomicBoolean firstToken = new AtomicBoolean(true);
+            return alternate.stream(alternatePrompt(prompt)).doOnNext(response -> {
+                if (firstToken.getAndSet(false)) {
+                    hedgeWon.set(true);
+                    hedgesWon.increment();
+                }
+            });
+        });
+
+        // The first source to produce a token wins, the other one is cancelled
+        return Flux.firstWithValue(primaryResponses, hedgedResponses)
+                .onErrorMap(e -> primaryError.get() != null ? primaryError.get() : e)
+                .doOnComplete(() -> {
+                    if (hedgeWon.get()) {
+                        logger.debug("Hedged request to {} won", properties.alternateRegion());
+                    }
+                });
+    }
+
+    @Override
+    public ChatOptions getDefaultOptions() {
+        return primary.getDefaultOptions();
+    }
+
+    Duration hedgeDelay() {
+        Duration delay = firstTokenLatencies.percentile(properties.percentile(), properties.initialDelay());
+        if (delay.compareTo(properties.minDelay()) < 0) {
+            return properties.minDelay();
+        }
+        return delay.compareTo(properties.maxDelay()) > 0 ? properties.maxDelay() : delay;
+    }
+
+    private Prompt alternatePrompt(Prompt prompt) {
+        if (!(prompt.getOptions() instanceof ToolCallingChatOptions options)
+                || !properties.modelMapping().containsKey(options.getModel())) {
+            return prompt;
+        }
+        ToolCallingChatOptions alternateOptions = ToolCallingChatOptions.builder()
+                .model(properties.modelMapping().get(options.getModel()))
+                .maxTokens(options.getMaxTokens())
+                .temperature(options.getTemperature())
+                .topP(options.getTopP())
+                .stopSequences(options.getStopSequences())
+                .toolCallbacks(options.getToolCallbacks())
+                .toolNames(options.getToolNames())
+                .toolContext(options.getToolContext())
+                .internalToolExecutionEnabled(options.getInternalToolExecutionEnabled())
+                .build();
+        return new Prompt(prompt.getInstructions(), alternateOptions);
+    }
+}
@@ -0,0 +1,39 @@
+package dev.jettro.agent.model;
+
+import java.time.Duration;
+import java.util.Map;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuration of hedged Converse calls.
+ *
+ * @param enabled         Send a second request when the first token is late.
+ * @param alternateRegion Region that receives the hedged request.
+ * @param modelMapping    Optional model id or inference profile to use in the alternate region, keyed on the primary
+ *                        model id. Models without an entry are sent as-is.
+ * @param percentile      Percentile of recent first-token latencies used as the hedge delay.
+ * @param initialDelay    Hedge delay used until enough samples are collected.
+ * @param minDelay        Lower bound of the hedge delay.
+ * @param maxDelay        Upper bound of the hedge delay.
+ * @param sampleSize      Number of recent first-token latencies to keep.
+ * @param budgetRatio     Hedges allowed per primary request, 0.1 means at most 10% extra load.
+ * @param budgetBurst     Number of hedges that can be saved up when traffic is quiet.
+ */
+@ConfigurationProperties(prefix = "agent.hedging")
+public record HedgingProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("eu-central-1") String alternateRegion,
+        Map<String, String> modelMapping,
+        @DefaultValue("0.95") double percentile,
+        @DefaultValue("3s") Duration initialDelay,
+        @DefaultValue("300ms") Duration minDelay,
+        @DefaultValue("10s") Duration maxDelay,
+        @DefaultValue("200") int sampleSize,
+        @DefaultValue("0.1") double budgetRatio,
+        @DefaultValue("5") int budgetBurst) {
+
+    public HedgingProperties {
+        modelMapping = modelMapping == null ? Map.of() : Map.copyOf(modelMapping);
+    }
+}
@@ -0,0 +1,37 @@
+package dev.jettro.agent.model;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Keeps the most recent latency samples in a ring buffer and answers percentile queries over them.
+ */
+class LatencyPercentiles {
+
+    private final long[] samples;
+    private int next;
+    private int count;
+
+    LatencyPercentiles(int size) {
+        this.samples = new long[Math.max(1, size)];
+    }
+
+    synchronized void record(Duration latency) {
+        samples[next] = latency.toNanos();
+        next = (next + 1) % samples.length;
+        count = Math.min(count + 1, samples.length);
+    }
+
+    /**
+     * @return the percentile, or {@code fallback} when fewer than 20 samples were recorded
+     */
+    synchronized Duration percentile(double percentile, Duration fallback) {
+        if (count < 20) {
+            return fallback;
+        }
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int index = (int) Math.min(count - 1, Math.ceil(percentile * count) - 1);
+        return Duration.ofNanos(sorted[Math.max(0, index)]);
+    }
+}
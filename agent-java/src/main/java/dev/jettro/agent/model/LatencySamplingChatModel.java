@@ -0,0 +1,67 @@
+package dev.jettro.agent.model;
+
+import dev.jettro.agent.scheduling.AdaptiveConcurrencyLimit;
+import java.time.Duration;
+import java.util.function.IntSupplier;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+import software.amazon.awssdk.services.bedrockruntime.model.ThrottlingException;
+
+/**
+ * Feeds the round-trip time of every model call into the {@link AdaptiveConcurrencyLimit}. Sits directly around the
+ * Bedrock model, so the samples are not distorted by hedging or by waiting for a bulkhead slot.
+ */
+public class LatencySamplingChatModel implements ChatModel {
+
+    private final ChatModel delegate;
+    private final AdaptiveConcurrencyLimit concurrencyLimit;
+    private final IntSupplier inFlight;
+
+    public LatencySamplingChatModel(ChatModel delegate, AdaptiveConcurrencyLimit concurrencyLimit,
+                                    IntSupplier inFlight) {
+        this.delegate = delegate;
+        this.concurrencyLimit = concurrencyLimit;
+        this.inFlight = inFlight;
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        long start = System.nanoTime();
+        try {
+            ChatResponse response = delegate.call(prompt);
+            concurrencyLimit.onSample(Duration.ofNanos(System.nanoTime() - start), inFlight.getAsInt());
+            return response;
+        } catch (RuntimeException e) {
+            onError(e);
+            throw e;
+        }
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        return Flux.defer(() -> {
+            long start = System.nanoTime();
+            return delegate.stream(prompt)
+                    .doOnComplete(() -> concurrencyLimit.onSample(Duration.ofNanos(System.nanoTime() - start),
+                            inFlight.getAsInt()))
+                    .doOnError(this::onError);
+        });
+    }
+
+    @Override
+    public ChatOptions getDefaultOptions() {
+        return delegate.getDefaultOptions();
+    }
+
+    private void onError(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ThrottlingException) {
+                concurrencyLimit.onDrop();
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package dev.jettro.agent.model;
+
+import dev.jettro.agent.bedrock.BedrockClientConfiguration;
+import dev.jettro.agent.deadline.DeadlineProperties;
+import dev.jettro.agent.resilience.DependencyGuards;
+import dev.jettro.agent.scheduling.AdaptiveConcurrencyLimit;
+import dev.jettro.agent.scheduling.FairScheduler;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.function.IntSupplier;
+import org.springframework.ai.bedrock.converse.BedrockProxyChatModel;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.model.tool.ToolCallingManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+
+/**
+ * Builds the chat model used by the agent: the auto-configured Bedrock converse model wrapped in the decorators that
+ * are enabled. The result is the primary {@link ChatModel}, so the auto-configured {@code ChatClient.Builder} uses it.
+ */
+@Configuration
+public class ModelConfiguration {
+
+    @Bean
+    @Primary
+    ChatModel agentChatModel(BedrockProxyChatModel bedrockProxyChatModel, HedgingProperties hedgingProperties,
+                             BedrockClientConfiguration bedrockClients, AwsCredentialsProvider credentialsProvider,
+                             ToolCallingManager toolCallingManager, DependencyGuards dependencyGuards,
+                             AdaptiveConcurrencyLimit concurrencyLimit, FairScheduler scheduler,
+                             DeadlineProperties deadlineProperties, MeterRegistry meterRegistry) {
+        ChatModel alternate = null;
+        if (hedgingProperties.enabled()) {
+            Region region = Region.of(hedgingProperties.alternateRegion());
+            alternate = BedrockProxyChatModel.builder()
+                    .credentialsProvider(credentialsProvider)
+                    .region(region)
+                    .bedrockRuntimeClient(bedrockClients.runtimeClient(region))
+                    .bedrockRuntimeAsyncClient(bedrockClients.runtimeAsyncClient(region))
+                    .toolCallingManager(toolCallingManager)
+                    .build();
+        }
+        return decorate(bedrockProxyChatModel, alternate, hedgingProperties, dependencyGuards, concurrencyLimit,
+                scheduler::inFlight, deadlineProperties, meterRegistry);
+    }
+
+    /**
+     * Wraps the model in the decorators that are enabled. The warm-up builds the same chain around a stub model, with
+     * guards, limit and registry of its own so it leaves the state of real invocations alone.
+     *
+     * @param alternate Model of the alternate region, only used when hedging is enabled
+     */
+    public static ChatModel decorate(ChatModel chatModel, ChatModel alternate, HedgingProperties hedgingProperties,
+                                     DependencyGuards dependencyGuards, AdaptiveConcurrencyLimit concurrencyLimit,
+                                     IntSupplier inFlight, DeadlineProperties deadlineProperties,
+                                     MeterRegistry meterRegistry) {
+        if (concurrencyLimit.enabled()) {
+            chatModel = new LatencySamplingChatModel(chatModel, concurrencyLimit, inFlight);
+        }
+
+        if (hedgingProperties.enabled()) {
+            chatModel = new HedgingChatModel(chatModel, alternate, hedgingProperties, meterRegistry);
+        }
+
+        // Around the hedge, so a hedged call counts as one call against the model breaker and bulkhead
+        chatModel = new ResilientChatModel(chatModel, dependencyGuards);
+
+        if (deadlineProperties.enabled()) {
+            // Around everything, so an abandoned invocation also releases its bulkhead slot and hedge
+            chatModel = new DeadlineChatModel(chatModel, deadlineProperties);
+        }
+
+        return chatModel;
+    }
+}
@@ -0,0 +1,76 @@
+package dev.jettro.agent.model;
+
+import dev.jettro.agent.resilience.DependencyGuards;
+import dev.jettro.agent.resilience.DependencyUnavailableException;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import java.util.concurrent.TimeUnit;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+
+/**
+ * Runs model calls behind the model circuit breaker and bulkhead. There is no useful answer without the model, so
+ * when it is down or saturated calls fail fast with a {@link DependencyUnavailableException} instead of waiting for
+ * the Bedrock timeout.
+ */
+public class ResilientChatModel implements ChatModel {
+
+    private final ChatModel delegate;
+    private final DependencyGuards guards;
+
+    public ResilientChatModel(ChatModel delegate, DependencyGuards guards) {
+        this.delegate = delegate;
+        this.guards = guards;
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        CircuitBreaker breaker = guards.circuitBreaker(DependencyGuards.MODEL);
+        Bulkhead bulkhead = acquire(breaker);
+        long start = System.nanoTime();
+        try {
+            ChatResponse response = delegate.call(prompt);
+            breaker.onSuccess(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return response;
+        } catch (RuntimeException e) {
+            breaker.onError(System.nanoTime() - start, TimeUnit.NANOSECONDS, e);
+            throw e;
+        } finally {
+            bulkhead.onComplete();
+        }
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        return Flux.defer(() -> {
+            CircuitBreaker breaker = guards.circuitBreaker(DependencyGuards.MODEL);
+            Bulkhead bulkhead = acquire(breaker);
+            long start = System.nanoTime();
+            return delegate.stream(prompt)
+                    .doOnComplete(() -> breaker.onSuccess(System.nanoTime() - start, TimeUnit.NANOSECONDS))
+                    .doOnError(e -> breaker.onError(System.nanoTime() - start, TimeUnit.NANOSECONDS, e))
+                    .doOnCancel(breaker::releasePermission)
+                    .doFinally(signal -> bulkhead.onComplete());
+        });
+    }
+
+    @Override
+    public ChatOptions getDefaultOptions() {
+        return delegate.getDefaultOptions();
+    }
+
+    private Bulkhead acquire(CircuitBreaker breaker) {
+        if (!breaker.tryAcquirePermission()) {
+            throw new DependencyUnavailableException(DependencyGuards.MODEL, guards.retryAfter(DependencyGuards.MODEL));
+        }
+        Bulkhead bulkhead = guards.bulkhead(DependencyGuards.MODEL);
+        if (!bulkhead.tryAcquirePermission()) {
+            breaker.releasePermission();
+            throw new DependencyUnavailableException(DependencyGuards.MODEL, guards.retryAfter(DependencyGuards.MODEL));
+        }
+        return bulkhead;
+    }
+}
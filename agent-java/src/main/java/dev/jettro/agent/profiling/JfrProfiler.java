@@ -0,0 +1,264 @@
+package dev.jettro.agent.profiling;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * JFR recordings of the agent JVM.
+ * <p>
+ * A continuous recording keeps the last {@code continuousMaxAge} of events in the JFR repository. When an invocation
+ * is slower than the {@code slo}, the {@link SlowInvocationFilter} reports it and the continuous recording is written
+ * to the directory, at most once per {@code sloCooldown}; the slow invocation is in it. Recordings with more detail
+ * are started and stopped through the {@link ProfilingEndpoint}, one at a time.
+ * <p>
+ * The directory holds at most {@code maxDumps} recordings and {@code maxDirectorySize} bytes, the oldest recordings
+ * are deleted after every dump.
+ */
+@Component
+public class JfrProfiler implements ApplicationRunner, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(JfrProfiler.class);
+
+    private static final Pattern DUMP_NAME = Pattern.compile("[a-z]+-\\d{8}T\\d{6}Z\\.jfr");
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'")
+            .withZone(ZoneOffset.UTC);
+
+    private final ProfilingProperties properties;
+    private final Counter sloDumps;
+    private final AtomicLong lastSloDump = new AtomicLong();
+    private volatile Recording continuous;
+    private Recording onDemand;
+
+    public JfrProfiler(ProfilingProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.sloDumps = meterRegistry.counter("agent.profiling.slo-dumps");
+    }
+
+    /**
+     * A recording in the directory.
+     */
+    public record Dump(String name, long bytes, Instant created) {
+    }
+
+    /**
+     * @param continuous    Whether the continuous recording is running
+     * @param onDemandSince Start of the recording started through the actuator, null when none is running
+     * @param dumps         Recordings in the directory, newest first
+     */
+    public record Status(boolean continuous, Instant onDemandSince, List<Dump> dumps) {
+    }
+
+    @Override
+    public synchronized void run(ApplicationArguments args) {
+        if (!properties.enabled()) {
+            return;
+        }
+        try {
+            Files.createDirectories(properties.directory());
+            continuous = new Recording(Configuration.getConfiguration(properties.continuousSettings()));
+            continuous.setName("agent-continuous");
+            continuous.setToDisk(true);
+            continuous.setMaxAge(properties.continuousMaxAge());
+            continuous.setMaxSize(properties.continuousMaxSize().toBytes());
+            continuous.start();
+            logger.info("Continuous JFR recording of the last {} started, slow invocations above {} are written to {}",
+                    properties.continuousMaxAge(), properties.slo(), properties.directory());
+        } catch (IOException | ParseException e) {
+            logger.warn("Starting the continuous JFR recording failed, slow invocations are not recorded", e);
+        }
+    }
+
+    public synchronized Status status() {
+        return new Status(continuous != null, onDemand == null ? null : onDemand.getStartTime(), dumps());
+    }
+
+    /**
+     * Starts a recording with the on-demand settings, it is written to the directory when stopped or after the
+     * duration, whichever comes first.
+     *
+     * @throws IllegalStateException when profiling is disabled or a recording is already running
+     */
+    public synchronized Status start(Duration duration) {
+        if (!properties.enabled()) {
+            throw new IllegalStateException("Profiling is disabled");
+        }
+        if (onDemand != null) {
+            throw new IllegalStateException("A recording is already running since " + onDemand.getStartTime());
+        }
+        Duration limited = duration.compareTo(properties.maxDuration()) > 0 ? properties.maxDuration() : duration;
+        try {
+            Recording recording = new Recording(Configuration.getConfiguration(properties.onDemandSettings()));
+            recording.setName("agent-on-demand");
+            recording.setToDisk(true);
+            recording.start();
+            onDemand = recording;
+        } catch (IOException | ParseException e) {
+            throw new IllegalStateException("Starting a JFR recording failed", e);
+        }
+        Recording started = onDemand;
+        Thread.ofVirtual().name("jfr-on-demand").start(() -> {
+            try {
+                Thread.sleep(limited);
+                stop(started);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        logger.info("On-demand JFR recording started for at most {}", limited);
+        return status();
+    }
+
+    /**
+     * Stops the recording started through the actuator and writes it to the directory.
+     *
+     * @throws IllegalStateException when no recording is running
+     */
+    public synchronized Dump stop() {
+        if (onDemand == null) {
+            throw new IllegalStateException("No recording is running");
+        }
+        return stop(onDemand);
+    }
+
+    /**
+     * Writes the continuous recording to the directory when the invocation was slower than the SLO and no such dump
+     * was written during the cooldown. Returns right away, the dump is written in the background.
+     */
+    public void onInvocation(Duration latency) {
+        if (continuous == null || latency.compareTo(properties.slo()) <= 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        long last = lastSloDump.get();
+        if (last != 0 && now - last < properties.sloCooldown().toNanos() || !lastSloDump.compareAndSet(last, now)) {
+            return;
+        }
+        Thread.ofVirtual().name("jfr-slo-dump").start(() -> {
+            try {
+                Dump dump = dumpContinuous();
+                sloDumps.increment();
+                ProfileSummary summary = summary(dump.name());
+                logger.warn("Invocation took {}, over the SLO of {}; wrote {}. Hottest methods: {}", latency,
+                        properties.slo(), dump.name(), summary.hotMethods().stream().limit(5)
+                                .map(ProfileSummary.Entry::frame).toList());
+            } catch (RuntimeException e) {
+                logger.warn("Writing the continuous JFR recording after a slow invocation failed", e);
+            }
+        });
+    }
+
+    /**
+     * Summary of a recording in the directory.
+     *
+     * @throws IllegalArgumentException when there is no recording with that name
+     */
+    public ProfileSummary summary(String name) {
+        if (!DUMP_NAME.matcher(name).matches() || !Files.isRegularFile(properties.directory().resolve(name))) {
+            throw new IllegalArgumentException("No recording named " + name);
+        }
+        try {
+            return ProfileSummary.read(properties.directory().resolve(name), properties.summarySize());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (onDemand != null) {
+            onDemand.close();
+            onDemand = null;
+        }
+        if (continuous != null) {
+            continuous.close();
+            continuous = null;
+        }
+    }
+
+    private synchronized Dump stop(Recording recording) {
+        if (onDemand != recording) {
+            // Already stopped through the actuator
+            return null;
+        }
+        onDemand = null;
+        try {
+            recording.stop();
+            return write("ondemand", recording);
+        } finally {
+            recording.close();
+        }
+    }
+
+    private synchronized Dump dumpContinuous() {
+        if (continuous == null) {
+            throw new IllegalStateException("The continuous recording is not running");
+        }
+        return write("slo", continuous);
+    }
+
+    private Dump write(String reason, Recording recording) {
+        Path file = properties.directory().resolve(reason + "-" + TIMESTAMP.format(Instant.now()) + ".jfr");
+        try {
+            Files.createDirectories(properties.directory());
+            recording.dump(file);
+            prune();
+            return new Dump(file.getFileName().toString(), Files.size(file), Instant.now());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void prune() throws IOException {
+        List<Dump> dumps = dumps();
+        long bytes = dumps.stream().mapToLong(Dump::bytes).sum();
+        for (int i = dumps.size() - 1; i > 0; i--) {
+            if (i < properties.maxDumps() && bytes <= properties.maxDirectorySize().toBytes()) {
+                break;
+            }
+            Files.deleteIfExists(properties.directory().resolve(dumps.get(i).name()));
+            bytes -= dumps.get(i).bytes();
+            logger.debug("Deleted JFR recording {} to stay within the directory bounds", dumps.get(i).name());
+        }
+    }
+
+    private List<Dump> dumps() {
+        if (!Files.isDirectory(properties.directory())) {
+            return List.of();
+        }
+        List<Dump> dumps = new ArrayList<>();
+        try (Stream<Path> files = Files.list(properties.directory())) {
+            for (Path file : files.toList()) {
+                if (DUMP_NAME.matcher(file.getFileName().toString()).matches()) {
+                    dumps.add(new Dump(file.getFileName().toString(), Files.size(file),
+                            Files.getLastModifiedTime(file).toInstant()));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        dumps.sort(Comparator.comparing(Dump::created).reversed());
+        return dumps;
+    }
+}
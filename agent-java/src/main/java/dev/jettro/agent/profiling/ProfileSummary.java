@@ -0,0 +1,116 @@
+package dev.jettro.agent.profiling;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import jdk.jfr.consumer.RecordedClass;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Where a recording spent its time: the methods found on top of the stack most often, the code that allocated the
+ * most bytes and the locks threads waited for the longest.
+ * <p>
+ * Allocation sites and locks are attributed to the first frame outside the JDK, {@code Arrays.copyOf} says little
+ * about who allocated. Parked threads only count as contention when they wait for a {@code java.util.concurrent.locks}
+ * lock; idle pool threads park as well.
+ *
+ * @param name             File name of the recording
+ * @param start            First event of the recording
+ * @param end              Last event of the recording
+ * @param executionSamples Number of execution samples
+ * @param hotMethods       Methods by number of execution samples
+ * @param allocationSites  Code by sampled allocated bytes
+ * @param contention       Locks and where they were taken, by nanoseconds waited
+ */
+public record ProfileSummary(String name, Instant start, Instant end, long executionSamples, List<Entry> hotMethods,
+                             List<Entry> allocationSites, List<Entry> contention) {
+
+    /**
+     * @param frame Method and line
+     * @param value Samples, bytes or nanoseconds
+     * @param share Part of the total of its list, between 0 and 1
+     */
+    public record Entry(String frame, long value, double share) {
+    }
+
+    public static ProfileSummary read(Path file, int size) throws IOException {
+        Map<String, Long> executions = new HashMap<>();
+        Map<String, Long> allocations = new HashMap<>();
+        Map<String, Long> locks = new HashMap<>();
+        long samples = 0;
+        Instant start = null;
+        Instant end = null;
+
+        try (RecordingFile recording = new RecordingFile(file)) {
+            while (recording.hasMoreEvents()) {
+                RecordedEvent event = recording.readEvent();
+                switch (event.getEventType().getName()) {
+                    case "jdk.ExecutionSample" -> {
+                        samples++;
+                        executions.merge(frame(event, false), 1L, Long::sum);
+                    }
+                    case "jdk.ObjectAllocationSample" ->
+                            allocations.merge(frame(event, true), event.getLong("weight"), Long::sum);
+                    case "jdk.JavaMonitorEnter" -> locks.merge(lock(event.getClass("monitorClass")) + " at "
+                            + frame(event, true), event.getDuration().toNanos(), Long::sum);
+                    case "jdk.ThreadPark" -> {
+                        String parked = lock(event.getClass("parkedClass"));
+                        if (parked.startsWith("java.util.concurrent.locks.")) {
+                            locks.merge(parked + " at " + frame(event, true), event.getDuration().toNanos(),
+                                    Long::sum);
+                        }
+                    }
+                    default -> {
+                        continue;
+                    }
+                }
+                start = start == null || event.getStartTime().isBefore(start) ? event.getStartTime() : start;
+                end = end == null || event.getEndTime().isAfter(end) ? event.getEndTime() : end;
+            }
+        }
+        return new ProfileSummary(file.getFileName().toString(), start, end, samples, top(executions, size),
+                top(allocations, size), top(locks, size));
+    }
+
+    private static List<Entry> top(Map<String, Long> values, int size) {
+        double total = Math.max(1, values.values().stream().mapToLong(Long::longValue).sum());
+        return values.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+                .limit(size)
+                .map(entry -> new Entry(entry.getKey(), entry.getValue(), entry.getValue() / total))
+                .toList();
+    }
+
+    private static String frame(RecordedEvent event, boolean outsideJdk) {
+        RecordedStackTrace stackTrace = event.getStackTrace();
+        if (stackTrace == null || stackTrace.getFrames().isEmpty()) {
+            return "unknown";
+        }
+        RecordedFrame chosen = stackTrace.getFrames().getFirst();
+        if (outsideJdk) {
+            for (RecordedFrame frame : stackTrace.getFrames()) {
+                if (!isJdk(frame.getMethod().getType().getName())) {
+                    chosen = frame;
+                    break;
+                }
+            }
+        }
+        return chosen.getMethod().getType().getName() + "." + chosen.getMethod().getName() + ":"
+                + chosen.getLineNumber();
+    }
+
+    private static boolean isJdk(String type) {
+        return type.startsWith("java.") || type.startsWith("jdk.") || type.startsWith("sun.");
+    }
+
+    private static String lock(RecordedClass type) {
+        return type == null ? "unknown" : type.getName();
+    }
+}
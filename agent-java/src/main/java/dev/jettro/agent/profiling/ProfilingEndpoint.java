@@ -0,0 +1,48 @@
+package dev.jettro.agent.profiling;
+
+import java.time.Duration;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint {@code /actuator/profiling}, only reachable with the bearer token, see
+ * {@code ActuatorAccessFilter}. A GET lists the recordings, {@code GET /actuator/profiling/{name}} summarizes one. A
+ * POST starts a recording of {@code seconds} (60 by default) and a DELETE stops it and writes it to the directory.
+ */
+@Component
+@Endpoint(id = "profiling")
+public class ProfilingEndpoint {
+
+    private static final int DEFAULT_SECONDS = 60;
+
+    private final JfrProfiler profiler;
+
+    public ProfilingEndpoint(JfrProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    @ReadOperation
+    public JfrProfiler.Status status() {
+        return profiler.status();
+    }
+
+    @ReadOperation
+    public ProfileSummary summary(@Selector String name) {
+        return profiler.summary(name);
+    }
+
+    @WriteOperation
+    public JfrProfiler.Status start(@Nullable Integer seconds) {
+        return profiler.start(Duration.ofSeconds(seconds == null ? DEFAULT_SECONDS : seconds));
+    }
+
+    @DeleteOperation
+    public JfrProfiler.Dump stop() {
+        return profiler.stop();
+    }
+}
@@ -0,0 +1,39 @@
+package dev.jettro.agent.profiling;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Configuration of the JFR recordings of the agent.
+ *
+ * @param enabled            Keep a continuous recording and accept recordings through the actuator.
+ * @param directory          Directory the recordings are written to.
+ * @param maxDumps           Most recordings kept in the directory, the oldest are deleted first.
+ * @param maxDirectorySize   Most bytes of recordings kept in the directory.
+ * @param continuousSettings JFR settings of the continuous recording, {@code default} has about 1% overhead.
+ * @param continuousMaxAge   How far back the continuous recording goes.
+ * @param continuousMaxSize  Most bytes the continuous recording keeps in the JFR repository.
+ * @param onDemandSettings   JFR settings of recordings started through the actuator.
+ * @param maxDuration        Longest recording that can be started through the actuator.
+ * @param slo                Invocations slower than this write the continuous recording to the directory.
+ * @param sloCooldown        Time after such a dump during which slow invocations do not write another one.
+ * @param summarySize        Number of methods, allocation sites and locks in a summary.
+ */
+@ConfigurationProperties(prefix = "agent.profiling")
+public record ProfilingProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("/tmp/agent-jfr") Path directory,
+        @DefaultValue("10") int maxDumps,
+        @DefaultValue("512MB") DataSize maxDirectorySize,
+        @DefaultValue("default") String continuousSettings,
+        @DefaultValue("5m") Duration continuousMaxAge,
+        @DefaultValue("64MB") DataSize continuousMaxSize,
+        @DefaultValue("profile") String onDemandSettings,
+        @DefaultValue("10m") Duration maxDuration,
+        @DefaultValue("15s") Duration slo,
+        @DefaultValue("15m") Duration sloCooldown,
+        @DefaultValue("10") int summarySize) {
+}
@@ -0,0 +1,44 @@
+package dev.jettro.agent.profiling;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Reports the duration of every AgentCore invocation, the request handled by {@code agentCoreHandler}, to the
+ * {@link JfrProfiler}, which writes the continuous recording when it is over the SLO.
+ */
+@Component
+public class SlowInvocationFilter extends OncePerRequestFilter {
+
+    private static final String INVOCATIONS_PATH = "/invocations";
+
+    private final JfrProfiler profiler;
+    private final ProfilingProperties properties;
+
+    public SlowInvocationFilter(JfrProfiler profiler, ProfilingProperties properties) {
+        this.profiler = profiler;
+        this.properties = properties;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.enabled() || !INVOCATIONS_PATH.equals(request.getRequestURI());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            profiler.onInvocation(Duration.ofNanos(System.nanoTime() - start));
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package dev.jettro.agent.resilience;
+
+import java.time.Duration;
+import java.util.Optional;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.awscore.retry.AwsRetryStrategy;
+import software.amazon.awssdk.core.exception.SdkServiceException;
+import software.amazon.awssdk.retries.api.AcquireInitialTokenRequest;
+import software.amazon.awssdk.retries.api.AcquireInitialTokenResponse;
+import software.amazon.awssdk.retries.api.RecordSuccessRequest;
+import software.amazon.awssdk.retries.api.RecordSuccessResponse;
+import software.amazon.awssdk.retries.api.RefreshRetryTokenRequest;
+import software.amazon.awssdk.retries.api.RefreshRetryTokenResponse;
+import software.amazon.awssdk.retries.api.RetryStrategy;
+import software.amazon.awssdk.retries.api.TokenAcquisitionFailedException;
+
+/**
+ * The standard AWS retry strategy, which decides whether a failure is retryable and how long to back off, with every
+ * retry paid from the shared {@link RetryBudget}. The budget is only asked for retries the standard strategy would
+ * make, so a failure that is not retryable or out of attempts neither takes nor is denied a token. A retry waits at
+ * least as long as the retry-after hint of the service, and a throttled attempt starts the cool-down of the budget
+ * whether or not it is retried.
+ * <p>
+ * {@link #toBuilder()} gives the builder of the standard strategy; the SDK only uses it for strategies that ask for
+ * the client defaults, which this one does not.
+ */
+class BudgetedRetryStrategy implements RetryStrategy {
+
+    private static final String RETRY_AFTER = "Retry-After";
+
+    private final RetryBudget budget;
+    private final RetryStrategy delegate;
+
+    BudgetedRetryStrategy(RetryBudget budget, int maxAttempts) {
+        this.budget = budget;
+        this.delegate = AwsRetryStrategy.standardRetryStrategy().toBuilder().maxAttempts(maxAttempts).build();
+    }
+
+    @Override
+    public AcquireInitialTokenResponse acquireInitialToken(AcquireInitialTokenRequest request) {
+        return delegate.acquireInitialToken(request);
+    }
+
+    @Override
+    public RefreshRetryTokenResponse refreshRetryToken(RefreshRetryTokenRequest request) {
+        Throwable failure = request.failure();
+        Duration retryAfter = retryAfter(failure).orElse(null);
+        if (failure instanceof SdkServiceException e && e.isThrottlingException()) {
+            budget.onThrottle(retryAfter);
+        }
+
+        // Throws when the standard strategy does not retry, without touching the budget
+        RefreshRetryTokenResponse response = delegate.refreshRetryToken(request);
+        if (!budget.tryRetry()) {
+            throw new TokenAcquisitionFailedException("The retry budget of the agent is spent", response.token(),
+                    failure);
+        }
+        if (retryAfter != null && retryAfter.compareTo(response.delay()) > 0) {
+            return RefreshRetryTokenResponse.create(response.token(), retryAfter);
+        }
+        return response;
+    }
+
+    @Override
+    public RecordSuccessResponse recordSuccess(RecordSuccessRequest request) {
+        budget.onSuccess();
+        return delegate.recordSuccess(request);
+    }
+
+    @Override
+    public int maxAttempts() {
+        return delegate.maxAttempts();
+    }
+
+    @Override
+    public Builder<?, ?> toBuilder() {
+        return delegate.toBuilder();
+    }
+
+    /**
+     * The Retry-After header of a failed call, in seconds; a date is ignored.
+     */
+    static Optional<Duration> retryAfter(Throwable failure) {
+        if (!(failure instanceof AwsServiceException e) || e.awsErrorDetails() == null
+                || e.awsErrorDetails().sdkHttpResponse() == null) {
+            return Optional.empty();
+        }
+        return e.awsErrorDetails().sdkHttpResponse().firstMatchingHeader(RETRY_AFTER).flatMap(value -> {
+            try {
+                return Optional.of(Duration.ofSeconds(Long.parseLong(value.trim())));
+            } catch (NumberFormatException ignored) {
+                return Optional.empty();
+            }
+        });
+    }
+}
@@ -0,0 +1,78 @@
+package dev.jettro.agent.resilience;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Circuit breakers and bulkheads for the dependencies of the agent, one of each per dependency name. State changes
+ * are logged and all breakers and bulkheads are exported to the meter registry.
+ */
+@Component
+public class DependencyGuards {
+
+    public static final String MEMORY = "memory";
+    public static final String MODEL = "model";
+
+    private static final Logger logger = LoggerFactory.getLogger(DependencyGuards.class);
+
+    private final ResilienceProperties properties;
+    private final CircuitBreakerRegistry circuitBreakers = CircuitBreakerRegistry.ofDefaults();
+    private final BulkheadRegistry bulkheads = BulkheadRegistry.ofDefaults();
+
+    public DependencyGuards(ResilienceProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        circuitBreakers.getEventPublisher().onEntryAdded(added -> added.getAddedEntry().getEventPublisher()
+                .onStateTransition(event -> logger.warn("Circuit breaker {} went from {} to {}",
+                        event.getCircuitBreakerName(), event.getStateTransition().getFromState(),
+                        event.getStateTransition().getToState())));
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitBreakers).bindTo(meterRegistry);
+        TaggedBulkheadMetrics.ofBulkheadRegistry(bulkheads).bindTo(meterRegistry);
+    }
+
+    public CircuitBreaker circuitBreaker(String dependency) {
+        return circuitBreakers.circuitBreaker(dependency, () -> {
+            ResilienceProperties.Dependency settings = properties.dependency(dependency);
+            return CircuitBreakerConfig.custom()
+                    .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+                    .slidingWindowSize(settings.slidingWindowSize())
+                    .minimumNumberOfCalls(settings.minimumCalls())
+                    .failureRateThreshold(settings.failureRateThreshold())
+                    .slowCallRateThreshold(settings.slowCallRateThreshold())
+                    .slowCallDurationThreshold(settings.slowCallDuration())
+                    .waitDurationInOpenState(settings.waitInOpenState())
+                    .permittedNumberOfCallsInHalfOpenState(settings.halfOpenCalls())
+                    .automaticTransitionFromOpenToHalfOpenEnabled(false)
+                    .ignoreExceptions(BulkheadFullException.class)
+                    .build();
+        });
+    }
+
+    /**
+     * Retry-after hint for callers rejected because the dependency is unavailable.
+     */
+    public Duration retryAfter(String dependency) {
+        return properties.dependency(dependency).waitInOpenState();
+    }
+
+    public Bulkhead bulkhead(String dependency) {
+        return bulkheads.bulkhead(dependency, () -> {
+            ResilienceProperties.Dependency settings = properties.dependency(dependency);
+            return BulkheadConfig.custom()
+                    .maxConcurrentCalls(settings.maxConcurrentCalls())
+                    .maxWaitDuration(settings.maxWait())
+                    .build();
+        });
+    }
+}
@@ -0,0 +1,33 @@
+package dev.jettro.agent.resilience;
+
+import java.time.Duration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Thrown when a required dependency is known to be down or saturated. Spring MVC turns it into a 503 with a
+ * Retry-After header, so callers stop waiting on a request that cannot succeed.
+ */
+public class DependencyUnavailableException extends ResponseStatusException {
+
+    private final String dependency;
+    private final Duration retryAfter;
+
+    public DependencyUnavailableException(String dependency, Duration retryAfter) {
+        super(HttpStatus.SERVICE_UNAVAILABLE, "Dependency " + dependency + " is unavailable");
+        this.dependency = dependency;
+        this.retryAfter = retryAfter;
+    }
+
+    public String getDependency() {
+        return dependency;
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, (retryAfter.toMillis() + 999) / 1000)));
+        return headers;
+    }
+}
@@ -0,0 +1,53 @@
+package dev.jettro.agent.resilience;
+
+import java.time.Duration;
+import java.util.Map;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Circuit breaker and bulkhead settings per dependency, for instance {@code agent.resilience.dependencies.memory}.
+ * A dependency named {@code memory:<id>}, such as a memory shard, uses the settings of {@code memory} unless it has
+ * an entry of its own. Dependencies without an entry use the defaults of {@link Dependency}.
+ */
+@ConfigurationProperties(prefix = "agent.resilience")
+public record ResilienceProperties(Map<String, Dependency> dependencies) {
+
+    public ResilienceProperties {
+        dependencies = dependencies == null ? Map.of() : Map.copyOf(dependencies);
+    }
+
+    public Dependency dependency(String name) {
+        int separator = name.indexOf(':');
+        Dependency fallback = separator < 0 ? Dependency.DEFAULTS
+                : dependencies.getOrDefault(name.substring(0, separator), Dependency.DEFAULTS);
+        return dependencies.getOrDefault(name, fallback);
+    }
+
+    /**
+     * @param slidingWindowSize      Number of recent calls the failure and slow-call rates are computed over.
+     * @param minimumCalls           Calls needed in the window before the breaker can open.
+     * @param failureRateThreshold   Percentage of failed calls that opens the breaker.
+     * @param slowCallRateThreshold  Percentage of slow calls that opens the breaker.
+     * @param slowCallDuration       Calls taking longer than this count as slow.
+     * @param waitInOpenState        Time the breaker stays open before letting probe calls through.
+     * @param halfOpenCalls          Number of probe calls in the half-open state.
+     * @param maxConcurrentCalls     Bulkhead size, the number of calls in flight to this dependency at once; for memory
+     *                               the loads and stores of the memory advisors, not the invocations they wrap.
+     * @param maxWait                Time a call waits for a free bulkhead slot.
+     */
+    public record Dependency(
+            @DefaultValue("20") int slidingWindowSize,
+            @DefaultValue("10") int minimumCalls,
+            @DefaultValue("50") float failureRateThreshold,
+            @DefaultValue("80") float slowCallRateThreshold,
+            @DefaultValue("10s") Duration slowCallDuration,
+            @DefaultValue("30s") Duration waitInOpenState,
+            @DefaultValue("3") int halfOpenCalls,
+            @DefaultValue("16") int maxConcurrentCalls,
+            @DefaultValue("0ms") Duration maxWait) {
+
+        static final Dependency DEFAULTS = new Dependency(20, 10, 50, 80, Duration.ofSeconds(10),
+                Duration.ofSeconds(30), 3, 16, Duration.ZERO);
+    }
+}
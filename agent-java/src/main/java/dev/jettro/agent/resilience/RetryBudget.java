@@ -0,0 +1,137 @@
+package dev.jettro.agent.resilience;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.function.LongSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.retries.api.RetryStrategy;
+
+/**
+ * Retries the AWS SDK clients of the agent may spend, shared by all of them: Bedrock, memory and the control plane.
+ * The Titan embedding model of the Spring AI auto-configuration builds a Bedrock client of its own, its retries are
+ * those of the SDK and are not paid from this budget.
+ * <p>
+ * Each successful call earns {@code ratio} of a retry and the budget also grows by {@code minRetriesPerSecond}, up to
+ * {@code capacity}. A retry takes a whole token, without one the call fails with its last error. During a throttling
+ * storm the successes dry up, and the retries stay a fraction of the calls instead of multiplying them.
+ * <p>
+ * A throttled call also starts a cool-down, as long as the retry-after hint of the service or {@code coolDown}
+ * without one. While it lasts the {@code FairScheduler} admits new invocations at {@code coolDownRatio} of its limit,
+ * so the agent backs off as a whole instead of every request on its own.
+ */
+@Component
+public class RetryBudget {
+
+    private static final Logger logger = LoggerFactory.getLogger(RetryBudget.class);
+
+    private final RetryBudgetProperties properties;
+    private final LongSupplier nanoTime;
+    private final Counter spent;
+    private final Counter denied;
+    private final Counter throttled;
+
+    private double tokens;
+    private long lastRefill;
+    private long coolDownUntil;
+
+    @Autowired
+    public RetryBudget(RetryBudgetProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, System::nanoTime);
+    }
+
+    RetryBudget(RetryBudgetProperties properties, MeterRegistry meterRegistry, LongSupplier nanoTime) {
+        this.properties = properties;
+        this.nanoTime = nanoTime;
+        this.tokens = properties.capacity();
+        this.lastRefill = nanoTime.getAsLong();
+        this.coolDownUntil = lastRefill;
+        this.spent = meterRegistry.counter("agent.retry-budget.retries", "result", "spent");
+        this.denied = meterRegistry.counter("agent.retry-budget.retries", "result", "denied");
+        this.throttled = meterRegistry.counter("agent.retry-budget.throttled");
+        meterRegistry.gauge("agent.retry-budget.tokens", this, RetryBudget::tokens);
+    }
+
+    public boolean enabled() {
+        return properties.enabled();
+    }
+
+    /**
+     * A retry strategy for one SDK client that retries like the SDK's standard strategy within this budget.
+     */
+    public RetryStrategy retryStrategy() {
+        return new BudgetedRetryStrategy(this, properties.maxAttempts());
+    }
+
+    /**
+     * Takes a token for a retry that would otherwise go ahead.
+     *
+     * @return whether the retry may go ahead
+     */
+    public synchronized boolean tryRetry() {
+        refill();
+        if (tokens >= 1) {
+            tokens -= 1;
+            spent.increment();
+            return true;
+        }
+        denied.increment();
+        return false;
+    }
+
+    public synchronized void onSuccess() {
+        refill();
+        tokens = Math.min(properties.capacity(), tokens + properties.ratio());
+    }
+
+    /**
+     * Starts or extends the cool-down after a throttled call.
+     *
+     * @param retryAfter hint of the service, or {@code null} without one
+     */
+    public synchronized void onThrottle(Duration retryAfter) {
+        throttled.increment();
+        Duration coolDown = retryAfter == null ? properties.coolDown() : retryAfter;
+        if (coolDown.compareTo(properties.maxCoolDown()) > 0) {
+            coolDown = properties.maxCoolDown();
+        }
+        long until = nanoTime.getAsLong() + coolDown.toNanos();
+        if (until - coolDownUntil > 0) {
+            if (coolDownUntil - nanoTime.getAsLong() <= 0) {
+                logger.info("Throttled by AWS, slowing down new invocations for {}", coolDown);
+            }
+            coolDownUntil = until;
+        }
+    }
+
+    /**
+     * The concurrency limit new invocations are admitted at, lower while a cool-down lasts.
+     */
+    public int admissionLimit(int limit) {
+        if (!properties.enabled() || !coolingDown()) {
+            return limit;
+        }
+        return Math.max(1, (int) (limit * properties.coolDownRatio()));
+    }
+
+    public synchronized boolean coolingDown() {
+        return coolDownUntil - nanoTime.getAsLong() > 0;
+    }
+
+    synchronized double tokens() {
+        refill();
+        return tokens;
+    }
+
+    private void refill() {
+        long now = nanoTime.getAsLong();
+        long elapsed = now - lastRefill;
+        if (elapsed > 0) {
+            tokens = Math.min(properties.capacity(), tokens + elapsed * properties.minRetriesPerSecond() / 1e9);
+            lastRefill = now;
+        }
+    }
+}
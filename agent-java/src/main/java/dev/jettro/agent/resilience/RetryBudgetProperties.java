@@ -0,0 +1,30 @@
+package dev.jettro.agent.resilience;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuration of the retry budget shared by the AWS SDK clients the agent builds, which leaves out the Bedrock client
+ * of the Titan embedding model. When disabled the clients use the retry strategy of the SDK.
+ *
+ * @param enabled             Let the SDK clients retry only while the budget has tokens.
+ * @param maxAttempts         Attempts per call, the first one included.
+ * @param ratio               Retries earned per successful call.
+ * @param minRetriesPerSecond Retries earned per second regardless of successes, so a quiet agent can still retry.
+ * @param capacity            Most retries that can be saved up.
+ * @param coolDown            How long new invocations are slowed after a throttled call without a retry-after hint.
+ * @param maxCoolDown         Longest cool-down, also the cap on retry-after hints.
+ * @param coolDownRatio       Share of the concurrency limit new invocations may use during a cool-down.
+ */
+@ConfigurationProperties(prefix = "agent.retry-budget")
+public record RetryBudgetProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("3") int maxAttempts,
+        @DefaultValue("0.1") double ratio,
+        @DefaultValue("1.0") double minRetriesPerSecond,
+        @DefaultValue("20") double capacity,
+        @DefaultValue("2s") Duration coolDown,
+        @DefaultValue("30s") Duration maxCoolDown,
+        @DefaultValue("0.5") double coolDownRatio) {
+}
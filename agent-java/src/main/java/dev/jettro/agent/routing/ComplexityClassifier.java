@@ -0,0 +1,73 @@
+package dev.jettro.agent.routing;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Scores a prompt with cheap local heuristics. A higher score means the prompt needs a more capable model.
+ * <p>
+ * Keywords match whole words only, so "now" does not match "know" and "plan" does not match "planet". A keyword that
+ * starts or ends with punctuation, such as a code fence, has no word boundary on that side.
+ */
+class ComplexityClassifier {
+
+    private final RoutingProperties properties;
+    private final List<Pattern> toolKeywords;
+    private final List<Pattern> reasoningKeywords;
+
+    ComplexityClassifier(RoutingProperties properties) {
+        this.properties = properties;
+        this.toolKeywords = patterns(properties.toolKeywords());
+        this.reasoningKeywords = patterns(properties.reasoningKeywords());
+    }
+
+    Complexity classify(String prompt, int historyTurns) {
+        String text = prompt == null ? "" : prompt;
+        String lower = text.toLowerCase(Locale.ROOT);
+
+        int score = 0;
+        if (text.length() > properties.mediumPromptChars()) {
+            score++;
+        }
+        if (text.length() > properties.longPromptChars()) {
+            score++;
+        }
+        if (historyTurns > properties.mediumHistoryTurns()) {
+            score++;
+        }
+        if (historyTurns > properties.longHistoryTurns()) {
+            score++;
+        }
+
+        boolean toolLikely = toolKeywords.stream().anyMatch(keyword -> keyword.matcher(lower).find());
+        if (toolLikely) {
+            score++;
+        }
+        score += (int) reasoningKeywords.stream().filter(keyword -> keyword.matcher(lower).find()).count();
+
+        return new Complexity(score, text.length(), historyTurns, toolLikely);
+    }
+
+    private static List<Pattern> patterns(Collection<String> keywords) {
+        return keywords.stream()
+                .filter(keyword -> !keyword.isBlank())
+                .map(keyword -> keyword.toLowerCase(Locale.ROOT))
+                .map(keyword -> Pattern.compile((wordCharacter(keyword.charAt(0)) ? "\\b" : "")
+                        + Pattern.quote(keyword)
+                        + (wordCharacter(keyword.charAt(keyword.length() - 1)) ? "\\b" : ""),
+                        Pattern.UNICODE_CHARACTER_CLASS))
+                .toList();
+    }
+
+    private static boolean wordCharacter(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    /**
+     * Outcome of the classification, kept for logging.
+     */
+    record Complexity(int score, int promptChars, int historyTurns, boolean toolLikely) {
+    }
+}
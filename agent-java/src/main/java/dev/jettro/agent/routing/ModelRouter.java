@@ -0,0 +1,97 @@
+package dev.jettro.agent.routing;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Chooses the Bedrock model for a prompt and records latency and cost per model tier.
+ * <p>
+ * Simple turns stay on the first (fastest) tier; only prompts that score above its {@code maxScore} move to a larger
+ * model. The history size is a local turn count per conversation, so classification never waits for memory.
+ */
+@Component
+public class ModelRouter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ModelRouter.class);
+
+    private final RoutingProperties properties;
+    private final ComplexityClassifier classifier;
+    private final MeterRegistry meterRegistry;
+    private final ModelTier defaultTier;
+    private final Map<String, Integer> turnsPerConversation;
+
+    public ModelRouter(RoutingProperties properties, MeterRegistry meterRegistry,
+                       @Value("${spring.ai.bedrock.converse.chat.options.model}") String defaultModel) {
+        this.properties = properties;
+        this.classifier = new ComplexityClassifier(properties);
+        this.meterRegistry = meterRegistry;
+        this.defaultTier = new ModelTier("default", defaultModel, Integer.MAX_VALUE, 0, 0);
+        this.turnsPerConversation = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+                return size() > properties.maxConversations();
+            }
+        };
+    }
+
+    /**
+     * Selects the tier for the next turn of a conversation.
+     */
+    public ModelTier route(String conversationId, String prompt) {
+        List<ModelTier> tiers = properties.tiers();
+        if (!properties.enabled() || tiers.isEmpty()) {
+            return defaultTier;
+        }
+
+        var complexity = classifier.classify(prompt, turns(conversationId));
+        ModelTier selected = tiers.stream()
+                .filter(tier -> complexity.score() <= tier.maxScore())
+                .findFirst()
+                .orElse(tiers.getLast());
+        logger.debug("Routing conversation {} with {} to tier {}", conversationId, complexity, selected.name());
+        return selected;
+    }
+
+    /**
+     * Records a completed model call for the tier that handled it.
+     */
+    public void record(String conversationId, ModelTier tier, Duration latency, ChatResponse response) {
+        synchronized (turnsPerConversation) {
+            turnsPerConversation.merge(conversationId, 1, Integer::sum);
+        }
+
+        Timer.builder("agent.model.latency")
+                .tag("tier", tier.name())
+                .tag("model", tier.model())
+                .register(meterRegistry)
+                .record(latency);
+
+        TokenCounts tokens = TokenCounts.of(response);
+        if (tokens == TokenCounts.NONE) {
+            return;
+        }
+        String name = tier.name();
+        meterRegistry.counter("agent.model.tokens", "tier", name, "type", "input").increment(tokens.input());
+        meterRegistry.counter("agent.model.tokens", "tier", name, "type", "output").increment(tokens.output());
+        meterRegistry.counter("agent.model.cost", "tier", name).increment(tier.cost(tokens.input(), tokens.output()));
+        meterRegistry.counter("agent.model.tokens", "tier", name, "type", "cache_read").increment(tokens.cacheRead());
+        meterRegistry.counter("agent.model.tokens", "tier", name, "type", "cache_write").increment(tokens.cacheWrite());
+        logger.debug("Tier {} used {} input tokens, {} read from and {} written to the prompt cache",
+                name, tokens.input(), tokens.cacheRead(), tokens.cacheWrite());
+    }
+
+    private int turns(String conversationId) {
+        synchronized (turnsPerConversation) {
+            return turnsPerConversation.getOrDefault(conversationId, 0);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package dev.jettro.agent.routing;
+
+/**
+ * A Bedrock model that handles prompts up to a complexity score.
+ *
+ * @param name                  Name used in logs and metric tags.
+ * @param model                 Bedrock model id or inference profile.
+ * @param maxScore              Highest complexity score this tier accepts.
+ * @param inputCostPerMillion   Price of one million input tokens, used for the cost metric.
+ * @param outputCostPerMillion  Price of one million output tokens, used for the cost metric.
+ */
+public record ModelTier(String name, String model, int maxScore, double inputCostPerMillion,
+                        double outputCostPerMillion) {
+
+    public double cost(long inputTokens, long outputTokens) {
+        return (inputTokens * inputCostPerMillion + outputTokens * outputCostPerMillion) / 1_000_000d;
+    }
+}
@@ -0,0 +1,38 @@
+package dev.jettro.agent.routing;
+
+import java.util.List;
+import java.util.Set;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuration of complexity-based model routing.
+ *
+ * @param enabled             Route between the tiers, when false, or without tiers, every prompt uses the configured
+ *                            chat model.
+ * @param tiers               Model tiers ordered from fastest to most capable.
+ * @param mediumPromptChars   Prompts longer than this add one point to the complexity score.
+ * @param longPromptChars     Prompts longer than this add another point.
+ * @param mediumHistoryTurns  Conversations with more turns than this add one point.
+ * @param longHistoryTurns    Conversations with more turns than this add another point.
+ * @param toolKeywords        Whole words that suggest the model needs to call a tool.
+ * @param reasoningKeywords   Whole words that suggest multi-step reasoning, each match adds one point.
+ * @param maxConversations    Number of conversations to keep turn counts for.
+ */
+@ConfigurationProperties(prefix = "agent.routing")
+public record RoutingProperties(
+        @DefaultValue("true") boolean enabled,
+        List<ModelTier> tiers,
+        @DefaultValue("300") int mediumPromptChars,
+        @DefaultValue("1200") int longPromptChars,
+        @DefaultValue("6") int mediumHistoryTurns,
+        @DefaultValue("20") int longHistoryTurns,
+        @DefaultValue({"time", "date", "today", "tomorrow", "yesterday", "now"}) Set<String> toolKeywords,
+        @DefaultValue({"explain", "compare", "analyse", "analyze", "plan", "step by step", "why", "trade-off", "```"})
+        Set<String> reasoningKeywords,
+        @DefaultValue("10000") int maxConversations) {
+
+    public RoutingProperties {
+        tiers = tiers == null ? List.of() : List.copyOf(tiers);
+    }
+}
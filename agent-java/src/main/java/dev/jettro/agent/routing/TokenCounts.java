@@ -0,0 +1,34 @@
+package dev.jettro.agent.routing;
+
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatResponse;
+import software.amazon.awssdk.services.bedrockruntime.model.TokenUsage;
+
+/**
+ * The tokens of a model call as reported in the usage of the response, zero for what the response does not report.
+ *
+ * @param input      Input tokens, including those read from or written to the prompt cache
+ * @param output     Output tokens
+ * @param cacheRead  Input tokens read from the Bedrock prompt cache
+ * @param cacheWrite Input tokens written to the Bedrock prompt cache
+ */
+public record TokenCounts(long input, long output, long cacheRead, long cacheWrite) {
+
+    public static final TokenCounts NONE = new TokenCounts(0, 0, 0, 0);
+
+    public static TokenCounts of(ChatResponse response) {
+        Usage usage = response != null && response.getMetadata() != null ? response.getMetadata().getUsage() : null;
+        if (usage == null) {
+            return NONE;
+        }
+        long input = usage.getPromptTokens() == null ? 0 : usage.getPromptTokens();
+        long output = usage.getCompletionTokens() == null ? 0 : usage.getCompletionTokens();
+        // The Bedrock usage reports how much of the input was read from or written to the prompt cache
+        if (usage.getNativeUsage() instanceof TokenUsage tokenUsage) {
+            return new TokenCounts(input, output,
+                    tokenUsage.cacheReadInputTokens() == null ? 0 : tokenUsage.cacheReadInputTokens(),
+                    tokenUsage.cacheWriteInputTokens() == null ? 0 : tokenUsage.cacheWriteInputTokens());
+        }
+        return new TokenCounts(input, output, 0, 0);
+    }
+}
@@ -0,0 +1,30 @@
+package dev.jettro.agent.scheduling;
+
+import java.time.Duration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Thrown when an actor is over its rate or queue limit. Spring MVC turns it into a 429 with a Retry-After header.
+ */
+public class ActorThrottledException extends ResponseStatusException {
+
+    private final Duration retryAfter;
+
+    public ActorThrottledException(String actor, Duration retryAfter) {
+        super(HttpStatus.TOO_MANY_REQUESTS, "Too many requests for actor " + actor);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, (retryAfter.toMillis() + 999) / 1000)));
+        return headers;
+    }
+}
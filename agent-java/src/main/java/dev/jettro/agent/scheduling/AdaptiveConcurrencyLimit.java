@@ -0,0 +1,76 @@
+package dev.jettro.agent.scheduling;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import org.springframework.stereotype.Component;
+
+/**
+ * Number of invocations the agent runs at the same time, derived from the round-trip time of Converse calls.
+ * <p>
+ * Uses a gradient algorithm: the lowest recent RTT is the no-load baseline, and the ratio between baseline and the
+ * latest RTT shows whether requests are queueing at Bedrock. A ratio close to one grows the limit by roughly its square
+ * root, a lower ratio shrinks it proportionally. Throttling is an explicit drop and shrinks the limit
+ * multiplicatively. The baseline is measured again every {@code baselineWindow} samples, so it can follow a model that
+ * became slower for good.
+ */
+@Component
+public class AdaptiveConcurrencyLimit {
+
+    private final ConcurrencyLimitProperties properties;
+    private final Counter drops;
+
+    private double limit;
+    private long baselineNanos = Long.MAX_VALUE;
+    private int samplesInWindow;
+
+    public AdaptiveConcurrencyLimit(ConcurrencyLimitProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.limit = properties.initialLimit();
+        this.drops = meterRegistry.counter("agent.concurrency.drops", "reason", "throttled");
+        meterRegistry.gauge("agent.concurrency.limit", this, AdaptiveConcurrencyLimit::limit);
+    }
+
+    public boolean enabled() {
+        return properties.enabled();
+    }
+
+    public synchronized int limit() {
+        return (int) limit;
+    }
+
+    /**
+     * Updates the limit with the round-trip time of a successful model call.
+     *
+     * @param rtt      duration of the call
+     * @param inFlight number of invocations running when the call finished
+     */
+    public synchronized void onSample(Duration rtt, int inFlight) {
+        long sample = Math.max(1, rtt.toNanos());
+        if (++samplesInWindow > properties.baselineWindow()) {
+            baselineNanos = sample;
+            samplesInWindow = 0;
+        }
+        baselineNanos = Math.min(baselineNanos, sample);
+
+        double gradient = Math.max(0.5, Math.min(1.0, properties.tolerance() * baselineNanos / sample));
+        double estimate = limit * gradient + Math.sqrt(limit);
+        if (estimate > limit && inFlight < limit / 2) {
+            // Only half the slots are used, that tells us nothing about a higher limit
+            return;
+        }
+        setLimit(limit * (1 - properties.smoothing()) + estimate * properties.smoothing());
+    }
+
+    /**
+     * Shrinks the limit after the model rejected a call because of throttling.
+     */
+    public synchronized void onDrop() {
+        drops.increment();
+        setLimit(limit * properties.backoffRatio());
+    }
+
+    private void setLimit(double newLimit) {
+        limit = Math.max(properties.minLimit(), Math.min(properties.maxLimit(), newLimit));
+    }
+}
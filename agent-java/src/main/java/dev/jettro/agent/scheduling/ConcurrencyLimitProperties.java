@@ -0,0 +1,29 @@
+package dev.jettro.agent.scheduling;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuration of the adaptive concurrency limit. When disabled the scheduler uses its fixed
+ * {@code agent.scheduler.max-concurrent}.
+ *
+ * @param enabled        Adapt the number of worker slots to the observed model latency.
+ * @param initialLimit   Limit to start with.
+ * @param minLimit       Lowest limit.
+ * @param maxLimit       Highest limit.
+ * @param tolerance      How much slower than the no-load baseline a call may be before the limit shrinks.
+ * @param smoothing      Weight of a new estimate, between 0 and 1.
+ * @param baselineWindow Number of samples after which the no-load baseline is measured again.
+ * @param backoffRatio   Factor the limit is multiplied with when the model throttles.
+ */
+@ConfigurationProperties(prefix = "agent.concurrency-limit")
+public record ConcurrencyLimitProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("8") int initialLimit,
+        @DefaultValue("2") int minLimit,
+        @DefaultValue("64") int maxLimit,
+        @DefaultValue("2.0") double tolerance,
+        @DefaultValue("0.2") double smoothing,
+        @DefaultValue("500") int baselineWindow,
+        @DefaultValue("0.9") double backoffRatio) {
+}
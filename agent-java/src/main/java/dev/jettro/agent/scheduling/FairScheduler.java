@@ -0,0 +1,293 @@
+package dev.jettro.agent.scheduling;
+
+import dev.jettro.agent.resilience.RetryBudget;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Admits agent invocations using a token bucket per actor and weighted fair queuing across actors.
+ * <p>
+ * An invocation first takes a token from its actor's bucket. If the bucket is empty, or the actor already has too many
+ * invocations waiting, it is rejected right away with an {@link ActorThrottledException}. Admitted invocations run as
+ * soon as one of the worker slots is free. Waiting invocations are served in order of their virtual finish time
+ * (start-time fair queuing), so an actor with a deep queue cannot starve an actor that sends a single prompt.
+ * <p>
+ * The number of slots is fixed, or follows the {@link AdaptiveConcurrencyLimit} when that is enabled, and is lowered
+ * while the {@link RetryBudget} cools down after AWS throttled a call; running invocations keep their slot. Actor
+ * state is kept in an access-ordered map with at most {@code maxActors} entries. Idle actors are evicted first; an
+ * evicted actor starts again with a full bucket.
+ */
+@Component
+public class FairScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(FairScheduler.class);
+
+    private static final Permit NO_OP_PERMIT = () -> {
+    };
+
+    private final SchedulerProperties properties;
+    private final AdaptiveConcurrencyLimit concurrencyLimit;
+    private final RetryBudget retryBudget;
+    private final MeterRegistry meterRegistry;
+    private final LongSupplier nanoTime;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<String, ActorState> actors = new LinkedHashMap<>(64, 0.75f, true);
+    private final PriorityQueue<Waiter> waiters = new PriorityQueue<>(
+            Comparator.comparingDouble(Waiter::finishTag).thenComparingLong(Waiter::sequence));
+
+    private double virtualTime;
+    private int inFlight;
+    private long sequence;
+
+    @Autowired
+    public FairScheduler(SchedulerProperties properties, AdaptiveConcurrencyLimit concurrencyLimit,
+                         RetryBudget retryBudget, MeterRegistry meterRegistry) {
+        this(properties, concurrencyLimit, retryBudget, meterRegistry, System::nanoTime);
+    }
+
+    FairScheduler(SchedulerProperties properties, AdaptiveConcurrencyLimit concurrencyLimit, RetryBudget retryBudget,
+                  MeterRegistry meterRegistry, LongSupplier nanoTime) {
+        this.properties = properties;
+        this.concurrencyLimit = concurrencyLimit;
+        this.retryBudget = retryBudget;
+        this.meterRegistry = meterRegistry;
+        this.nanoTime = nanoTime;
+        meterRegistry.gauge("agent.scheduler.in-flight", this, FairScheduler::inFlight);
+        meterRegistry.gauge("agent.scheduler.queued", this, FairScheduler::queued);
+    }
+
+    /**
+     * Waits for a worker slot for the given actor.
+     *
+     * @param actor the actor sending the prompt
+     * @return a permit that must be closed when the invocation is done
+     * @throws ActorThrottledException when the actor is over its rate or queue limit
+     */
+    public Permit acquire(String actor) {
+        return acquire(actor, properties.maxQueueWait());
+    }
+
+    /**
+     * Waits at most {@code maxWait}, or the configured maximum queue wait when that is shorter, for a worker slot.
+     *
+     * @param actor   the actor sending the prompt
+     * @param maxWait time after which waiting is useless for the caller
+     * @return a permit that must be closed when the invocation is done
+     * @throws ActorThrottledException when the actor is over its rate or queue limit
+     */
+    public Permit acquire(String actor, Duration maxWait) {
+        if (!properties.enabled()) {
+            return NO_OP_PERMIT;
+        }
+
+        lock.lock();
+        try {
+            ActorState state = stateFor(actor);
+
+            if (state.queued >= properties.maxQueuedPerActor() || waiters.size() >= properties.maxQueued()) {
+                throw reject(actor, "queue_full", properties.queueRetryAfter());
+            }
+            long tokenWait = state.bucket.tryConsume(nanoTime.getAsLong());
+            if (tokenWait > 0) {
+                throw reject(actor, "rate_limited", Duration.ofNanos(tokenWait));
+            }
+
+            double start = Math.max(virtualTime, state.lastFinish);
+            state.lastFinish = start + 1.0 / state.weight;
+
+            if (waiters.isEmpty() && inFlight < limit()) {
+                admit(state, start);
+                return new ActorPermit(state);
+            }
+
+            Waiter waiter = new Waiter(state, start, state.lastFinish, sequence++, lock.newCondition());
+            waiters.add(waiter);
+            state.queued++;
+
+            long remaining = Math.min(properties.maxQueueWait().toNanos(), maxWait.toNanos());
+            while (!waiter.admitted) {
+                if (remaining <= 0) {
+                    waiters.remove(waiter);
+                    state.queued--;
+                    throw reject(actor, "queue_timeout", properties.queueRetryAfter());
+                }
+                try {
+                    remaining = waiter.ready.awaitNanos(remaining);
+                } catch (InterruptedException e) {
+                    if (waiter.admitted) {
+                        inFlight--;
+                        state.running--;
+                        dispatch();
+                    } else {
+                        waiters.remove(waiter);
+                        state.queued--;
+                    }
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for a worker slot", e);
+                }
+            }
+            return new ActorPermit(state);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Number of invocations currently running.
+     */
+    public int inFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Number of invocations waiting for a worker slot.
+     */
+    public int queued() {
+        lock.lock();
+        try {
+            return waiters.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int limit() {
+        return retryBudget.admissionLimit(
+                concurrencyLimit.enabled() ? concurrencyLimit.limit() : properties.maxConcurrent());
+    }
+
+    private void admit(ActorState state, double startTag) {
+        inFlight++;
+        state.running++;
+        virtualTime = Math.max(virtualTime, startTag);
+    }
+
+    private void release(ActorState state) {
+        lock.lock();
+        try {
+            inFlight--;
+            state.running--;
+            dispatch();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void dispatch() {
+        while (inFlight < limit() && !waiters.isEmpty()) {
+            Waiter next = waiters.poll();
+            next.state.queued--;
+            admit(next.state, next.startTag);
+            next.admitted = true;
+            next.ready.signal();
+        }
+    }
+
+    private ActorState stateFor(String actor) {
+        ActorState state = actors.get(actor);
+        if (state == null) {
+            state = new ActorState(
+                    new TokenBucket(properties.burst(), properties.refillPerSecond(), nanoTime.getAsLong()),
+                    properties.weightOf(actor));
+            actors.put(actor, state);
+            evictIdleActors();
+        }
+        return state;
+    }
+
+    private void evictIdleActors() {
+        Iterator<ActorState> eldestFirst = actors.values().iterator();
+        while (actors.size() > properties.maxActors() && eldestFirst.hasNext()) {
+            ActorState candidate = eldestFirst.next();
+            if (candidate.running == 0 && candidate.queued == 0) {
+                eldestFirst.remove();
+            }
+        }
+    }
+
+    private ActorThrottledException reject(String actor, String reason, Duration retryAfter) {
+        logger.debug("Rejecting invocation for actor {} ({}), retry after {}", actor, reason, retryAfter);
+        meterRegistry.counter("agent.concurrency.drops", "reason", reason).increment();
+        return new ActorThrottledException(actor, retryAfter);
+    }
+
+    /**
+     * A worker slot held by an invocation.
+     */
+    public interface Permit extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private final class ActorPermit implements Permit {
+        private final ActorState state;
+        private boolean released;
+
+        private ActorPermit(ActorState state) {
+            this.state = state;
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                release(state);
+            }
+        }
+    }
+
+    private static final class ActorState {
+        private final TokenBucket bucket;
+        private final double weight;
+        private double lastFinish;
+        private int queued;
+        private int running;
+
+        private ActorState(TokenBucket bucket, double weight) {
+            this.bucket = bucket;
+            this.weight = weight;
+        }
+    }
+
+    private static final class Waiter {
+        private final ActorState state;
+        private final double startTag;
+        private final double finishTag;
+        private final long sequence;
+        private final Condition ready;
+        private boolean admitted;
+
+        private Waiter(ActorState state, double startTag, double finishTag, long sequence, Condition ready) {
+            this.state = state;
+            this.startTag = startTag;
+            this.finishTag = finishTag;
+            this.sequence = sequence;
+            this.ready = ready;
+        }
+
+        private double finishTag() {
+            return finishTag;
+        }
+
+        private long sequence() {
+            return sequence;
+        }
+    }
+}
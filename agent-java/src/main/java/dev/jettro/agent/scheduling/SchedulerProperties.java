@@ -0,0 +1,43 @@
+package dev.jettro.agent.scheduling;
+
+import java.time.Duration;
+import java.util.Map;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuration of the per-actor fair scheduler.
+ *
+ * @param enabled           Turn admission control on or off.
+ * @param maxConcurrent     Number of invocations that may run at the same time.
+ * @param maxQueued         Maximum number of invocations waiting for a slot, over all actors.
+ * @param maxQueuedPerActor Maximum number of invocations one actor may have waiting.
+ * @param maxQueueWait      How long an invocation waits for a slot before it is rejected.
+ * @param refillPerSecond   Tokens added to an actor's bucket per second.
+ * @param burst             Capacity of an actor's bucket.
+ * @param maxActors         Number of actors the scheduler keeps state for.
+ * @param queueRetryAfter   Retry-after hint returned when a queue is full.
+ * @param weights           Optional weight per actor, actors without an entry get weight 1.
+ */
+@ConfigurationProperties(prefix = "agent.scheduler")
+public record SchedulerProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("16") int maxConcurrent,
+        @DefaultValue("64") int maxQueued,
+        @DefaultValue("4") int maxQueuedPerActor,
+        @DefaultValue("10s") Duration maxQueueWait,
+        @DefaultValue("0.5") double refillPerSecond,
+        @DefaultValue("10") int burst,
+        @DefaultValue("10000") int maxActors,
+        @DefaultValue("2s") Duration queueRetryAfter,
+        Map<String, Double> weights) {
+
+    public SchedulerProperties {
+        weights = weights == null ? Map.of() : Map.copyOf(weights);
+    }
+
+    double weightOf(String actor) {
+        Double weight = weights.get(actor);
+        return weight == null || weight <= 0 ? 1.0 : weight;
+    }
+}
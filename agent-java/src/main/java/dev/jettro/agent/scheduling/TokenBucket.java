@@ -0,0 +1,45 @@
+package dev.jettro.agent.scheduling;
+
+/**
+ * Token bucket that refills continuously. Not thread-safe, the owner guards access.
+ */
+final class TokenBucket {
+
+    private final double capacity;
+    private final double refillPerNano;
+    private double tokens;
+    private long lastRefill;
+
+    TokenBucket(double capacity, double refillPerSecond, long now) {
+        this.capacity = capacity;
+        this.refillPerNano = refillPerSecond / 1_000_000_000d;
+        this.tokens = capacity;
+        this.lastRefill = now;
+    }
+
+    /**
+     * Takes one token from the bucket.
+     *
+     * @param now current value of {@link System#nanoTime()}
+     * @return 0 when a token was taken, otherwise the nanoseconds until the next token is available
+     */
+    long tryConsume(long now) {
+        refill(now);
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        if (refillPerNano <= 0) {
+            return Long.MAX_VALUE;
+        }
+        return (long) Math.ceil((1 - tokens) / refillPerNano);
+    }
+
+    private void refill(long now) {
+        long elapsed = now - lastRefill;
+        if (elapsed > 0) {
+            tokens = Math.min(capacity, tokens + elapsed * refillPerNano);
+            lastRefill = now;
+        }
+    }
+}
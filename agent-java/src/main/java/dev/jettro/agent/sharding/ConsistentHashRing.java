@@ -0,0 +1,53 @@
+package dev.jettro.agent.sharding;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Maps keys to nodes by consistent hashing. Every node is put on the ring at {@code virtualNodes} points, a key
+ * belongs to the first node at or after its own point. Adding a node only moves the keys between its points and the
+ * points before them, about one in {@code n} keys for {@code n} nodes.
+ * <p>
+ * Points are the first eight bytes of the MD5 of the node name and point number, so every process that builds a ring
+ * from the same names and number of virtual nodes maps keys the same way. Not thread-safe while nodes are added.
+ */
+public class ConsistentHashRing<T> {
+
+    private final NavigableMap<Long, T> ring = new TreeMap<>();
+    private final int virtualNodes;
+
+    public ConsistentHashRing(int virtualNodes) {
+        this.virtualNodes = Math.max(1, virtualNodes);
+    }
+
+    public void add(String name, T node) {
+        for (int i = 0; i < virtualNodes; i++) {
+            ring.put(hash(name + "#" + i), node);
+        }
+    }
+
+    /**
+     * @throws IllegalStateException when the ring has no nodes
+     */
+    public T node(String key) {
+        if (ring.isEmpty()) {
+            throw new IllegalStateException("The hash ring has no nodes");
+        }
+        Map.Entry<Long, T> entry = ring.ceilingEntry(hash(key));
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+
+    static long hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(digest).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package dev.jettro.agent.sharding;
+
+import software.amazon.awssdk.services.bedrockagentcore.BedrockAgentCoreAsyncClient;
+import software.amazon.awssdk.services.bedrockagentcore.BedrockAgentCoreClient;
+
+/**
+ * An AgentCore memory resource and the clients that talk to it.
+ *
+ * @param memoryId    Id of the memory resource
+ * @param client      Data plane client with a connection pool of its own when sharded
+ * @param asyncClient Async data plane client with a connection pool of its own when sharded
+ * @param dependency  Name of its circuit breaker and bulkhead in the {@code DependencyGuards}
+ */
+public record MemoryShard(String memoryId, BedrockAgentCoreClient client, BedrockAgentCoreAsyncClient asyncClient,
+                          String dependency) {
+}
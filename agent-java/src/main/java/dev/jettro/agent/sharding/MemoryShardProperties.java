@@ -0,0 +1,28 @@
+package dev.jettro.agent.sharding;
+
+import java.time.Duration;
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuration of the AgentCore memory resources the actors are spread over.
+ *
+ * @param memoryIds          Memory resources to shard over; without any, all actors use
+ *                           {@code agentcore.memory.memory-id}. Adding one moves about a share of the actors to it,
+ *                           see {@code RebalanceMemoryShards}.
+ * @param virtualNodes       Points per memory on the hash ring, more points spread actors more evenly.
+ * @param topK               Long-term records retrieved per namespace when sharded.
+ * @param strategyRetryDelay Time after which the strategies of a memory that could not be read are read again.
+ */
+@ConfigurationProperties(prefix = "agent.memory-shards")
+public record MemoryShardProperties(
+        List<String> memoryIds,
+        @DefaultValue("160") int virtualNodes,
+        @DefaultValue("5") int topK,
+        @DefaultValue("1m") Duration strategyRetryDelay) {
+
+    public MemoryShardProperties {
+        memoryIds = memoryIds == null ? List.of() : memoryIds.stream().filter(id -> !id.isBlank()).toList();
+    }
+}
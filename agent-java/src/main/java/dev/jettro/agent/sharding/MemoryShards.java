@@ -0,0 +1,62 @@
+package dev.jettro.agent.sharding;
+
+import java.util.List;
+
+/**
+ * The memory resources of the agent, with the actors spread over them by a {@link ConsistentHashRing} on the actor
+ * id. Without sharding there is a single shard, the configured {@code agentcore.memory.memory-id}, and every actor
+ * maps to it.
+ * <p>
+ * Conversation ids have the form {@code actor:session}; only the actor decides the shard, so all sessions of an actor
+ * and its long-term records live in the same memory.
+ */
+public class MemoryShards implements AutoCloseable {
+
+    private final List<MemoryShard> shards;
+    private final ConsistentHashRing<MemoryShard> ring;
+    private final boolean sharded;
+
+    /**
+     * @param sharded Whether the shards have clients of their own, those are closed with this object
+     */
+    public MemoryShards(List<MemoryShard> shards, int virtualNodes, boolean sharded) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("At least one memory is needed");
+        }
+        this.shards = List.copyOf(shards);
+        this.ring = new ConsistentHashRing<>(virtualNodes);
+        this.shards.forEach(shard -> ring.add(shard.memoryId(), shard));
+        this.sharded = sharded;
+    }
+
+    /**
+     * Whether actors are spread over the configured {@code agent.memory-shards.memory-ids} instead of using the memory
+     * of the AgentCore memory auto-configuration.
+     */
+    public boolean sharded() {
+        return sharded;
+    }
+
+    public List<MemoryShard> all() {
+        return shards;
+    }
+
+    public MemoryShard forActor(String actorId) {
+        return shards.size() == 1 ? shards.getFirst() : ring.node(actorId);
+    }
+
+    public MemoryShard forConversation(String conversationId) {
+        int separator = conversationId.indexOf(':');
+        return forActor(separator < 0 ? conversationId : conversationId.substring(0, separator));
+    }
+
+    @Override
+    public void close() {
+        if (sharded) {
+            for (MemoryShard shard : shards) {
+                shard.client().close();
+                shard.asyncClient().close();
+            }
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package dev.jettro.agent.sharding;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.TimeUnit;
+import software.amazon.awssdk.core.exception.SdkServiceException;
+import software.amazon.awssdk.core.interceptor.Context;
+import software.amazon.awssdk.core.interceptor.ExecutionAttribute;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.interceptor.ExecutionInterceptor;
+
+/**
+ * Times the calls of the clients of one memory shard as {@code agent.memory-shards.calls}, tagged with the memory id
+ * and the outcome, so a shard that is throttled or slow stands out from the others.
+ */
+class ShardMetricsInterceptor implements ExecutionInterceptor {
+
+    private static final ExecutionAttribute<Long> START = new ExecutionAttribute<>("MemoryShardCallStart");
+
+    private final Timer success;
+    private final Timer failure;
+    private final Timer throttled;
+
+    ShardMetricsInterceptor(MeterRegistry meterRegistry, String memoryId) {
+        this.success = meterRegistry.timer("agent.memory-shards.calls", "memory", memoryId, "outcome", "success");
+        this.failure = meterRegistry.timer("agent.memory-shards.calls", "memory", memoryId, "outcome", "failure");
+        this.throttled = meterRegistry.timer("agent.memory-shards.calls", "memory", memoryId, "outcome", "throttled");
+    }
+
+    @Override
+    public void beforeExecution(Context.BeforeExecution context, ExecutionAttributes attributes) {
+        attributes.putAttribute(START, System.nanoTime());
+    }
+
+    @Override
+    public void afterExecution(Context.AfterExecution context, ExecutionAttributes attributes) {
+        record(success, attributes);
+    }
+
+    @Override
+    public void onExecutionFailure(Context.FailedExecution context, ExecutionAttributes attributes) {
+        boolean isThrottled = context.exception() instanceof SdkServiceException e && e.isThrottlingException();
+        record(isThrottled ? throttled : failure, attributes);
+    }
+
+    private static void record(Timer timer, ExecutionAttributes attributes) {
+        Long start = attributes.getAttribute(START);
+        if (start != null) {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package dev.jettro.agent.sharding;
+
+import dev.jettro.agent.memory.StrategySnapshot;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.bedrockagentcorecontrol.BedrockAgentCoreControlClient;
+
+/**
+ * The long-term memory strategies of every memory shard. Each memory resource has strategy ids of its own, so the
+ * namespaces of an actor depend on its shard.
+ * <p>
+ * Strategies are read while the agent starts, never on the request path: those of the memory of the
+ * auto-configuration from the {@link StrategySnapshot} when there is one, the others from the control plane, all
+ * shards in parallel. A shard whose strategies could not be read has none, so its actors get no long-term records,
+ * and is read again in the background when it is used after {@code agent.memory-shards.strategy-retry-delay}. Like
+ * the memory advisors of the primary memory, a restart picks up changed strategies.
+ */
+@Component
+public class ShardStrategies {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardStrategies.class);
+
+    private final BedrockAgentCoreControlClient controlClient;
+    private final Duration retryDelay;
+    private final Map<String, Discovered> strategies = new ConcurrentHashMap<>();
+
+    public ShardStrategies(BedrockAgentCoreControlClient controlClient, MemoryShards shards,
+                           MemoryShardProperties properties,
+                           @Value("${agent.memory-snapshot.enabled:true}") boolean snapshotEnabled,
+                           @Value("${agent.memory-snapshot.path:}") String snapshotPath) {
+        this.controlClient = controlClient;
+        this.retryDelay = properties.strategyRetryDelay();
+        StrategySnapshot snapshot = snapshotEnabled ? snapshot(snapshotPath) : null;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (MemoryShard shard : shards.all()) {
+                if (snapshot != null && snapshot.memoryId().equals(shard.memoryId())) {
+                    strategies.put(shard.memoryId(), new Discovered(snapshot.strategies(), null));
+                } else {
+                    executor.execute(() -> discover(shard.memoryId()));
+                }
+            }
+        }
+    }
+
+    public List<StrategySnapshot.Strategy> of(MemoryShard shard) {
+        Discovered discovered = strategies.get(shard.memoryId());
+        if (discovered == null) {
+            return List.of();
+        }
+        if (discovered.retryAt() != null && Instant.now().isAfter(discovered.retryAt())
+                && strategies.replace(shard.memoryId(), discovered, new Discovered(List.of(), Instant.MAX))) {
+            Thread.ofVirtual().name("shard-strategies").start(() -> discover(shard.memoryId()));
+        }
+        return discovered.strategies();
+    }
+
+    private void discover(String memoryId) {
+        try {
+            List<StrategySnapshot.Strategy> discovered = StrategySnapshot.of(
+                    controlClient.getMemory(request -> request.memoryId(memoryId)).memory()).strategies();
+            strategies.put(memoryId, new Discovered(discovered, null));
+        } catch (RuntimeException e) {
+            logger.warn("Reading the strategies of memory {} failed, its actors get no long-term records until it "
+                    + "is read again", memoryId, e);
+            strategies.put(memoryId, new Discovered(List.of(), Instant.now().plus(retryDelay)));
+        }
+    }
+
+    private static StrategySnapshot snapshot(String path) {
+        try {
+            return StrategySnapshot.load(path);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Cannot read memory strategy snapshot, reading the strategies from the control plane", e);
+            return null;
+        }
+    }
+
+    /**
+     * @param strategies Strategies of the memory, empty when they could not be read
+     * @param retryAt    When to read them again, null once they were read
+     */
+    private record Discovered(List<StrategySnapshot.Strategy> strategies, Instant retryAt) {
+    }
+}
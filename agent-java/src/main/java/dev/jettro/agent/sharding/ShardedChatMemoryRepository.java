@@ -0,0 +1,156 @@
+package dev.jettro.agent.sharding;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+import software.amazon.awssdk.services.bedrockagentcore.model.Content;
+import software.amazon.awssdk.services.bedrockagentcore.model.Event;
+import software.amazon.awssdk.services.bedrockagentcore.model.PayloadType;
+import software.amazon.awssdk.services.bedrockagentcore.model.Role;
+
+/**
+ * Chat memory repository that writes the short-term memory of a conversation to the memory shard of its actor. Reads
+ * are left to the repository it wraps, which must read from the shards too: the {@code PipelinedChatMemoryRepository}.
+ * <p>
+ * The chat memory saves the whole window of a conversation, of which only the messages after the last saved or read
+ * window are new. Those become one event each, user and assistant messages only, as the AgentCore repository stores
+ * them. The last window of at most {@code maxConversations} conversations is kept to find the new messages; for any
+ * other conversation the window is read first.
+ */
+public class ShardedChatMemoryRepository implements ChatMemoryRepository {
+
+    private final ChatMemoryRepository delegate;
+    private final MemoryShards shards;
+    private final String defaultSession;
+    private final Map<String, List<Message>> windows;
+
+    public ShardedChatMemoryRepository(ChatMemoryRepository delegate, MemoryShards shards, String defaultSession,
+                                       int maxConversations) {
+        this.delegate = delegate;
+        this.shards = shards;
+        this.defaultSession = defaultSession;
+        this.windows = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, List<Message>> eldest) {
+                return size() > maxConversations;
+            }
+        };
+    }
+
+    @Override
+    public List<String> findConversationIds() {
+        return delegate.findConversationIds();
+    }
+
+    @Override
+    public List<Message> findByConversationId(String conversationId) {
+        List<Message> messages = delegate.findByConversationId(conversationId);
+        remember(conversationId, messages);
+        return messages;
+    }
+
+    @Override
+    public void saveAll(String conversationId, List<Message> messages) {
+        List<Message> previous;
+        synchronized (windows) {
+            previous = windows.get(conversationId);
+        }
+        if (previous == null) {
+            previous = delegate.findByConversationId(conversationId);
+        }
+        List<Message> added = messages.subList(overlap(previous, messages), messages.size());
+
+        String[] actorAndSession = actorAndSession(conversationId);
+        MemoryShard shard = shards.forActor(actorAndSession[0]);
+        // Events of a session are ordered by their timestamp, one millisecond apart keeps the order of the messages
+        Instant timestamp = Instant.now();
+        for (Message message : added) {
+            Role role = role(message.getMessageType());
+            if (role == null || message.getText() == null) {
+                continue;
+            }
+            Instant eventTimestamp = timestamp;
+            shard.client().createEvent(request -> request
+                    .memoryId(shard.memoryId())
+                    .actorId(actorAndSession[0])
+                    .sessionId(actorAndSession[1])
+                    .eventTimestamp(eventTimestamp)
+                    .payload(PayloadType.fromConversational(conversational -> conversational
+                            .role(role)
+                            .content(Content.fromText(message.getText())))));
+            timestamp = timestamp.plusMillis(1);
+        }
+        remember(conversationId, messages);
+    }
+
+    @Override
+    public void deleteByConversationId(String conversationId) {
+        synchronized (windows) {
+            windows.remove(conversationId);
+        }
+        String[] actorAndSession = actorAndSession(conversationId);
+        MemoryShard shard = shards.forActor(actorAndSession[0]);
+        for (Event event : shard.client().listEventsPaginator(request -> request
+                        .memoryId(shard.memoryId())
+                        .actorId(actorAndSession[0])
+                        .sessionId(actorAndSession[1])
+                        .includePayloads(false)
+                        .maxResults(100))
+                .events()) {
+            shard.client().deleteEvent(request -> request
+                    .memoryId(shard.memoryId())
+                    .actorId(actorAndSession[0])
+                    .sessionId(actorAndSession[1])
+                    .eventId(event.eventId()));
+        }
+    }
+
+    private void remember(String conversationId, List<Message> messages) {
+        synchronized (windows) {
+            windows.put(conversationId, List.copyOf(messages));
+        }
+    }
+
+    /**
+     * The length of the longest tail of the previous window the new window starts with.
+     */
+    static int overlap(List<Message> previous, List<Message> messages) {
+        for (int length = Math.min(previous.size(), messages.size()); length > 0; length--) {
+            if (same(previous.subList(previous.size() - length, previous.size()), messages.subList(0, length))) {
+                return length;
+            }
+        }
+        return 0;
+    }
+
+    private static boolean same(List<Message> a, List<Message> b) {
+        for (int i = 0; i < a.size(); i++) {
+            if (a.get(i).getMessageType() != b.get(i).getMessageType()
+                    || !Objects.equals(a.get(i).getText(), b.get(i).getText())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Role role(MessageType type) {
+        return switch (type) {
+            case USER -> Role.USER;
+            case ASSISTANT -> Role.ASSISTANT;
+            default -> null;
+        };
+    }
+
+    private String[] actorAndSession(String conversationId) {
+        int separator = conversationId.indexOf(':');
+        if (separator < 0) {
+            return new String[]{conversationId, defaultSession};
+        }
+        return new String[]{conversationId.substring(0, separator), conversationId.substring(separator + 1)};
+    }
+}
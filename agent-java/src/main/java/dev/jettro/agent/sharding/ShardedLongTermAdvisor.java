@@ -0,0 +1,150 @@
+package dev.jettro.agent.sharding;
+
+import dev.jettro.agent.deadline.Deadline;
+import dev.jettro.agent.memory.StrategySnapshot;
+import dev.jettro.agent.vectorindex.LocalMemoryAdvisor;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisorChain;
+import org.springframework.ai.chat.memory.ChatMemory;
+import software.amazon.awssdk.services.bedrockagentcore.model.MemoryRecordSummary;
+import software.amazon.awssdk.services.bedrockagentcore.model.RetrieveMemoryRecordsResponse;
+
+/**
+ * Retrieves the long-term memory records closest to the prompt from the memory shard of the actor, in place of the
+ * AgentCore long-term advisors, which are bound to a single memory. Every namespace of the strategies of that memory is
+ * searched for the actor and session of the conversation, {@code topK} records each, all namespaces in parallel on the
+ * async client of the shard and no longer than the {@link Deadline} allows. Without sharding there is one shard, and
+ * this advisor is used when the {@link LocalMemoryAdvisor} is enabled: after that advisor answered, only the
+ * session-level namespaces, which the local index does not cover, are searched.
+ * <p>
+ * Like the {@code LocalMemoryAdvisor}, the records go into the user message so the cached system prompt stays the
+ * same.
+ */
+public class ShardedLongTermAdvisor implements CallAdvisor {
+
+    private final MemoryShards shards;
+    private final ShardStrategies strategies;
+    private final int topK;
+    private final String defaultSession;
+    private final int order;
+
+    public ShardedLongTermAdvisor(MemoryShards shards, ShardStrategies strategies, int topK, String defaultSession,
+                                  int order) {
+        this.shards = shards;
+        this.strategies = strategies;
+        this.topK = topK;
+        this.defaultSession = defaultSession;
+        this.order = order;
+    }
+
+    @Override
+    public ChatClientResponse adviseCall(ChatClientRequest request, CallAdvisorChain chain) {
+        Object conversationId = request.context().get(ChatMemory.CONVERSATION_ID);
+        String prompt = request.prompt().getUserMessage().getText();
+        if (conversationId == null || prompt == null || prompt.isBlank()) {
+            return chain.nextCall(request);
+        }
+
+        boolean localAnswered = Boolean.TRUE.equals(request.context().get(LocalMemoryAdvisor.ANSWERED));
+        List<String> records = retrieve(conversationId.toString(), prompt, localAnswered);
+        if (records.isEmpty()) {
+            return chain.nextCall(request);
+        }
+        String memories = "\n\nWhat you remember about the user:\n- " + String.join("\n- ", records);
+        return chain.nextCall(request.mutate()
+                .prompt(request.prompt().augmentUserMessage(user -> user.mutate()
+                        .text(user.getText() + memories)
+                        .build()))
+                .build());
+    }
+
+    @Override
+    public String getName() {
+        return "ShardedLongTermAdvisor";
+    }
+
+    @Override
+    public int getOrder() {
+        return order;
+    }
+
+    private List<String> retrieve(String conversationId, String prompt, boolean localAnswered) {
+        int separator = conversationId.indexOf(':');
+        String actorId = separator < 0 ? conversationId : conversationId.substring(0, separator);
+        String sessionId = separator < 0 ? defaultSession : conversationId.substring(separator + 1);
+        MemoryShard shard = shards.forActor(actorId);
+
+        List<CompletableFuture<RetrieveMemoryRecordsResponse>> retrievals = new ArrayList<>();
+        for (StrategySnapshot.Strategy strategy : strategies.of(shard)) {
+            for (String template : strategy.namespaces()) {
+                if (localAnswered && StrategySnapshot.Strategy.actorLevel(template)) {
+                    continue;
+                }
+                String namespace = template
+                        .replace("{actorId}", actorId)
+                        .replace("{sessionId}", sessionId)
+                        .replace("{memoryStrategyId}", strategy.strategyId())
+                        .replace("{strategyId}", strategy.strategyId());
+                retrievals.add(shard.asyncClient().retrieveMemoryRecords(request -> request
+                        .memoryId(shard.memoryId())
+                        .namespace(namespace)
+                        .searchCriteria(criteria -> criteria
+                                .searchQuery(prompt)
+                                .memoryStrategyId(strategy.strategyId())
+                                .topK(topK))));
+            }
+        }
+        await(CompletableFuture.allOf(retrievals.toArray(CompletableFuture[]::new)), actorId);
+
+        // In the order of the strategies and namespaces, so the prompt is the same for the same records
+        Set<String> texts = new LinkedHashSet<>();
+        for (CompletableFuture<RetrieveMemoryRecordsResponse> retrieval : retrievals) {
+            for (MemoryRecordSummary record : retrieval.join().memoryRecordSummaries()) {
+                if (record.content() != null && record.content().text() != null) {
+                    texts.add(record.content().text());
+                }
+            }
+        }
+        return new ArrayList<>(texts);
+    }
+
+    /**
+     * Waits for the retrievals, no longer than the {@link Deadline} of the invocation allows
+     */
+    private static void await(CompletableFuture<Void> retrievals, String actorId) {
+        Optional<Duration> remaining = Deadline.current().map(Deadline::remaining);
+        try {
+            if (remaining.isPresent()) {
+                retrievals.get(Math.max(0, remaining.get().toNanos()), TimeUnit.NANOSECONDS);
+            } else {
+                retrievals.get();
+            }
+        } catch (TimeoutException e) {
+            retrievals.cancel(true);
+            throw new IllegalStateException("Long-term records of " + actorId + " not retrieved before the deadline",
+                    e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Retrieving the long-term records of " + actorId + " failed",
+                    e.getCause());
+        } catch (InterruptedException e) {
+            retrievals.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while retrieving the long-term records of " + actorId, e);
+        }
+    }
+}
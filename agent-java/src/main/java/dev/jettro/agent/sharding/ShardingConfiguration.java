@@ -0,0 +1,63 @@
+package dev.jettro.agent.sharding;
+
+import dev.jettro.agent.aws.AwsHttpClients;
+import dev.jettro.agent.resilience.DependencyGuards;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import software.amazon.awssdk.services.bedrockagentcore.BedrockAgentCoreAsyncClient;
+import software.amazon.awssdk.services.bedrockagentcore.BedrockAgentCoreClient;
+
+/**
+ * Creates the {@link MemoryShards}. Without {@code agent.memory-shards.memory-ids} the single shard is the configured
+ * memory with the shared memory clients. With them, every memory gets clients on a connection pool of its own,
+ * {@code memory:<id>} in {@code agent.aws-clients.pools}, and a circuit breaker and bulkhead of its own, so a throttled memory
+ * does not take the connections or the breaker of the others.
+ */
+@Configuration
+public class ShardingConfiguration {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardingConfiguration.class);
+
+    @Bean
+    MemoryShards memoryShards(MemoryShardProperties properties, BedrockAgentCoreClient client,
+                              BedrockAgentCoreAsyncClient asyncClient, AwsHttpClients httpClients,
+                              MeterRegistry meterRegistry,
+                              @Value("${agentcore.memory.memory-id}") String memoryId) {
+        if (properties.memoryIds().isEmpty()) {
+            return new MemoryShards(List.of(new MemoryShard(memoryId, client, asyncClient, DependencyGuards.MEMORY)),
+                    properties.virtualNodes(), false);
+        }
+
+        List<MemoryShard> shards = new ArrayList<>();
+        for (String id : properties.memoryIds()) {
+            String pool = AwsHttpClients.MEMORY + ":" + id;
+            String dependency = DependencyGuards.MEMORY + ":" + id;
+            ShardMetricsInterceptor metrics = new ShardMetricsInterceptor(meterRegistry, id);
+            shards.add(new MemoryShard(id,
+                    BedrockAgentCoreClient.builder()
+                            .httpClient(httpClients.httpClient(pool))
+                            .overrideConfiguration(config -> {
+                                httpClients.configure(config);
+                                config.addExecutionInterceptor(metrics);
+                            })
+                            .build(),
+                    BedrockAgentCoreAsyncClient.builder()
+                            .httpClient(httpClients.asyncHttpClient(pool))
+                            .overrideConfiguration(config -> {
+                                httpClients.configure(config);
+                                config.addExecutionInterceptor(metrics);
+                            })
+                            .build(),
+                    dependency));
+        }
+        logger.info("Sharding actors over {} memories with {} virtual nodes each", shards.size(),
+                properties.virtualNodes());
+        return new MemoryShards(shards, properties.virtualNodes(), true);
+    }
+}
@@ -0,0 +1,45 @@
+package dev.jettro.agent.usage;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.Base64;
+
+/**
+ * The actor usage is attributed to: the subject of the JWT the AgentCore Runtime authorized the invocation with, the
+ * same {@code sub} claim the backend uses as user id. The runtime validates the token before the invocation reaches
+ * the agent and forwards it because {@code Authorization} is on its header allowlist, so the claims are read without
+ * checking the signature again. The actor in the request body is chosen by the caller and is not used here.
+ */
+public final class AuthenticatedActor {
+
+    /**
+     * Actor of invocations without a readable bearer token, for instance those signed with SigV4
+     */
+    public static final String UNAUTHENTICATED = "unauthenticated";
+
+    private static final String BEARER = "Bearer ";
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private AuthenticatedActor() {
+    }
+
+    /**
+     * @param authorization The {@code Authorization} header of the invocation, may be null
+     */
+    public static String of(String authorization) {
+        if (authorization == null || !authorization.regionMatches(true, 0, BEARER, 0, BEARER.length())) {
+            return UNAUTHENTICATED;
+        }
+        String[] parts = authorization.substring(BEARER.length()).trim().split("\\.");
+        if (parts.length != 3) {
+            return UNAUTHENTICATED;
+        }
+        try {
+            JsonNode subject = OBJECT_MAPPER.readTree(Base64.getUrlDecoder().decode(parts[1])).path("sub");
+            return subject.isTextual() && !subject.asText().isBlank() ? subject.asText() : UNAUTHENTICATED;
+        } catch (IOException | IllegalArgumentException e) {
+            return UNAUTHENTICATED;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package dev.jettro.agent.usage;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Usage of the heaviest actors, with a fixed number of tracked actors, using the Space-Saving algorithm.
+ * <p>
+ * A call of a tracked actor only touches that actor's adders. A call of an untracked actor takes the slot of the
+ * tracked actor with the fewest tokens: the usage of the evicted actor moves to the "other" bucket, and the newcomer
+ * inherits the evicted token count as its error. An actor that uses more than {@code 1/capacity} of all tokens is
+ * therefore never evicted, so the hot tenants are always in the list. A call that races with the eviction of its
+ * actor can be missing from the totals, which is fine for finding hot tenants.
+ */
+class TopActors {
+
+    private final int capacity;
+    private final ConcurrentHashMap<String, Slot> slots = new ConcurrentHashMap<>();
+    private final UsageCounters other = new UsageCounters();
+
+    TopActors(int capacity) {
+        this.capacity = capacity;
+    }
+
+    void add(String actor, UsageSample sample) {
+        Slot slot = slots.get(actor);
+        if (slot == null) {
+            slot = admit(actor);
+        }
+        slot.counters.add(sample);
+    }
+
+    UsageReport.Totals other() {
+        return other.totals("other", 0);
+    }
+
+    List<UsageReport.Totals> top(int limit) {
+        return slots.entrySet().stream()
+                .sorted(Comparator.comparingLong(
+                        (Map.Entry<String, Slot> entry) -> entry.getValue().rank()).reversed())
+                .limit(limit)
+                .map(entry -> entry.getValue().counters.totals(entry.getKey(), entry.getValue().error))
+                .toList();
+    }
+
+    private synchronized Slot admit(String actor) {
+        Slot existing = slots.get(actor);
+        if (existing != null) {
+            return existing;
+        }
+        long error = 0;
+        if (slots.size() >= capacity) {
+            // Scanning is linear, but only an untracked actor pays for it
+            var smallest = slots.entrySet().stream()
+                    .min(Comparator.comparingLong(entry -> entry.getValue().rank()))
+                    .orElseThrow();
+            slots.remove(smallest.getKey());
+            other.addAll(smallest.getValue().counters);
+            error = smallest.getValue().rank();
+        }
+        Slot slot = new Slot(error);
+        slots.put(actor, slot);
+        return slot;
+    }
+
+    private static final class Slot {
+        private final UsageCounters counters = new UsageCounters();
+        private final long error;
+
+        Slot(long error) {
+            this.error = error;
+        }
+
+        long rank() {
+            return counters.tokens() + error;
+        }
+    }
+}
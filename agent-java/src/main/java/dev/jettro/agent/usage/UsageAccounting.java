@@ -0,0 +1,77 @@
+package dev.jettro.agent.usage;
+
+import dev.jettro.agent.routing.ModelTier;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Token usage, latency and cost of the model calls per actor and per model. The actor is the
+ * {@link AuthenticatedActor} of the invocation, never the one the caller put in the request. Actors are tracked in
+ * {@link TopActors}, so the number of entries stays bounded whatever the number of users; models are bounded by the
+ * routing tiers.
+ * The totals are exposed by the {@link UsageEndpoint} and a summary is logged every {@code summaryInterval}.
+ */
+@Component
+public class UsageAccounting {
+
+    private static final Logger logger = LoggerFactory.getLogger(UsageAccounting.class);
+
+    private final UsageProperties properties;
+    private final TopActors actors;
+    private final Map<String, UsageCounters> models = new ConcurrentHashMap<>();
+
+    public UsageAccounting(UsageProperties properties) {
+        this.properties = properties;
+        this.actors = new TopActors(properties.topActors());
+    }
+
+    public void record(String actor, ModelTier tier, Duration latency, ChatResponse response) {
+        if (!properties.enabled()) {
+            return;
+        }
+        UsageSample sample = UsageSample.of(tier, latency, response);
+        actors.add(actor == null ? AuthenticatedActor.UNAUTHENTICATED : actor, sample);
+        models.computeIfAbsent(tier.model(), model -> new UsageCounters()).add(sample);
+    }
+
+    public UsageReport report(int limit) {
+        return new UsageReport(actors.top(limit), actors.other(), models.entrySet().stream()
+                .map(entry -> entry.getValue().totals(entry.getKey(), 0))
+                .sorted(Comparator.comparingDouble(UsageReport.Totals::cost).reversed())
+                .toList());
+    }
+
+    @Scheduled(fixedRateString = "${agent.usage.summary-interval:5m}",
+            initialDelayString = "${agent.usage.summary-interval:5m}")
+    public void logSummary() {
+        if (!properties.enabled()) {
+            return;
+        }
+        UsageReport report = report(properties.summarySize());
+        if (report.actors().isEmpty()) {
+            return;
+        }
+        StringBuilder summary = new StringBuilder("Model usage since start, top actors by tokens:");
+        for (UsageReport.Totals actor : report.actors()) {
+            summary.append(line(actor));
+        }
+        summary.append(line(report.other()));
+        for (UsageReport.Totals model : report.models()) {
+            summary.append(line(model));
+        }
+        logger.info(summary.toString());
+    }
+
+    private static String line(UsageReport.Totals totals) {
+        return "%n  %-40s %6d calls %10d in %8d out %10d cached %6d ms avg $%.4f".formatted(totals.name(),
+                totals.calls(), totals.inputTokens(), totals.outputTokens(), totals.cacheReadTokens(),
+                totals.avgLatencyMs(), totals.cost());
+    }
+}
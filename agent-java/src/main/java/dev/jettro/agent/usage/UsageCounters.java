@@ -0,0 +1,50 @@
+package dev.jettro.agent.usage;
+
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Usage totals of one actor or model. The adders stripe their cells over contending threads, so concurrent calls of
+ * the same actor never wait on each other.
+ */
+class UsageCounters {
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder inputTokens = new LongAdder();
+    private final LongAdder outputTokens = new LongAdder();
+    private final LongAdder cacheReadTokens = new LongAdder();
+    private final LongAdder cacheWriteTokens = new LongAdder();
+    private final LongAdder latencyNanos = new LongAdder();
+    private final DoubleAdder cost = new DoubleAdder();
+
+    void add(UsageSample sample) {
+        calls.increment();
+        inputTokens.add(sample.inputTokens());
+        outputTokens.add(sample.outputTokens());
+        cacheReadTokens.add(sample.cacheReadTokens());
+        cacheWriteTokens.add(sample.cacheWriteTokens());
+        latencyNanos.add(sample.latency().toNanos());
+        cost.add(sample.cost());
+    }
+
+    void addAll(UsageCounters other) {
+        calls.add(other.calls.sum());
+        inputTokens.add(other.inputTokens.sum());
+        outputTokens.add(other.outputTokens.sum());
+        cacheReadTokens.add(other.cacheReadTokens.sum());
+        cacheWriteTokens.add(other.cacheWriteTokens.sum());
+        latencyNanos.add(other.latencyNanos.sum());
+        cost.add(other.cost.sum());
+    }
+
+    long tokens() {
+        return inputTokens.sum() + outputTokens.sum();
+    }
+
+    UsageReport.Totals totals(String name, long error) {
+        long callCount = calls.sum();
+        return new UsageReport.Totals(name, callCount, inputTokens.sum(), outputTokens.sum(), cacheReadTokens.sum(),
+                cacheWriteTokens.sum(), callCount == 0 ? 0 : latencyNanos.sum() / callCount / 1_000_000,
+                cost.sum(), error);
+    }
+}
@@ -0,0 +1,28 @@
+package dev.jettro.agent.usage;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint {@code /actuator/usage} with token usage and cost of the top actors and per model. The optional
+ * {@code limit} parameter sets the number of actors, all tracked actors by default.
+ */
+@Component
+@Endpoint(id = "usage")
+public class UsageEndpoint {
+
+    private final UsageAccounting accounting;
+    private final UsageProperties properties;
+
+    public UsageEndpoint(UsageAccounting accounting, UsageProperties properties) {
+        this.accounting = accounting;
+        this.properties = properties;
+    }
+
+    @ReadOperation
+    public UsageReport usage(@Nullable Integer limit) {
+        return accounting.report(limit == null ? properties.topActors() : limit);
+    }
+}
@@ -0,0 +1,21 @@
+package dev.jettro.agent.usage;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuration of the token usage and cost accounting per actor and per model.
+ *
+ * @param enabled         Account the usage of every model call.
+ * @param topActors       Number of actors tracked individually, all others are added up in the "other" bucket.
+ * @param summaryInterval Interval of the usage summary in the log.
+ * @param summarySize     Number of actors in the logged summary.
+ */
+@ConfigurationProperties(prefix = "agent.usage")
+public record UsageProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("200") int topActors,
+        @DefaultValue("5m") Duration summaryInterval,
+        @DefaultValue("10") int summarySize) {
+}
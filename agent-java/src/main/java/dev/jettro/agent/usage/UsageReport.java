@@ -0,0 +1,29 @@
+package dev.jettro.agent.usage;
+
+import java.util.List;
+
+/**
+ * Usage per actor and per model as exposed by the {@code usage} actuator endpoint.
+ *
+ * @param actors Tracked actors, most tokens first.
+ * @param other  Totals of all actors that are not tracked individually.
+ * @param models Usage per model.
+ */
+public record UsageReport(List<Totals> actors, Totals other, List<Totals> models) {
+
+    /**
+     * @param name             Actor or model id.
+     * @param calls            Number of model calls.
+     * @param inputTokens      Input tokens, including the ones read from the prompt cache.
+     * @param outputTokens     Output tokens.
+     * @param cacheReadTokens  Input tokens read from the prompt cache.
+     * @param cacheWriteTokens Input tokens written to the prompt cache.
+     * @param avgLatencyMs     Average latency of a model call.
+     * @param cost             Cost in USD, from the prices of the model tier.
+     * @param tokenError       Tokens this actor may have been credited before it was tracked; its rank is based on
+     *                         its tokens plus this error.
+     */
+    public record Totals(String name, long calls, long inputTokens, long outputTokens, long cacheReadTokens,
+                         long cacheWriteTokens, long avgLatencyMs, double cost, long tokenError) {
+    }
+}
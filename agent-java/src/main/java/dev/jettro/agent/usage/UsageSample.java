@@ -0,0 +1,23 @@
+package dev.jettro.agent.usage;
+
+import dev.jettro.agent.routing.ModelTier;
+import dev.jettro.agent.routing.TokenCounts;
+import java.time.Duration;
+import org.springframework.ai.chat.model.ChatResponse;
+
+/**
+ * Token usage, latency and cost of a single model call.
+ */
+public record UsageSample(long inputTokens, long outputTokens, long cacheReadTokens, long cacheWriteTokens,
+                          Duration latency, double cost) {
+
+    public static UsageSample of(ModelTier tier, Duration latency, ChatResponse response) {
+        TokenCounts tokens = TokenCounts.of(response);
+        return new UsageSample(tokens.input(), tokens.output(), tokens.cacheRead(), tokens.cacheWrite(), latency,
+                tier.cost(tokens.input(), tokens.output()));
+    }
+
+    public long tokens() {
+        return inputTokens + outputTokens;
+    }
+}
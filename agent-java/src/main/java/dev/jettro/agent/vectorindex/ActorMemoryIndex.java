@@ -0,0 +1,114 @@
+package dev.jettro.agent.vectorindex;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * The long-term memory records of one actor with their HNSW index. Searches share a read lock, adding records takes
+ * the write lock. Records that disappeared from the memory service stay in the graph but are filtered from results.
+ */
+class ActorMemoryIndex {
+
+    private final HnswIndex index;
+    private final List<String> texts = new ArrayList<>();
+    private final Map<String, Integer> nodeByRecordId = new HashMap<>();
+    private final BitSet removed = new BitSet();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private volatile Instant refreshedAt;
+    private volatile long bytes;
+
+    ActorMemoryIndex(HnswIndex index) {
+        this.index = index;
+        this.refreshedAt = Instant.now();
+    }
+
+    boolean contains(String recordId) {
+        lock.readLock().lock();
+        try {
+            return nodeByRecordId.containsKey(recordId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    void add(String recordId, String text, float[] embedding) {
+        lock.writeLock().lock();
+        try {
+            if (nodeByRecordId.containsKey(recordId)) {
+                return;
+            }
+            int node = index.add(embedding);
+            texts.add(text);
+            nodeByRecordId.put(recordId, node);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Marks every record that is not in {@code current} as removed.
+     */
+    void retain(Set<String> current) {
+        lock.writeLock().lock();
+        try {
+            nodeByRecordId.forEach((recordId, node) -> {
+                if (!current.contains(recordId)) {
+                    removed.set(node);
+                }
+            });
+            bytes = index.bytes() + texts.stream().mapToLong(text -> 40 + 2L * text.length()).sum();
+            refreshedAt = Instant.now();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    List<String> search(float[] query, int k, int ef, float minScore) {
+        lock.readLock().lock();
+        try {
+            // Ask for a few more, removed records are filtered afterward
+            List<String> results = new ArrayList<>(k);
+            for (HnswIndex.Hit hit : index.search(query, k + removed.cardinality(), ef)) {
+                if (hit.score() >= minScore && !removed.get(hit.node()) && results.size() < k) {
+                    results.add(texts.get(hit.node()));
+                }
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    boolean isStale(Instant now, Duration refreshInterval) {
+        return refreshedAt.plus(refreshInterval).isBefore(now);
+    }
+
+    /**
+     * Claims the refresh of this index, false when another thread is already refreshing it.
+     */
+    boolean startRefresh() {
+        return refreshing.compareAndSet(false, true);
+    }
+
+    void endRefresh() {
+        refreshing.set(false);
+    }
+
+    int dimensions() {
+        return index.dimensions();
+    }
+
+    long bytes() {
+        return bytes;
+    }
+}
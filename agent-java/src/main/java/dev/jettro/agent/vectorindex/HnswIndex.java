@@ -0,0 +1,252 @@
+package dev.jettro.agent.vectorindex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+
+/**
+ * Hierarchical navigable small world graph over normalized float vectors, for approximate nearest neighbour search by
+ * cosine similarity.
+ * <p>
+ * Vectors are stored back to back in one {@code float[]} and the links of a node as one {@code int[]} per layer, so
+ * an index of a few thousand records is a handful of primitive arrays instead of an object per vector. Nodes are
+ * never removed; callers filter results of deleted records. Not thread-safe: adding needs exclusive access, searches
+ * may run concurrently with each other.
+ */
+public class HnswIndex {
+
+    private final int dimensions;
+    private final int maxLinks;
+    private final int maxLinksLayer0;
+    private final int efConstruction;
+    private final double levelFactor;
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    private float[] vectors;
+    private int[][][] links;
+    private int size;
+    private int entryPoint = -1;
+    private int topLayer = -1;
+
+    public HnswIndex(int dimensions, int maxLinks, int efConstruction, int initialCapacity) {
+        this.dimensions = dimensions;
+        this.maxLinks = maxLinks;
+        this.maxLinksLayer0 = maxLinks * 2;
+        this.efConstruction = efConstruction;
+        this.levelFactor = 1 / Math.log(maxLinks);
+        int capacity = Math.max(16, initialCapacity);
+        this.vectors = new float[capacity * dimensions];
+        this.links = new int[capacity][][];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int dimensions() {
+        return dimensions;
+    }
+
+    /**
+     * Adds a vector and returns its node id, ids are assigned in insertion order starting at zero.
+     */
+    public int add(float[] vector) {
+        if (vector.length != dimensions) {
+            throw new IllegalArgumentException("Expected " + dimensions + " dimensions, got " + vector.length);
+        }
+        int node = size;
+        ensureCapacity(node + 1);
+        normalizeInto(vector, node);
+        int layer = (int) (-Math.log(1 - random.nextDouble()) * levelFactor);
+        links[node] = new int[layer + 1][0];
+        size++;
+
+        if (entryPoint < 0) {
+            entryPoint = node;
+            topLayer = layer;
+            return node;
+        }
+
+        int current = entryPoint;
+        for (int l = topLayer; l > layer; l--) {
+            current = greedyClosest(node, current, l);
+        }
+        for (int l = Math.min(layer, topLayer); l >= 0; l--) {
+            List<Candidate> candidates = searchLayer(vectors, node * dimensions, current, efConstruction, l);
+            int limit = l == 0 ? maxLinksLayer0 : maxLinks;
+            int[] selected = candidates.stream()
+                    .limit(limit)
+                    .mapToInt(Candidate::node)
+                    .toArray();
+            links[node][l] = selected;
+            for (int neighbour : selected) {
+                connect(neighbour, node, l, limit);
+            }
+            current = candidates.getFirst().node();
+        }
+        if (layer > topLayer) {
+            entryPoint = node;
+            topLayer = layer;
+        }
+        return node;
+    }
+
+    /**
+     * Returns up to {@code k} nodes closest to the query, most similar first.
+     */
+    public List<Hit> search(float[] query, int k, int ef) {
+        if (entryPoint < 0) {
+            return List.of();
+        }
+        float[] normalized = normalize(query);
+        int current = entryPoint;
+        for (int l = topLayer; l > 0; l--) {
+            current = greedyClosest(normalized, 0, current, l);
+        }
+        List<Candidate> candidates = searchLayer(normalized, 0, current, Math.max(ef, k), 0);
+        List<Hit> hits = new ArrayList<>(Math.min(k, candidates.size()));
+        for (int i = 0; i < candidates.size() && i < k; i++) {
+            Candidate candidate = candidates.get(i);
+            hits.add(new Hit(candidate.node(), 1 - candidate.distance()));
+        }
+        return hits;
+    }
+
+    /**
+     * Approximate heap size of the vectors and links.
+     */
+    public long bytes() {
+        long bytes = (long) vectors.length * Float.BYTES;
+        for (int node = 0; node < size; node++) {
+            for (int[] layer : links[node]) {
+                bytes += 16 + (long) layer.length * Integer.BYTES;
+            }
+        }
+        return bytes;
+    }
+
+    private void connect(int node, int neighbour, int layer, int limit) {
+        int[] current = links[node][layer];
+        int[] extended = Arrays.copyOf(current, current.length + 1);
+        extended[current.length] = neighbour;
+        if (extended.length > limit) {
+            // Keep the closest links, the farthest one is dropped
+            int base = node * dimensions;
+            extended = Arrays.stream(extended)
+                    .boxed()
+                    .sorted(Comparator.comparingDouble(other -> distance(vectors, base, other)))
+                    .limit(limit)
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+        }
+        links[node][layer] = extended;
+    }
+
+    private int greedyClosest(int node, int start, int layer) {
+        return greedyClosest(vectors, node * dimensions, start, layer);
+    }
+
+    private int greedyClosest(float[] query, int offset, int start, int layer) {
+        int current = start;
+        float best = distance(query, offset, current);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            for (int neighbour : linksOf(current, layer)) {
+                float distance = distance(query, offset, neighbour);
+                if (distance < best) {
+                    best = distance;
+                    current = neighbour;
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    private List<Candidate> searchLayer(float[] query, int offset, int start, int ef, int layer) {
+        BitSet visited = new BitSet(size);
+        PriorityQueue<Candidate> toVisit = new PriorityQueue<>(Comparator.comparingDouble(Candidate::distance));
+        PriorityQueue<Candidate> nearest = new PriorityQueue<>(
+                Comparator.comparingDouble(Candidate::distance).reversed());
+
+        Candidate first = new Candidate(start, distance(query, offset, start));
+        visited.set(start);
+        toVisit.add(first);
+        nearest.add(first);
+        while (!toVisit.isEmpty()) {
+            Candidate closest = toVisit.poll();
+            if (closest.distance() > nearest.peek().distance() && nearest.size() >= ef) {
+                break;
+            }
+            for (int neighbour : linksOf(closest.node(), layer)) {
+                if (visited.get(neighbour)) {
+                    continue;
+                }
+                visited.set(neighbour);
+                float distance = distance(query, offset, neighbour);
+                if (nearest.size() < ef || distance < nearest.peek().distance()) {
+                    Candidate candidate = new Candidate(neighbour, distance);
+                    toVisit.add(candidate);
+                    nearest.add(candidate);
+                    if (nearest.size() > ef) {
+                        nearest.poll();
+                    }
+                }
+            }
+        }
+        List<Candidate> sorted = new ArrayList<>(nearest);
+        sorted.sort(Comparator.comparingDouble(Candidate::distance));
+        return sorted;
+    }
+
+    private int[] linksOf(int node, int layer) {
+        int[][] layers = links[node];
+        return layer < layers.length ? layers[layer] : new int[0];
+    }
+
+    private float distance(float[] query, int offset, int node) {
+        int base = node * dimensions;
+        float dot = 0;
+        for (int i = 0; i < dimensions; i++) {
+            dot += query[offset + i] * vectors[base + i];
+        }
+        return 1 - dot;
+    }
+
+    private void normalizeInto(float[] vector, int node) {
+        System.arraycopy(normalize(vector), 0, vectors, node * dimensions, dimensions);
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        float scale = norm == 0 ? 0 : (float) (1 / Math.sqrt(norm));
+        float[] normalized = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = vector[i] * scale;
+        }
+        return normalized;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= links.length) {
+            return;
+        }
+        int grown = Math.max(capacity, links.length + (links.length >> 1));
+        vectors = Arrays.copyOf(vectors, grown * dimensions);
+        links = Arrays.copyOf(links, grown);
+    }
+
+    public record Hit(int node, float score) {
+    }
+
+    private record Candidate(int node, float distance) {
+    }
+}
@@ -0,0 +1,73 @@
+package dev.jettro.agent.vectorindex;
+
+import dev.jettro.agent.memory.GuardedMemoryAdvisor;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisorChain;
+import org.springframework.ai.chat.memory.ChatMemory;
+
+/**
+ * Adds the long-term memory records closest to the prompt from the {@link LocalMemoryIndexes}. When it answered, it
+ * sets {@link #ANSWERED} in the request context and the remote long-term advisor skips the actor-level namespaces the
+ * index covers, while session-level namespaces such as summaries are still retrieved remotely. Until the actor's index
+ * is loaded, or when the prompt can not be embedded, the request passes untouched and the remote advisor retrieves
+ * as before.
+ * <p>
+ * The records go into the user message, not the system prompt, so the cached system prompt stays the same. The
+ * advisor must run after short-term memory stored the user message and before the long-term advisors, its order is
+ * set just before the first long-term advisor. Records it added mark the request with
+ * {@link GuardedMemoryAdvisor#CONTEXT_ADDED}.
+ */
+public class LocalMemoryAdvisor implements CallAdvisor {
+
+    public static final String ANSWERED = "agent.local-memory.answered";
+
+    private final LocalMemoryIndexes indexes;
+    private final int order;
+
+    public LocalMemoryAdvisor(LocalMemoryIndexes indexes, int order) {
+        this.indexes = indexes;
+        this.order = order;
+    }
+
+    @Override
+    public ChatClientResponse adviseCall(ChatClientRequest request, CallAdvisorChain chain) {
+        Object conversationId = request.context().get(ChatMemory.CONVERSATION_ID);
+        String prompt = request.prompt().getUserMessage().getText();
+        if (conversationId == null || prompt == null || prompt.isBlank()) {
+            return chain.nextCall(request);
+        }
+
+        Optional<List<String>> records = indexes.search(actor(conversationId.toString()), prompt);
+        if (records.isEmpty()) {
+            return chain.nextCall(request);
+        }
+        ChatClientRequest.Builder advised = request.mutate().context(ANSWERED, true);
+        if (!records.get().isEmpty()) {
+            advised.context(GuardedMemoryAdvisor.CONTEXT_ADDED, true);
+            String memories = "\n\nWhat you remember about the user:\n- " + String.join("\n- ", records.get());
+            advised.prompt(request.prompt().augmentUserMessage(user -> user.mutate()
+                    .text(user.getText() + memories)
+                    .build()));
+        }
+        return chain.nextCall(advised.build());
+    }
+
+    @Override
+    public String getName() {
+        return "LocalMemoryAdvisor";
+    }
+
+    @Override
+    public int getOrder() {
+        return order;
+    }
+
+    private static String actor(String conversationId) {
+        int separator = conversationId.indexOf(':');
+        return separator < 0 ? conversationId : conversationId.substring(0, separator);
+    }
+}
@@ -0,0 +1,259 @@
+package dev.jettro.agent.vectorindex;
+
+import dev.jettro.agent.memory.StrategySnapshot;
+import dev.jettro.agent.sharding.MemoryShard;
+import dev.jettro.agent.sharding.MemoryShards;
+import dev.jettro.agent.sharding.ShardStrategies;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.bedrockagentcore.model.MemoryRecordSummary;
+
+/**
+ * In-process indexes over the long-term memory records of the most recently active actors.
+ * <p>
+ * The first prompt of an actor loads its records from the actor-level namespaces of the memory strategies in the
+ * background and still goes to the memory service; later prompts are answered from the local index. An index older
+ * than {@code refreshInterval} is refreshed in the background: only records it does not know yet are embedded, and
+ * records that are gone are hidden. When all indexes together use more than {@code memoryCap}, whole indexes of the
+ * least recently used actors are dropped.
+ * <p>
+ * Session-level namespaces, such as conversation summaries, are not indexed. Records are read from the memory shard
+ * of the actor.
+ * <p>
+ * A failed load is not retried for {@code loadRetryDelay}, so an actor whose records can not be listed or embedded
+ * does not reload on every prompt; retrieval stays remote meanwhile. A failing embedding of the prompt also leaves
+ * retrieval to the remote advisor.
+ */
+@Component
+public class LocalMemoryIndexes {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalMemoryIndexes.class);
+
+    private static final int EMBEDDING_BATCH = 32;
+    private static final int MAX_FAILED_LOADS = 10_000;
+
+    private final LocalMemoryProperties properties;
+    private final MemoryShards shards;
+    private final ShardStrategies strategies;
+    private final EmbeddingModel embeddingModel;
+    private final Map<String, ActorMemoryIndex> indexes = new LinkedHashMap<>(64, 0.75f, true);
+    private final Set<String> loading = ConcurrentHashMap.newKeySet();
+    private final Map<String, Instant> failedLoads = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Instant> eldest) {
+            return size() > MAX_FAILED_LOADS;
+        }
+    };
+    private final Counter evictions;
+    private long bytes;
+
+    public LocalMemoryIndexes(LocalMemoryProperties properties, MemoryShards shards, ShardStrategies strategies,
+                              EmbeddingModel embeddingModel, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.shards = shards;
+        this.strategies = strategies;
+        this.embeddingModel = embeddingModel;
+        this.evictions = meterRegistry.counter("agent.local-memory.evictions");
+        meterRegistry.gauge("agent.local-memory.bytes", this, LocalMemoryIndexes::bytes);
+        meterRegistry.gauge("agent.local-memory.actors", this, LocalMemoryIndexes::actors);
+    }
+
+    public boolean enabled() {
+        return properties.enabled();
+    }
+
+    /**
+     * Returns the texts of the records closest to the query, or empty when the index of the actor is not loaded yet or
+     * the query can not be embedded.
+     */
+    public Optional<List<String>> search(String actorId, String query) {
+        ActorMemoryIndex index = index(actorId);
+        if (index == null) {
+            return Optional.empty();
+        }
+
+        float[] embedding;
+        try {
+            embedding = embeddingModel.embed(query);
+        } catch (RuntimeException e) {
+            logger.warn("Embedding the prompt failed, long-term retrieval of {} stays remote", actorId, e);
+            return Optional.empty();
+        }
+        long start = System.nanoTime();
+        List<String> results = index.search(embedding, properties.topK(), properties.efSearch(), properties.minScore());
+        logger.debug("Local memory search for {} found {} records in {} µs", actorId, results.size(),
+                (System.nanoTime() - start) / 1000);
+        return Optional.of(results);
+    }
+
+    /**
+     * Loads the index of the actor in the background, or refreshes it when it is stale, ahead of its next prompt.
+     */
+    public void prefetch(String actorId) {
+        index(actorId);
+    }
+
+    synchronized long bytes() {
+        return bytes;
+    }
+
+    int actors() {
+        synchronized (indexes) {
+            return indexes.size();
+        }
+    }
+
+    private ActorMemoryIndex index(String actorId) {
+        ActorMemoryIndex index;
+        synchronized (indexes) {
+            index = indexes.get(actorId);
+        }
+        if (index == null) {
+            if (!retryBlocked(actorId) && loading.add(actorId)) {
+                Thread.ofVirtual().name("local-memory-load").start(() -> load(actorId));
+            }
+            return null;
+        }
+        if (index.isStale(Instant.now(), properties.refreshInterval()) && index.startRefresh()) {
+            Thread.ofVirtual().name("local-memory-refresh").start(() -> refresh(actorId, index));
+        }
+        return index;
+    }
+
+    private boolean retryBlocked(String actorId) {
+        synchronized (failedLoads) {
+            Instant retryAt = failedLoads.get(actorId);
+            return retryAt != null && Instant.now().isBefore(retryAt);
+        }
+    }
+
+    private void load(String actorId) {
+        try {
+            List<MemoryRecordSummary> records = listRecords(actorId);
+            ActorMemoryIndex index = null;
+            List<float[]> embeddings = embed(records);
+            for (int i = 0; i < records.size(); i++) {
+                if (index == null) {
+                    index = new ActorMemoryIndex(new HnswIndex(embeddings.get(i).length, properties.maxLinks(),
+                            properties.efConstruction(), records.size()));
+                }
+                index.add(records.get(i).memoryRecordId(), records.get(i).content().text(), embeddings.get(i));
+            }
+            if (index == null) {
+                index = new ActorMemoryIndex(new HnswIndex(embeddingModel.dimensions(), properties.maxLinks(),
+                        properties.efConstruction(), 16));
+            }
+            index.retain(ids(records));
+            put(actorId, index);
+            synchronized (failedLoads) {
+                failedLoads.remove(actorId);
+            }
+            logger.info("Loaded {} long-term memory records of {} into a local index of {} KB", records.size(),
+                    actorId, index.bytes() / 1024);
+        } catch (RuntimeException e) {
+            synchronized (failedLoads) {
+                failedLoads.put(actorId, Instant.now().plus(properties.loadRetryDelay()));
+            }
+            logger.warn("Loading the local memory index of {} failed, retrieval stays remote for {}", actorId,
+                    properties.loadRetryDelay(), e);
+        } finally {
+            loading.remove(actorId);
+        }
+    }
+
+    private void refresh(String actorId, ActorMemoryIndex index) {
+        try {
+            List<MemoryRecordSummary> records = listRecords(actorId);
+            List<MemoryRecordSummary> added = records.stream()
+                    .filter(record -> !index.contains(record.memoryRecordId()))
+                    .toList();
+            List<float[]> embeddings = embed(added);
+            for (int i = 0; i < added.size(); i++) {
+                index.add(added.get(i).memoryRecordId(), added.get(i).content().text(), embeddings.get(i));
+            }
+            index.retain(ids(records));
+            put(actorId, index);
+            logger.debug("Refreshed the local memory index of {} with {} new records", actorId, added.size());
+        } catch (RuntimeException e) {
+            logger.warn("Refreshing the local memory index of {} failed, keeping the current one", actorId, e);
+        } finally {
+            index.endRefresh();
+        }
+    }
+
+    private void put(String actorId, ActorMemoryIndex index) {
+        synchronized (indexes) {
+            indexes.put(actorId, index);
+            long total = indexes.values().stream().mapToLong(ActorMemoryIndex::bytes).sum();
+            Iterator<Map.Entry<String, ActorMemoryIndex>> eldest = indexes.entrySet().iterator();
+            while (total > properties.memoryCap().toBytes() && indexes.size() > 1 && eldest.hasNext()) {
+                Map.Entry<String, ActorMemoryIndex> entry = eldest.next();
+                if (entry.getKey().equals(actorId)) {
+                    continue;
+                }
+                total -= entry.getValue().bytes();
+                eldest.remove();
+                evictions.increment();
+                logger.debug("Dropped the local memory index of {} to stay under the memory cap", entry.getKey());
+            }
+            synchronized (this) {
+                bytes = total;
+            }
+        }
+    }
+
+    private List<MemoryRecordSummary> listRecords(String actorId) {
+        MemoryShard shard = shards.forActor(actorId);
+        List<MemoryRecordSummary> records = new ArrayList<>();
+        for (StrategySnapshot.Strategy strategy : strategies.of(shard)) {
+            for (String template : strategy.namespaces()) {
+                if (!StrategySnapshot.Strategy.actorLevel(template)) {
+                    continue;
+                }
+                String namespace = template
+                        .replace("{actorId}", actorId)
+                        .replace("{memoryStrategyId}", strategy.strategyId())
+                        .replace("{strategyId}", strategy.strategyId());
+                shard.client().listMemoryRecordsPaginator(request -> request
+                                .memoryId(shard.memoryId())
+                                .namespace(namespace)
+                                .memoryStrategyId(strategy.strategyId())
+                                .maxResults(100))
+                        .memoryRecordSummaries()
+                        .forEach(records::add);
+            }
+        }
+        return records;
+    }
+
+    private List<float[]> embed(List<MemoryRecordSummary> records) {
+        List<float[]> embeddings = new ArrayList<>(records.size());
+        for (int from = 0; from < records.size(); from += EMBEDDING_BATCH) {
+            List<String> texts = records.subList(from, Math.min(records.size(), from + EMBEDDING_BATCH)).stream()
+                    .map(record -> record.content().text())
+                    .toList();
+            embeddings.addAll(embeddingModel.embed(texts));
+        }
+        return embeddings;
+    }
+
+    private static Set<String> ids(List<MemoryRecordSummary> records) {
+        Set<String> ids = new HashSet<>();
+        records.forEach(record -> ids.add(record.memoryRecordId()));
+        return ids;
+    }
+}
@@ -0,0 +1,33 @@
+package dev.jettro.agent.vectorindex;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Configuration of the in-process index over the long-term memory records of an actor.
+ *
+ * @param enabled         Answer long-term retrieval from a local index once it is loaded for the actor.
+ * @param topK            Number of records added to a prompt.
+ * @param minScore        Lowest cosine similarity of a record that is added.
+ * @param refreshInterval Age after which an actor's index is refreshed in the background with new records.
+ * @param memoryCap       Total size of all indexes; the least recently used actors are dropped above it.
+ * @param maxLinks        Links per node and layer of the HNSW graph, twice as many on the bottom layer.
+ * @param efConstruction  Candidate list size while adding a record.
+ * @param efSearch        Candidate list size while searching.
+ * @param loadRetryDelay  Time after a failed load before the index of the actor is loaded again; until then its
+ *                        retrieval stays remote.
+ */
+@ConfigurationProperties(prefix = "agent.local-memory")
+public record LocalMemoryProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("5") int topK,
+        @DefaultValue("0.3") float minScore,
+        @DefaultValue("2m") Duration refreshInterval,
+        @DefaultValue("64MB") DataSize memoryCap,
+        @DefaultValue("16") int maxLinks,
+        @DefaultValue("100") int efConstruction,
+        @DefaultValue("64") int efSearch,
+        @DefaultValue("1m") Duration loadRetryDelay) {
+}
@@ -0,0 +1,177 @@
+package dev.jettro.agent.warmup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.jettro.agent.AgentPipeline;
+import dev.jettro.agent.PromptRequest;
+import dev.jettro.agent.aws.WarmupHttpStub;
+import dev.jettro.agent.deadline.Deadline;
+import dev.jettro.agent.deadline.DeadlineProperties;
+import dev.jettro.agent.memory.MemoryAdvisors;
+import dev.jettro.agent.model.HedgingProperties;
+import dev.jettro.agent.model.ModelConfiguration;
+import dev.jettro.agent.resilience.DependencyGuards;
+import dev.jettro.agent.resilience.ResilienceProperties;
+import dev.jettro.agent.routing.ModelRouter;
+import dev.jettro.agent.scheduling.AdaptiveConcurrencyLimit;
+import dev.jettro.agent.scheduling.ConcurrencyLimitProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.model.tool.ToolCallingChatOptions;
+import org.springframework.ai.model.tool.ToolCallingManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs synthetic invocations through the chat pipeline before the agent accepts traffic, so the JIT has compiled the
+ * advisor chain, tool handling and JSON mapping by the time the first real prompt arrives.
+ * <p>
+ * The invocations go through the production memory advisors and the model decorators of
+ * {@link ModelConfiguration#decorate}, around an in-process {@link StubChatModel} that calls a tool on every first
+ * turn. The decorators get guards, a concurrency limit and a meter registry of their own, so warm-up leaves the
+ * breakers, limit and metrics of real invocations alone. The {@link WarmupHttpStub} answers the AWS requests of the
+ * memory advisors and of the {@link SdkClientWarmup}, so warm-up never calls Bedrock or AgentCore Memory. Spring Boot
+ * only reports the readiness state {@code ACCEPTING_TRAFFIC} after all application
+ * runners finished, which is what {@link ReadinessPingFilter} waits for. Warm-up stops after {@code iterations} or
+ * when the {@code timeBudget} runs out, whichever comes first.
+ */
+@Component
+public class AgentWarmup implements ApplicationRunner, HealthIndicator {
+
+    static final String ACTOR = "warmup";
+
+    private static final Logger logger = LoggerFactory.getLogger(AgentWarmup.class);
+
+    private static final List<String> PROMPTS = List.of(
+            "What time is it?",
+            "Can you remember that my favourite colour is green?",
+            "Compare the pros and cons of running an agent on AgentCore versus Lambda, step by step.");
+
+    private final WarmupProperties properties;
+    private final MemoryAdvisors memoryAdvisors;
+    private final WarmupHttpStub httpStub;
+    private final SdkClientWarmup sdkClients;
+    private final ToolCallingManager toolCallingManager;
+    private final HedgingProperties hedgingProperties;
+    private final ResilienceProperties resilienceProperties;
+    private final ConcurrencyLimitProperties concurrencyLimitProperties;
+    private final DeadlineProperties deadlineProperties;
+    private final ModelRouter modelRouter;
+    private final ObjectMapper objectMapper;
+    private final Timer timer;
+    private final String systemPrompt;
+
+    private volatile Health health = Health.down().withDetail("state", "warming up").build();
+
+    public AgentWarmup(WarmupProperties properties, MemoryAdvisors memoryAdvisors, WarmupHttpStub httpStub,
+                       SdkClientWarmup sdkClients, ToolCallingManager toolCallingManager,
+                       HedgingProperties hedgingProperties, ResilienceProperties resilienceProperties,
+                       ConcurrencyLimitProperties concurrencyLimitProperties, DeadlineProperties deadlineProperties,
+                       ModelRouter modelRouter, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                       @Value("${agent.system-prompt:}") String systemPrompt) {
+        this.properties = properties;
+        this.memoryAdvisors = memoryAdvisors;
+        this.httpStub = httpStub;
+        this.sdkClients = sdkClients;
+        this.toolCallingManager = toolCallingManager;
+        this.hedgingProperties = hedgingProperties;
+        this.resilienceProperties = resilienceProperties;
+        this.concurrencyLimitProperties = concurrencyLimitProperties;
+        this.deadlineProperties = deadlineProperties;
+        this.modelRouter = modelRouter;
+        this.objectMapper = objectMapper;
+        this.timer = meterRegistry.timer("agent.warmup.duration");
+        this.systemPrompt = systemPrompt;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!properties.enabled()) {
+            health = Health.up().withDetail("state", "disabled").build();
+            return;
+        }
+
+        ChatClient chatClient = AgentPipeline.build(ChatClient.builder(chatModel()), memoryAdvisors.advisors(),
+                systemPrompt);
+
+        long start = System.nanoTime();
+        long budget = properties.timeBudget().toNanos();
+        int completed = 0;
+        httpStub.activate();
+        try {
+            sdkClients.run();
+            while (completed < properties.iterations() && System.nanoTime() - start < budget) {
+                invoke(chatClient, completed);
+                completed++;
+            }
+        } catch (RuntimeException | JsonProcessingException e) {
+            // A failing warm-up only costs the first requests some speed, it is no reason to stay unready
+            logger.warn("Warm-up failed after {} invocations", completed, e);
+        } finally {
+            httpStub.deactivate();
+        }
+
+        Duration duration = Duration.ofNanos(System.nanoTime() - start);
+        timer.record(duration);
+        boolean budgetExceeded = completed < properties.iterations();
+        logger.info("Warm-up ran {} invocations in {} ms{}", completed, duration.toMillis(),
+                budgetExceeded ? ", stopped early" : "");
+        health = Health.up()
+                .withDetail("state", "done")
+                .withDetail("invocations", completed)
+                .withDetail("durationMs", duration.toMillis())
+                .withDetail("stoppedEarly", budgetExceeded)
+                .build();
+    }
+
+    @Override
+    public Health health() {
+        return health;
+    }
+
+    private void invoke(ChatClient chatClient, int iteration) throws JsonProcessingException {
+        // Same request mapping as the AgentCore invocation endpoint
+        String json = objectMapper.writeValueAsString(
+                new PromptRequest(PROMPTS.get(iteration % PROMPTS.size()), ACTOR));
+        PromptRequest request = objectMapper.readValue(json, PromptRequest.class);
+
+        // Conversations of a few turns, so the memory advisors also handle history
+        String conversationId = ACTOR + ":" + iteration / 4;
+        var tier = modelRouter.route(conversationId, request.prompt());
+        var deadline = Deadline.fromHeader(Long.toString(Instant.now().plusSeconds(30).toEpochMilli()));
+        try (var scope = deadline.map(Deadline::bind).orElse(Deadline.Scope.NONE)) {
+            String answer = chatClient.prompt()
+                    .options(ToolCallingChatOptions.builder().model(tier.model()).build())
+                    .advisors(a -> a.param(ChatMemory.CONVERSATION_ID, conversationId))
+                    .user(request.prompt())
+                    .call()
+                    .content();
+            objectMapper.writeValueAsString(answer);
+        }
+    }
+
+    /**
+     * The decorated model chain of the agent around the stub, for both the primary and the alternate region
+     */
+    private ChatModel chatModel() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        return ModelConfiguration.decorate(new StubChatModel(toolCallingManager),
+                new StubChatModel(toolCallingManager), hedgingProperties,
+                new DependencyGuards(resilienceProperties, registry),
+                new AdaptiveConcurrencyLimit(concurrencyLimitProperties, registry), () -> 0, deadlineProperties,
+                registry);
+    }
+}
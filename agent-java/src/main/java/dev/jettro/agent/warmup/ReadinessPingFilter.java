@@ -0,0 +1,43 @@
+package dev.jettro.agent.warmup;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Answers the AgentCore {@code /ping} health check with a 503 until the application accepts traffic, so the runtime
+ * only sends invocations after warm-up.
+ */
+@Component
+public class ReadinessPingFilter extends OncePerRequestFilter {
+
+    private static final String PING_PATH = "/ping";
+
+    private final ApplicationAvailability availability;
+
+    public ReadinessPingFilter(ApplicationAvailability availability) {
+        this.availability = availability;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !PING_PATH.equals(request.getRequestURI());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (availability.getReadinessState() != ReadinessState.ACCEPTING_TRAFFIC) {
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Warming up");
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,44 @@
+package dev.jettro.agent.warmup;
+
+import dev.jettro.agent.sharding.MemoryShard;
+import dev.jettro.agent.sharding.MemoryShards;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.bedrockagentcorecontrol.BedrockAgentCoreControlClient;
+import software.amazon.awssdk.services.bedrockruntime.BedrockRuntimeAsyncClient;
+import software.amazon.awssdk.services.bedrockruntime.BedrockRuntimeClient;
+
+/**
+ * Makes one call with every AWS SDK client of the agent, so credentials, endpoint resolution, marshalling and signing
+ * are initialised before the first invocation. Only meant to run while the {@code WarmupHttpStub} is active, which
+ * answers the calls without sending them.
+ */
+@Component
+class SdkClientWarmup {
+
+    private final BedrockRuntimeClient runtimeClient;
+    private final BedrockRuntimeAsyncClient runtimeAsyncClient;
+    private final BedrockAgentCoreControlClient controlClient;
+    private final MemoryShards shards;
+
+    SdkClientWarmup(BedrockRuntimeClient runtimeClient, BedrockRuntimeAsyncClient runtimeAsyncClient,
+                    BedrockAgentCoreControlClient controlClient, MemoryShards shards) {
+        this.runtimeClient = runtimeClient;
+        this.runtimeAsyncClient = runtimeAsyncClient;
+        this.controlClient = controlClient;
+        this.shards = shards;
+    }
+
+    void run() {
+        runtimeClient.converse(request -> request.modelId("warmup"));
+        runtimeAsyncClient.converse(request -> request.modelId("warmup")).join();
+        for (MemoryShard shard : shards.all()) {
+            controlClient.getMemory(request -> request.memoryId(shard.memoryId()));
+            shard.client().listEvents(request -> request.memoryId(shard.memoryId())
+                    .actorId(AgentWarmup.ACTOR)
+                    .sessionId("warmup"));
+            shard.asyncClient().listEvents(request -> request.memoryId(shard.memoryId())
+                    .actorId(AgentWarmup.ACTOR)
+                    .sessionId("warmup")).join();
+        }
+    }
+}
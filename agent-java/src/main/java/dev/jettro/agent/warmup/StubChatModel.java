@@ -0,0 +1,75 @@
+package dev.jettro.agent.warmup;
+
+import java.util.List;
+import java.util.Map;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.DefaultUsage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.model.tool.DefaultToolExecutionEligibilityPredicate;
+import org.springframework.ai.model.tool.ToolCallingChatOptions;
+import org.springframework.ai.model.tool.ToolCallingManager;
+import org.springframework.ai.model.tool.ToolExecutionEligibilityPredicate;
+import org.springframework.ai.model.tool.ToolExecutionResult;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import reactor.core.publisher.Flux;
+
+/**
+ * In-process model for warm-up, without calling Bedrock. The first turn of a prompt asks for the first tool the prompt
+ * offers, which runs through the {@link ToolCallingManager} like it does for the Bedrock model; the answer after the
+ * tool result is a fixed text with a fixed usage.
+ */
+class StubChatModel implements ChatModel {
+
+    private final ToolCallingManager toolCallingManager;
+    private final ToolExecutionEligibilityPredicate toolExecutionEligibility =
+            new DefaultToolExecutionEligibilityPredicate();
+
+    StubChatModel(ToolCallingManager toolCallingManager) {
+        this.toolCallingManager = toolCallingManager;
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        ChatResponse response = respond(prompt);
+        if (toolExecutionEligibility.isToolExecutionRequired(prompt.getOptions(), response)) {
+            ToolExecutionResult result = toolCallingManager.executeToolCalls(prompt, response);
+            return call(new Prompt(result.conversationHistory(), prompt.getOptions()));
+        }
+        return response;
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        return Flux.defer(() -> Flux.just(call(prompt)));
+    }
+
+    @Override
+    public ChatOptions getDefaultOptions() {
+        return ToolCallingChatOptions.builder().build();
+    }
+
+    private ChatResponse respond(Prompt prompt) {
+        AssistantMessage message = new AssistantMessage("It is 10 o'clock.");
+        if (!(prompt.getInstructions().getLast() instanceof ToolResponseMessage)
+                && prompt.getOptions() instanceof ToolCallingChatOptions options) {
+            List<ToolDefinition> tools = toolCallingManager.resolveToolDefinitions(options);
+            if (!tools.isEmpty()) {
+                message = new AssistantMessage("", Map.of(), List.of(new AssistantMessage.ToolCall("warmup",
+                        "function", tools.getFirst().name(), "{}")));
+            }
+        }
+        return ChatResponse.builder()
+                .generations(List.of(new Generation(message)))
+                .metadata(ChatResponseMetadata.builder()
+                        .model("warmup-stub")
+                        .usage(new DefaultUsage(prompt.getContents().length() / 4, 6))
+                        .build())
+                .build();
+    }
+}
@@ -0,0 +1,19 @@
+package dev.jettro.agent.warmup;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuration of the warm-up that runs before the agent reports ready.
+ *
+ * @param enabled    Run synthetic invocations before accepting traffic.
+ * @param iterations Number of synthetic invocations.
+ * @param timeBudget Maximum time spent warming up, the agent reports ready when it runs out.
+ */
+@ConfigurationProperties(prefix = "agent.warmup")
+public record WarmupProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("300") int iterations,
+        @DefaultValue("15s") Duration timeBudget) {
+}
@@ -0,0 +1,77 @@
+package dev.jettro;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+
+/**
+ * Local stand-in for Bedrock and AgentCore Memory, so the agent can run a full invocation without an AWS account.
+ * Point the AWS SDK at it with {@code AWS_ENDPOINT_URL=http://localhost:<port>}.
+ * <p>
+ * Converse calls get a fixed answer. Every other call gets one JSON document with empty event and memory record
+ * lists, a created event and a memory without strategies; the SDK only reads the fields of its own response shape.
+ * <p>
+ * Uses only the JDK, so the CDS training run in {@code Dockerfile.startup} can start it with
+ * {@code java -cp target/test-classes dev.jettro.AgentCoreStubServer 9999}.
+ */
+public class AgentCoreStubServer {
+
+    private static final String CONVERSE_RESPONSE = """
+            {"output":{"message":{"role":"assistant","content":[{"text":"It is 10 o'clock."}]}},
+             "stopReason":"end_turn",
+             "usage":{"inputTokens":40,"outputTokens":6,"totalTokens":46},
+             "metrics":{"latencyMs":12}}
+            """;
+
+    private static final String MEMORY_RESPONSE = """
+            {"events":[],
+             "memoryRecordSummaries":[],
+             "event":{"memoryId":"stub-memory","actorId":"stub","sessionId":"stub","eventId":"stub-event",
+                      "eventTimestamp":1760000000,"payload":[]},
+             "memory":{"id":"stub-memory","arn":"arn:aws:bedrock-agentcore:eu-west-1:000000000000:memory/stub-memory",
+                       "name":"stub","status":"ACTIVE","eventExpiryDuration":90,"strategies":[]}}
+            """;
+
+    private final HttpServer server;
+
+    public AgentCoreStubServer(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/", this::handle);
+    }
+
+    public static void main(String[] args) throws IOException {
+        AgentCoreStubServer stub = new AgentCoreStubServer(args.length > 0 ? Integer.parseInt(args[0]) : 9999);
+        stub.start();
+        System.out.println("AgentCore stub listening on " + stub.endpoint());
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+    }
+
+    public String endpoint() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        exchange.getRequestBody().readAllBytes();
+        String path = exchange.getRequestURI().getPath();
+        byte[] body = (path.endsWith("/converse") ? CONVERSE_RESPONSE : MEMORY_RESPONSE)
+                .getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package dev.jettro;
+
+import dev.jettro.agent.AgentsApplication;
+import dev.jettro.agent.consolidation.ConsolidationProperties;
+import dev.jettro.agent.consolidation.ConsolidationReport;
+import dev.jettro.agent.consolidation.MemoryConsolidation;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Runs the {@link MemoryConsolidation} once over every memory shard of the agent's configuration and exits, with 1
+ * when an actor failed. Start it from a single scheduled task, for example a daily cron job or EventBridge Scheduler
+ * target, never from the agent itself: its microVMs live per session and would all scan and delete at once.
+ * <p>
+ * The agent's own configuration is used without the web server and the warm-up; {@code agent.memory-consolidation.*}
+ * can be overridden as arguments. It is a dry run unless {@code --agent.memory-consolidation.dry-run=false} is passed.
+ * <p>
+ * {@code mvn exec:java -Dexec.mainClass=dev.jettro.ConsolidateMemory -Dexec.classpathScope=test
+ * -Dexec.args="--agent.memory-consolidation.dry-run=false"}
+ */
+public class ConsolidateMemory {
+
+    public static void main(String[] args) {
+        int exitCode;
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(AgentsApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("agent.warmup.enabled=false", "agent.profiling.enabled=false")
+                .run(args)) {
+            boolean dryRun = context.getBean(ConsolidationProperties.class).dryRun();
+            ConsolidationReport report = context.getBean(MemoryConsolidation.class).run(dryRun);
+            System.out.printf("Memory consolidation%s scanned %d records of %d actors in %d s: %d duplicates, "
+                            + "%d deleted, %d actors failed%n", report.dryRun() ? " (dry run)" : "", report.records(),
+                    report.actors(), report.duration().toSeconds(), report.duplicates(), report.deleted(),
+                    report.failedActors());
+            for (ConsolidationReport.Duplicate duplicate : report.examples()) {
+                System.out.printf("  %-40s %.2f \"%s\"%n  %-40s      kept \"%s\"%n", duplicate.namespace(),
+                        duplicate.similarity(), duplicate.text(), "", duplicate.keptText());
+            }
+            exitCode = report.failedActors() > 0 ? 1 : 0;
+        }
+        System.exit(exitCode);
+    }
+}
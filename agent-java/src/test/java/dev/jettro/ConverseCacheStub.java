@@ -0,0 +1,144 @@
+package dev.jettro;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import dev.jettro.agent.bedrock.PromptCacheInterceptor;
+import dev.jettro.agent.bedrock.PromptCacheProperties;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.document.Document;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.bedrockruntime.BedrockRuntimeClient;
+import software.amazon.awssdk.services.bedrockruntime.model.ContentBlock;
+import software.amazon.awssdk.services.bedrockruntime.model.ConversationRole;
+import software.amazon.awssdk.services.bedrockruntime.model.ConverseResponse;
+import software.amazon.awssdk.services.bedrockruntime.model.Message;
+import software.amazon.awssdk.services.bedrockruntime.model.SystemContentBlock;
+import software.amazon.awssdk.services.bedrockruntime.model.Tool;
+import software.amazon.awssdk.services.bedrockruntime.model.ToolInputSchema;
+import software.amazon.awssdk.services.bedrockruntime.model.ToolSpecification;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Sends a Converse request through the {@link PromptCacheInterceptor} to a local Converse stub, which checks that the
+ * cache points are where we expect them and answers with cache token counts.
+ * <p>
+ * No AWS account is needed: {@code mvn exec:java -Dexec.mainClass=dev.jettro.ConverseCacheStub}
+ */
+public class ConverseCacheStub {
+
+    private static final String SYSTEM_PROMPT = "You are a helpful assistant.";
+
+    private static final String RESPONSE = """
+            {"output":{"message":{"role":"assistant","content":[{"text":"It is 10 o'clock."}]}},
+             "stopReason":"end_turn",
+             "usage":{"inputTokens":40,"outputTokens":6,"totalTokens":46,
+                      "cacheReadInputTokens":32,"cacheWriteInputTokens":0},
+             "metrics":{"latencyMs":12}}
+            """;
+
+    public static void main(String[] args) throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<String> problems = Collections.synchronizedList(new ArrayList<>());
+
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            JsonNode body = objectMapper.readTree(exchange.getRequestBody());
+            System.out.println("Stub received: " + body);
+            problems.addAll(checkRequestShape(body));
+
+            byte[] response = RESPONSE.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        });
+        server.start();
+
+        try (BedrockRuntimeClient client = BedrockRuntimeClient.builder()
+                .endpointOverride(URI.create("http://localhost:" + server.getAddress().getPort()))
+                .region(Region.EU_WEST_1)
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("stub", "stub")))
+                .overrideConfiguration(config -> config.addExecutionInterceptor(
+                        new PromptCacheInterceptor(new PromptCacheProperties(true, true, true), SYSTEM_PROMPT)))
+                .build()) {
+
+            ConverseResponse response = client.converse(request -> request
+                    .modelId("stub-model")
+                    .system(SystemContentBlock.builder()
+                            .text(SYSTEM_PROMPT + "\nMemories: the user likes dogs.")
+                            .build())
+                    .toolConfig(tools -> tools.tools(Tool.builder()
+                            .toolSpec(ToolSpecification.builder()
+                                    .name("getCurrentDateTime")
+                                    .description("Get the current date and time in the user's timezone")
+                                    .inputSchema(ToolInputSchema.fromJson(Document.mapBuilder()
+                                            .putString("type", "object")
+                                            .build()))
+                                    .build())
+                            .build()))
+                    .messages(
+                            message(ConversationRole.USER, "Hi there"),
+                            message(ConversationRole.ASSISTANT, "Hello, how can I help?"),
+                            message(ConversationRole.USER, "What time is it?")));
+
+            System.out.println("Answer: " + response.output().message().content().getFirst().text());
+            System.out.println("Cache read tokens: " + response.usage().cacheReadInputTokens());
+            System.out.println("Cache write tokens: " + response.usage().cacheWriteInputTokens());
+        } finally {
+            server.stop(0);
+        }
+
+        if (!problems.isEmpty()) {
+            problems.forEach(problem -> System.err.println("FAIL: " + problem));
+            System.exit(1);
+        }
+        System.out.println("Request shape OK");
+    }
+
+    private static List<String> checkRequestShape(JsonNode body) {
+        List<String> problems = new ArrayList<>();
+
+        JsonNode system = body.path("system");
+        if (!SYSTEM_PROMPT.equals(system.path(0).path("text").asText())) {
+            problems.add("first system block should hold only the stable system prompt");
+        }
+        if (!"default".equals(system.path(1).path("cachePoint").path("type").asText())) {
+            problems.add("second system block should be a cache point");
+        }
+        if (!system.path(2).path("text").asText().contains("Memories")) {
+            problems.add("memories should follow the system cache point");
+        }
+
+        JsonNode tools = body.path("toolConfig").path("tools");
+        if (!tools.path(tools.size() - 1).has("cachePoint")) {
+            problems.add("tools should end with a cache point");
+        }
+
+        JsonNode messages = body.path("messages");
+        JsonNode history = messages.path(messages.size() - 2).path("content");
+        if (!history.path(history.size() - 1).has("cachePoint")) {
+            problems.add("last history message should end with a cache point");
+        }
+        JsonNode latest = messages.path(messages.size() - 1).path("content");
+        for (JsonNode block : latest) {
+            if (block.has("cachePoint")) {
+                problems.add("newest message should not contain a cache point");
+            }
+        }
+        return problems;
+    }
+
+    private static Message message(ConversationRole role, String text) {
+        return Message.builder().role(role).content(ContentBlock.fromText(text)).build();
+    }
+}
@@ -0,0 +1,49 @@
+package dev.jettro;
+
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import software.amazon.awssdk.services.bedrockruntime.model.ThrottlingException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Model stub that behaves like an overloaded Bedrock endpoint: up to {@code capacity} concurrent calls take the base
+ * latency, above that every call gets proportionally slower, and above {@code throttleAt} calls are throttled.
+ */
+public class LatencyInjectingChatModel implements ChatModel {
+
+    private final Duration baseLatency;
+    private final int capacity;
+    private final int throttleAt;
+    private final AtomicInteger active = new AtomicInteger();
+
+    public LatencyInjectingChatModel(Duration baseLatency, int capacity, int throttleAt) {
+        this.baseLatency = baseLatency;
+        this.capacity = capacity;
+        this.throttleAt = throttleAt;
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        int concurrent = active.incrementAndGet();
+        try {
+            if (concurrent > throttleAt) {
+                throw ThrottlingException.builder().message("Too many requests, please wait before trying again.")
+                        .build();
+            }
+            double overload = Math.max(1.0, (double) concurrent / capacity);
+            Thread.sleep((long) (baseLatency.toMillis() * overload));
+            return new ChatResponse(List.of(new Generation(new AssistantMessage("It is 10 o'clock."))));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } finally {
+            active.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package dev.jettro;
+
+import dev.jettro.agent.sharding.ConsistentHashRing;
+import software.amazon.awssdk.services.bedrockagentcore.BedrockAgentCoreClient;
+import software.amazon.awssdk.services.bedrockagentcore.model.ActorSummary;
+import software.amazon.awssdk.services.bedrockagentcore.model.Event;
+import software.amazon.awssdk.services.bedrockagentcore.model.SessionSummary;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Moves the actors whose memory shard changes when {@code agent.memory-shards.memory-ids} changes. With consistent
+ * hashing only the actors that map to another memory under the new ids move, roughly one in {@code n} when a memory
+ * is added to {@code n - 1}.
+ * <p>
+ * The short-term memory of a moved actor is copied session by session, events keep their timestamps. Long-term
+ * records are not copied: the strategies of the new memory extract them again from the copied events. Without
+ * {@code --apply} the tool only reports what would move; {@code --delete-source} removes the copied events from the
+ * old memory. An event already in the target, with the same timestamp and payload, is not copied again, so a run can
+ * be repeated without duplicating events.
+ * <p>
+ * The agent keeps writing to the old memory until the new ids are deployed, so the cutover takes two passes: run it
+ * with {@code --apply} while the agent still uses the old ids, deploy the new ids, then run it again with
+ * {@code --apply --delete-source}. The second pass copies only what was written in between and removes the source
+ * events once they are in the target; only events that were listed and are in the target are deleted.
+ * <p>
+ * Usage: {@code mvn exec:java -Dexec.mainClass=dev.jettro.RebalanceMemoryShards -Dexec.classpathScope=test
+ * -Dexec.args="<old-ids> <new-ids> [--apply] [--delete-source] [--virtual-nodes=160]"}, ids comma separated.
+ */
+public class RebalanceMemoryShards {
+
+    private static final int PAGE_SIZE = 100;
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Pass the old and the new memory ids, comma separated");
+            System.exit(1);
+        }
+        List<String> oldIds = Arrays.stream(args[0].split(",")).map(String::trim).filter(id -> !id.isBlank()).toList();
+        List<String> newIds = Arrays.stream(args[1].split(",")).map(String::trim).filter(id -> !id.isBlank()).toList();
+        List<String> options = Arrays.asList(args).subList(2, args.length);
+        boolean apply = options.contains("--apply");
+        boolean deleteSource = options.contains("--delete-source");
+        int virtualNodes = options.stream()
+                .filter(option -> option.startsWith("--virtual-nodes="))
+                .map(option -> Integer.parseInt(option.substring("--virtual-nodes=".length())))
+                .findFirst()
+                .orElse(160);
+
+        ConsistentHashRing<String> oldRing = new ConsistentHashRing<>(virtualNodes);
+        oldIds.forEach(id -> oldRing.add(id, id));
+        ConsistentHashRing<String> newRing = new ConsistentHashRing<>(virtualNodes);
+        newIds.forEach(id -> newRing.add(id, id));
+
+        try (BedrockAgentCoreClient client = BedrockAgentCoreClient.create()) {
+            Map<String, int[]> moved = new LinkedHashMap<>();
+            int actors = 0;
+            for (String source : oldIds) {
+                for (ActorSummary actor : client.listActorsPaginator(request -> request
+                                .memoryId(source)
+                                .maxResults(PAGE_SIZE))
+                        .actorSummaries()) {
+                    String actorId = actor.actorId();
+                    // An actor that does not belong on this memory under the old ids was left there earlier
+                    String target = newRing.node(actorId);
+                    actors++;
+                    if (target.equals(source) || !oldRing.node(actorId).equals(source)) {
+                        continue;
+                    }
+                    int events = apply ? move(client, source, target, actorId, deleteSource) : 0;
+                    int[] counts = moved.computeIfAbsent(source + " -> " + target, key -> new int[2]);
+                    counts[0]++;
+                    counts[1] += events;
+                }
+            }
+
+            System.out.printf("%d actors on %d memories, %d move%s%n", actors, oldIds.size(),
+                    moved.values().stream().mapToInt(counts -> counts[0]).sum(), apply ? "d" : " (dry run)");
+            moved.forEach((route, counts) -> System.out.printf("  %-60s %6d actors %8d events%n", route, counts[0],
+                    counts[1]));
+        }
+    }
+
+    private static int move(BedrockAgentCoreClient client, String source, String target, String actorId,
+                            boolean deleteSource) {
+        int copied = 0;
+        for (SessionSummary session : client.listSessionsPaginator(request -> request
+                        .memoryId(source)
+                        .actorId(actorId)
+                        .maxResults(PAGE_SIZE))
+                .sessionSummaries()) {
+            List<Event> events = events(client, source, actorId, session.sessionId());
+            events.sort(Comparator.comparing(Event::eventTimestamp));
+            Set<List<Object>> copiedBefore = new HashSet<>();
+            events(client, target, actorId, session.sessionId()).forEach(event -> copiedBefore.add(key(event)));
+
+            for (Event event : events) {
+                if (copiedBefore.contains(key(event))) {
+                    continue;
+                }
+                client.createEvent(request -> request
+                        .memoryId(target)
+                        .actorId(actorId)
+                        .sessionId(session.sessionId())
+                        .eventTimestamp(event.eventTimestamp())
+                        .payload(event.payload()));
+                copied++;
+            }
+            if (deleteSource) {
+                for (Event event : events) {
+                    client.deleteEvent(request -> request
+                            .memoryId(source)
+                            .actorId(actorId)
+                            .sessionId(session.sessionId())
+                            .eventId(event.eventId()));
+                }
+            }
+        }
+        return copied;
+    }
+
+    private static List<Event> events(BedrockAgentCoreClient client, String memoryId, String actorId,
+                                      String sessionId) {
+        List<Event> events = new ArrayList<>();
+        client.listEventsPaginator(request -> request
+                        .memoryId(memoryId)
+                        .actorId(actorId)
+                        .sessionId(sessionId)
+                        .includePayloads(true)
+                        .maxResults(PAGE_SIZE))
+                .events()
+                .forEach(events::add);
+        return events;
+    }
+
+    /**
+     * What makes a copied event the same as its source, the copy has an event id of its own
+     */
+    private static List<Object> key(Event event) {
+        return List.of(event.eventTimestamp(), event.payload());
+    }
+}
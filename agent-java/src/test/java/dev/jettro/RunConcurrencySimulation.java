@@ -0,0 +1,92 @@
+package dev.jettro;
+
+import dev.jettro.agent.model.LatencySamplingChatModel;
+import dev.jettro.agent.resilience.RetryBudget;
+import dev.jettro.agent.resilience.RetryBudgetProperties;
+import dev.jettro.agent.scheduling.ActorThrottledException;
+import dev.jettro.agent.scheduling.AdaptiveConcurrencyLimit;
+import dev.jettro.agent.scheduling.ConcurrencyLimitProperties;
+import dev.jettro.agent.scheduling.FairScheduler;
+import dev.jettro.agent.scheduling.SchedulerProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.prompt.Prompt;
+import software.amazon.awssdk.services.bedrockruntime.model.ThrottlingException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the fair scheduler against the {@link LatencyInjectingChatModel}, first with the fixed limit and then with the
+ * adaptive concurrency limit, and prints throughput, p99 latency, throttles and how the adaptive limit moves.
+ * <p>
+ * No AWS account is needed: {@code mvn exec:java -Dexec.mainClass=dev.jettro.RunConcurrencySimulation}
+ */
+public class RunConcurrencySimulation {
+
+    private static final int CLIENTS = 100;
+    private static final Duration RUN_TIME = Duration.ofSeconds(20);
+
+    public static void main(String[] args) throws Exception {
+        simulate("fixed limit of 64", false);
+        simulate("adaptive limit", true);
+    }
+
+    private static void simulate(String name, boolean adaptive) throws Exception {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        SchedulerProperties schedulerProperties = new SchedulerProperties(true, 64, 1000, 1000, Duration.ofSeconds(30),
+                1000.0, 1000, 10000, Duration.ofSeconds(1), Map.of());
+        ConcurrencyLimitProperties limitProperties = new ConcurrencyLimitProperties(adaptive, 8, 2, 64, 2.0, 0.2, 500,
+                0.9);
+        AdaptiveConcurrencyLimit concurrencyLimit = new AdaptiveConcurrencyLimit(limitProperties, meterRegistry);
+        // The stub model is not an SDK client, nothing is retried or cools down
+        RetryBudget retryBudget = new RetryBudget(new RetryBudgetProperties(false, 3, 0.1, 1.0, 20,
+                Duration.ofSeconds(2), Duration.ofSeconds(30), 0.5), meterRegistry);
+        FairScheduler scheduler = new FairScheduler(schedulerProperties, concurrencyLimit, retryBudget,
+                meterRegistry);
+        // Bedrock in this simulation handles 12 calls without slowing down and throttles above 40
+        ChatModel model = new LatencySamplingChatModel(
+                new LatencyInjectingChatModel(Duration.ofMillis(100), 12, 40), concurrencyLimit, scheduler::inFlight);
+
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger throttled = new AtomicInteger();
+        long end = System.nanoTime() + RUN_TIME.toNanos();
+
+        System.out.printf("%n=== %s ===%n", name);
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < CLIENTS; i++) {
+                String actor = "actor-" + (i % 10);
+                clients.submit(() -> {
+                    while (System.nanoTime() < end) {
+                        long start = System.nanoTime();
+                        try (var permit = scheduler.acquire(actor)) {
+                            model.call(new Prompt("What time is it?"));
+                            latencies.add(System.nanoTime() - start);
+                        } catch (ThrottlingException | ActorThrottledException e) {
+                            throttled.incrementAndGet();
+                        }
+                    }
+                });
+            }
+            for (int second = 1; second <= RUN_TIME.toSeconds(); second++) {
+                Thread.sleep(1000);
+                System.out.printf("t=%2ds limit=%2d in-flight=%2d queued=%3d%n", second,
+                        adaptive ? concurrencyLimit.limit() : schedulerProperties.maxConcurrent(),
+                        scheduler.inFlight(), scheduler.queued());
+            }
+        }
+
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        long p99 = sorted.isEmpty() ? 0 : sorted.get((int) (sorted.size() * 0.99));
+        System.out.printf("throughput %.1f calls/s, p99 %d ms, throttled %d%n",
+                (double) sorted.size() / RUN_TIME.toSeconds(), Duration.ofNanos(p99).toMillis(), throttled.get());
+    }
+}
@@ -0,0 +1,245 @@
+package dev.jettro;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import dev.jettro.agent.consolidation.ConsolidationProperties;
+import dev.jettro.agent.consolidation.ConsolidationReport;
+import dev.jettro.agent.consolidation.MemoryConsolidation;
+import dev.jettro.agent.sharding.MemoryShard;
+import dev.jettro.agent.sharding.MemoryShards;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.awscore.retry.AwsRetryStrategy;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.bedrockagentcore.BedrockAgentCoreClient;
+import software.amazon.awssdk.services.bedrockagentcorecontrol.BedrockAgentCoreControlClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Runs the {@link MemoryConsolidation} against a local memory stub with near-duplicate records: a dry run, a real run
+ * and a dry run afterwards that should find nothing. The stub pages records five at a time and throttles every
+ * {@code throttle-every}th call, the SDK does not retry, so the job's own backoff handles it. Embeddings are word
+ * counts hashed into a fixed-size vector, so no Bedrock access is needed.
+ * <p>
+ * {@code mvn exec:java -Dexec.mainClass=dev.jettro.RunMemoryConsolidation -Dexec.classpathScope=test
+ * -Dexec.args="<threshold> <throttle-every>"}
+ */
+public class RunMemoryConsolidation {
+
+    private static final Pattern NAMESPACE = Pattern.compile("\"namespace\"\\s*:\\s*\"([^\"]+)\"");
+    private static final Pattern NEXT_TOKEN = Pattern.compile("\"nextToken\"\\s*:\\s*\"(\\d+)\"");
+    private static final int STUB_PAGE_SIZE = 5;
+
+    private static final List<String> ACTORS = List.of("alice", "bob", "carol");
+
+    // Each line is a fact and the ways the memory strategy extracted it again from later conversations
+    private static final List<List<String>> FACTS = List.of(
+            List.of("The user has a dog named Max", "The user has a dog called Max",
+                    "The user has a dog named Max who is three years old"),
+            List.of("The user lives in Utrecht", "The user lives in Utrecht in the Netherlands"),
+            List.of("The user prefers short answers", "The user prefers short and concise answers",
+                    "The user prefers answers that are short"),
+            List.of("The user works as a software engineer"),
+            List.of("The user is learning to play the piano"));
+
+    private static final List<String> SUMMARIES = List.of(
+            "The user asked about walking routes for the dog near Utrecht",
+            "The user asked about dog walking routes near Utrecht",
+            "The user asked for a recipe for pancakes");
+
+    private final float threshold;
+    private final int throttleEvery;
+    private final AtomicInteger calls = new AtomicInteger();
+    private final AtomicInteger throttled = new AtomicInteger();
+    private final Set<String> deleted = ConcurrentHashMap.newKeySet();
+
+    RunMemoryConsolidation(float threshold, int throttleEvery) {
+        this.threshold = threshold;
+        this.throttleEvery = throttleEvery;
+    }
+
+    public static void main(String[] args) throws Exception {
+        float threshold = args.length > 0 ? Float.parseFloat(args[0]) : 0.8f;
+        int throttleEvery = args.length > 1 ? Integer.parseInt(args[1]) : 7;
+        new RunMemoryConsolidation(threshold, throttleEvery).run();
+    }
+
+    private void run() throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/", this::handle);
+        server.start();
+        URI endpoint = URI.create("http://localhost:" + server.getAddress().getPort());
+        var credentials = StaticCredentialsProvider.create(AwsBasicCredentials.create("stub", "stub"));
+
+        try (var memoryClient = BedrockAgentCoreClient.builder().endpointOverride(endpoint).region(Region.EU_WEST_1)
+                .credentialsProvider(credentials)
+                .overrideConfiguration(c -> c.retryStrategy(AwsRetryStrategy.doNotRetry())).build();
+             var controlClient = BedrockAgentCoreControlClient.builder().endpointOverride(endpoint)
+                     .region(Region.EU_WEST_1).credentialsProvider(credentials).build()) {
+            var meterRegistry = new SimpleMeterRegistry();
+            var properties = new ConsolidationProperties(true, threshold,
+                    ConsolidationProperties.Keep.LONGEST, Duration.ofHours(1), 200, 4, 20);
+            // The job only uses the sync client
+            var shards = new MemoryShards(List.of(new MemoryShard("stub-memory", memoryClient, null, "memory")), 1,
+                    false);
+            var consolidation = new MemoryConsolidation(properties, shards, controlClient,
+                    new HashedWordsEmbeddingModel(), meterRegistry);
+
+            print("Dry run", consolidation.run(true));
+            print("Run", consolidation.run(false));
+            print("Dry run after consolidation", consolidation.run(true));
+            System.out.printf("%d calls to the stub, %d throttled, %d records deleted%n",
+                    calls.get(), throttled.get(), deleted.size());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private static void print(String name, ConsolidationReport report) {
+        System.out.printf("%n%s: %d actors, %d records, %d duplicates, %d deleted, %d actors failed, %d ms%n",
+                name, report.actors(), report.records(), report.duplicates(), report.deleted(),
+                report.failedActors(), report.duration().toMillis());
+        for (ConsolidationReport.Duplicate duplicate : report.examples()) {
+            System.out.printf("  %-28s %.2f \"%s\"%n  %-28s      kept \"%s\"%n", duplicate.namespace(),
+                    duplicate.similarity(), duplicate.text(), "", duplicate.keptText());
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        if (throttleEvery > 0 && calls.incrementAndGet() % throttleEvery == 0) {
+            throttled.incrementAndGet();
+            exchange.getResponseHeaders().add("x-amzn-ErrorType", "ThrottlingException");
+            respond(exchange, 429, "{\"message\":\"Rate exceeded\"}");
+            return;
+        }
+
+        String path = exchange.getRequestURI().getPath();
+        if ("DELETE".equals(exchange.getRequestMethod())) {
+            String recordId = path.substring(path.lastIndexOf('/') + 1);
+            deleted.add(recordId);
+            respond(exchange, 200, "{\"memoryRecordId\":\"" + recordId + "\"}");
+            return;
+        }
+        Matcher namespace = NAMESPACE.matcher(body);
+        if (namespace.find()) {
+            Matcher token = NEXT_TOKEN.matcher(body);
+            respond(exchange, 200, records(namespace.group(1), token.find() ? Integer.parseInt(token.group(1)) : 0));
+            return;
+        }
+        // Actors, sessions and the memory itself; the SDK only reads the fields of its own response shape
+        StringBuilder json = new StringBuilder("{\"actorSummaries\":[");
+        for (int i = 0; i < ACTORS.size(); i++) {
+            json.append(i > 0 ? "," : "").append("{\"actorId\":\"").append(ACTORS.get(i)).append("\"}");
+        }
+        json.append("""
+                ],"sessionSummaries":[{"sessionId":"session-1","actorId":"stub","createdAt":1760000000},
+                                      {"sessionId":"session-2","actorId":"stub","createdAt":1760000000}],
+                 "memory":{"id":"stub-memory",
+                           "arn":"arn:aws:bedrock-agentcore:eu-west-1:000000000000:memory/stub-memory",
+                           "name":"stub","status":"ACTIVE","eventExpiryDuration":90,"strategies":[
+                    {"strategyId":"facts-1","name":"facts","type":"SEMANTIC","namespaces":["/facts/{actorId}"]},
+                    {"strategyId":"summary-1","name":"summaries","type":"SUMMARIZATION",
+                     "namespaces":["/summaries/{actorId}/{sessionId}"]}]}}
+                """);
+        respond(exchange, 200, json.toString());
+    }
+
+    private String records(String namespace, int offset) {
+        List<String> texts = new ArrayList<>();
+        if (namespace.startsWith("/facts/")) {
+            FACTS.forEach(texts::addAll);
+        } else {
+            texts.addAll(SUMMARIES);
+        }
+        List<String> live = new ArrayList<>();
+        for (int i = 0; i < texts.size(); i++) {
+            String id = namespace.replace('/', '-').substring(1) + "-" + i;
+            if (deleted.contains(id)) {
+                continue;
+            }
+            live.add("""
+                    {"memoryRecordId":"%s","content":{"text":"%s"},"memoryStrategyId":"stub","namespaces":["%s"],
+                     "createdAt":%d}""".formatted(id, texts.get(i), namespace, 1760000000 - i * 3600));
+        }
+
+        int end = Math.min(live.size(), offset + STUB_PAGE_SIZE);
+        StringBuilder json = new StringBuilder("{\"memoryRecordSummaries\":[")
+                .append(String.join(",", live.subList(Math.min(offset, end), end)))
+                .append("]");
+        if (end < live.size()) {
+            json.append(",\"nextToken\":\"").append(end).append("\"");
+        }
+        return json.append("}").toString();
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] response = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, response.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(response);
+        }
+    }
+
+    /**
+     * Word counts hashed into 256 dimensions: texts that share most of their words are close, which is all the
+     * grouping needs to be shown.
+     */
+    private static class HashedWordsEmbeddingModel implements EmbeddingModel {
+
+        private static final int DIMENSIONS = 256;
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            List<Embedding> embeddings = new ArrayList<>();
+            for (String text : request.getInstructions()) {
+                embeddings.add(new Embedding(embed(text), embeddings.size()));
+            }
+            return new EmbeddingResponse(embeddings);
+        }
+
+        @Override
+        public float[] embed(String text) {
+            float[] vector = new float[DIMENSIONS];
+            for (String word : text.toLowerCase(Locale.ROOT).split("[^a-z]+")) {
+                if (!word.isEmpty()) {
+                    vector[Math.floorMod(word.hashCode(), DIMENSIONS)]++;
+                }
+            }
+            return vector;
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            return embed(document.getText());
+        }
+
+        @Override
+        public int dimensions() {
+            return DIMENSIONS;
+        }
+    }
+}
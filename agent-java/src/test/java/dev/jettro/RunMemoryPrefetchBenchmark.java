@@ -0,0 +1,145 @@
+package dev.jettro;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import dev.jettro.agent.memory.MemoryPrefetchProperties;
+import dev.jettro.agent.memory.PipelinedEventReader;
+import dev.jettro.agent.sharding.MemoryShard;
+import dev.jettro.agent.sharding.MemoryShards;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.bedrockagentcore.BedrockAgentCoreAsyncClient;
+import software.amazon.awssdk.services.bedrockagentcore.BedrockAgentCoreClient;
+import software.amazon.awssdk.services.bedrockagentcore.model.ListEventsResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Measures loading conversation history from a ListEvents stub with a fixed delay per page: the sequential reads with
+ * a fixed page size of 50, as the default repository does them, against the {@link PipelinedEventReader} on its
+ * first read of a conversation and on a later one, when it knows the conversation length.
+ * <p>
+ * No AWS account is needed:
+ * {@code mvn exec:java -Dexec.mainClass=dev.jettro.RunMemoryPrefetchBenchmark -Dexec.args="<events> <delay-ms>"}
+ */
+public class RunMemoryPrefetchBenchmark {
+
+    private static final Pattern MAX_RESULTS = Pattern.compile("\"maxResults\"\\s*:\\s*(\\d+)");
+    private static final Pattern NEXT_TOKEN = Pattern.compile("\"nextToken\"\\s*:\\s*\"(\\d+)\"");
+    private static final int RUNS = 20;
+
+    private final int events;
+    private final long delayMillis;
+
+    RunMemoryPrefetchBenchmark(int events, long delayMillis) {
+        this.events = events;
+        this.delayMillis = delayMillis;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int events = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        long delay = args.length > 1 ? Long.parseLong(args[1]) : 40;
+        new RunMemoryPrefetchBenchmark(events, delay).run();
+    }
+
+    private void run() throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/", this::listEvents);
+        server.start();
+        URI endpoint = URI.create("http://localhost:" + server.getAddress().getPort());
+        var credentials = StaticCredentialsProvider.create(AwsBasicCredentials.create("stub", "stub"));
+
+        try (var syncClient = BedrockAgentCoreClient.builder().endpointOverride(endpoint)
+                .region(Region.EU_WEST_1).credentialsProvider(credentials).build();
+             var asyncClient = BedrockAgentCoreAsyncClient.builder().endpointOverride(endpoint)
+                     .region(Region.EU_WEST_1).credentialsProvider(credentials).build()) {
+            System.out.printf("%d events, %d ms per page%n", events, delayMillis);
+
+            measure("sequential, page size 50", run -> {
+                String token = null;
+                int read = 0;
+                do {
+                    String current = token;
+                    ListEventsResponse page = syncClient.listEvents(request -> request.memoryId("stub-memory")
+                            .actorId("actor").sessionId("session-" + run).includePayloads(true).maxResults(50)
+                            .nextToken(current));
+                    read += page.events().size();
+                    token = page.nextToken();
+                } while (token != null && read < 100);
+            });
+
+            var shards = new MemoryShards(List.of(new MemoryShard("stub-memory", syncClient, asyncClient, "memory")),
+                    1, false);
+            var reader = new PipelinedEventReader(shards, new MemoryPrefetchProperties(true, 20, 100, 10000,
+                    Duration.ofSeconds(10)), 100, true);
+            measure("pipelined, first read", run -> reader.read("actor", "new-session-" + run));
+            measure("pipelined, known conversation", run -> reader.read("actor", "session"));
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private void measure(String name, Read read) {
+        read.read(-1);
+        long[] millis = new long[RUNS];
+        for (int run = 0; run < RUNS; run++) {
+            long start = System.nanoTime();
+            read.read(run);
+            millis[run] = (System.nanoTime() - start) / 1_000_000;
+        }
+        Arrays.sort(millis);
+        System.out.printf("%-32s median %4d ms, max %4d ms%n", name, millis[RUNS / 2], millis[RUNS - 1]);
+    }
+
+    private void listEvents(HttpExchange exchange) throws IOException {
+        String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        int maxResults = find(MAX_RESULTS, body, 20);
+        int offset = find(NEXT_TOKEN, body, 0);
+        int end = Math.min(events, offset + maxResults);
+
+        StringBuilder json = new StringBuilder("{\"events\":[");
+        for (int i = offset; i < end; i++) {
+            json.append(i > offset ? "," : "").append("""
+                    {"memoryId":"stub-memory","actorId":"actor","sessionId":"session","eventId":"event-%d",
+                     "eventTimestamp":%d,"payload":[{"conversational":{"content":{"text":"Message number %d"},
+                     "role":"%s"}}]}""".formatted(i, 1760000000 - i, i, i % 2 == 0 ? "ASSISTANT" : "USER"));
+        }
+        json.append("]");
+        if (end < events) {
+            json.append(",\"nextToken\":\"").append(end).append("\"");
+        }
+        byte[] response = json.append("}").toString().getBytes(StandardCharsets.UTF_8);
+
+        try {
+            Thread.sleep(delayMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, response.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(response);
+        }
+    }
+
+    private static int find(Pattern pattern, String body, int fallback) {
+        Matcher matcher = pattern.matcher(body);
+        return matcher.find() ? Integer.parseInt(matcher.group(1)) : fallback;
+    }
+
+    private interface Read {
+        void read(int run);
+    }
+}
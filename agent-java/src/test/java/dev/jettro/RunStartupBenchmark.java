@@ -0,0 +1,154 @@
+package dev.jettro;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Measures the time from launching the agent until its first {@code @AgentCoreInvocation} completes, for the plain
+ * {@code java -jar} launch and for the startup-optimized launch with Spring AOT and a class data sharing archive.
+ * Bedrock and AgentCore Memory are replaced by the {@link AgentCoreStubServer}, so no AWS account is needed.
+ * <p>
+ * Build first with {@code mvn -Pstartup package}, then run
+ * {@code mvn exec:java -Dexec.mainClass=dev.jettro.RunStartupBenchmark [-Dexec.args=<runs>]}
+ */
+public class RunStartupBenchmark {
+
+    private static final Path JAR = Path.of("target/bedrock-agent-1.0.0-SNAPSHOT.jar");
+    private static final Path STARTUP_DIR = Path.of("target/startup");
+    private static final Path ARCHIVE = STARTUP_DIR.resolve("application.jsa");
+    private static final URI INVOCATIONS = URI.create("http://localhost:8080/invocations");
+
+    private static final HttpClient HTTP = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(200)).build();
+
+    public static void main(String[] args) throws Exception {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        if (!Files.exists(JAR)) {
+            System.err.println("Build the agent first: mvn -Pstartup package");
+            System.exit(1);
+        }
+
+        AgentCoreStubServer stub = new AgentCoreStubServer(0);
+        stub.start();
+        try {
+            prepareStartupMode(stub);
+
+            List<String> jarLaunch = List.of(java(), "-jar", JAR.toString());
+            List<String> optimizedLaunch = List.of(java(), "-XX:SharedArchiveFile=" + ARCHIVE,
+                    "-Dspring.aot.enabled=true", "-jar", STARTUP_DIR.resolve(JAR.getFileName()).toString());
+
+            report("java -jar", measure(jarLaunch, stub, runs));
+            report("AOT + CDS", measure(optimizedLaunch, stub, runs));
+        } finally {
+            stub.stop();
+        }
+    }
+
+    /**
+     * Extracts the jar and creates the archive with a training run that handles one invocation
+     */
+    private static void prepareStartupMode(AgentCoreStubServer stub) throws Exception {
+        run(List.of(java(), "-Djarmode=tools", "-jar", JAR.toString(), "extract", "--force",
+                "--destination", STARTUP_DIR.toString()));
+        Files.deleteIfExists(ARCHIVE);
+
+        System.out.println("Training run for the CDS archive");
+        Process training = start(List.of(java(), "-XX:ArchiveClassesAtExit=" + ARCHIVE, "-Dspring.aot.enabled=true",
+                "-jar", STARTUP_DIR.resolve(JAR.getFileName()).toString()), stub);
+        try {
+            awaitFirstInvocation(training);
+        } finally {
+            // A normal shutdown makes the JVM dump the archive
+            training.destroy();
+            training.waitFor();
+        }
+        if (!Files.exists(ARCHIVE)) {
+            throw new IllegalStateException("Training run did not create " + ARCHIVE);
+        }
+    }
+
+    private static List<Long> measure(List<String> command, AgentCoreStubServer stub, int runs) throws Exception {
+        List<Long> millis = new ArrayList<>();
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            Process agent = start(command, stub);
+            try {
+                awaitFirstInvocation(agent);
+                millis.add(Duration.ofNanos(System.nanoTime() - start).toMillis());
+            } finally {
+                agent.destroy();
+                agent.waitFor();
+            }
+        }
+        return millis;
+    }
+
+    private static Process start(List<String> command, AgentCoreStubServer stub) throws IOException {
+        List<String> withStubSettings = new ArrayList<>(command);
+        // The stub memory has no strategies to discover or snapshot
+        withStubSettings.addAll(1, List.of("-Dagent.memory-snapshot.enabled=false",
+                "-Dagentcore.memory.long-term.auto-discovery=false"));
+        ProcessBuilder builder = new ProcessBuilder(withStubSettings)
+                .redirectErrorStream(true)
+                .redirectOutput(STARTUP_DIR.resolve("agent.log").toFile());
+        Map<String, String> env = builder.environment();
+        env.put("AWS_ENDPOINT_URL", stub.endpoint());
+        env.put("AWS_ACCESS_KEY_ID", "stub");
+        env.put("AWS_SECRET_ACCESS_KEY", "stub");
+        env.put("AWS_REGION", "eu-west-1");
+        env.put("AGENTCORE_MEMORY_ID", "stub-memory");
+        return builder.start();
+    }
+
+    private static void awaitFirstInvocation(Process agent) throws Exception {
+        HttpRequest invocation = HttpRequest.newBuilder(INVOCATIONS)
+                .header("Content-Type", "application/json")
+                .header("X-Amzn-Bedrock-AgentCore-Runtime-Session-Id", "startup-benchmark-session-000000001")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"prompt\":\"What time is it?\",\"actor\":\"benchmark\"}"))
+                .build();
+        long giveUp = System.nanoTime() + Duration.ofMinutes(2).toNanos();
+        while (System.nanoTime() < giveUp) {
+            if (!agent.isAlive()) {
+                throw new IllegalStateException("Agent exited, see " + STARTUP_DIR.resolve("agent.log"));
+            }
+            try {
+                if (HTTP.send(invocation, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // Not listening yet
+            }
+            Thread.sleep(20);
+        }
+        throw new IllegalStateException("No successful invocation within 2 minutes");
+    }
+
+    private static void report(String mode, List<Long> millis) {
+        List<Long> sorted = new ArrayList<>(millis);
+        Collections.sort(sorted);
+        System.out.printf("%-10s first invocation after: median %5d ms, best %5d ms, runs %s%n", mode,
+                sorted.get(sorted.size() / 2), sorted.getFirst(), millis);
+    }
+
+    private static void run(List<String> command) throws Exception {
+        Files.createDirectories(STARTUP_DIR);
+        int exit = new ProcessBuilder(command).inheritIO().start().waitFor();
+        if (exit != 0) {
+            throw new IllegalStateException("Command failed: " + command);
+        }
+    }
+
+    private static String java() {
+        return System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+    }
+}
@@ -0,0 +1,35 @@
+package dev.jettro;
+
+import dev.jettro.agent.memory.StrategySnapshot;
+import software.amazon.awssdk.services.bedrockagentcorecontrol.BedrockAgentCoreControlClient;
+
+import java.nio.file.Path;
+
+/**
+ * Writes the memory strategy snapshot that is baked into the image, so the agent does not discover the strategies on
+ * every cold start. Run it before {@code mvn package} against the memory the runtime will use.
+ * <p>
+ * Usage: {@code AGENTCORE_MEMORY_ID=... mvn exec:java -Dexec.mainClass=dev.jettro.SnapshotMemoryStrategies}
+ */
+public class SnapshotMemoryStrategies {
+
+    public static void main(String[] args) throws Exception {
+        String memoryId = args.length > 0 ? args[0] : System.getenv("AGENTCORE_MEMORY_ID");
+        Path target = Path.of(args.length > 1 ? args[1] : "src/main/resources/memory-strategies.json");
+        if (memoryId == null || memoryId.isBlank()) {
+            System.err.println("Pass the memory id as argument or set AGENTCORE_MEMORY_ID");
+            System.exit(1);
+        }
+
+        try (BedrockAgentCoreControlClient controlClient = BedrockAgentCoreControlClient.create()) {
+            StrategySnapshot snapshot = StrategySnapshot.of(
+                    controlClient.getMemory(request -> request.memoryId(memoryId)).memory());
+            snapshot.write(target);
+
+            System.out.println("Wrote " + snapshot.strategies().size() + " strategies of memory " + memoryId
+                    + " to " + target);
+            snapshot.strategies().forEach(strategy -> System.out.println("  " + strategy.type() + " "
+                    + strategy.strategyId() + " " + strategy.namespaces()));
+        }
+    }
+}
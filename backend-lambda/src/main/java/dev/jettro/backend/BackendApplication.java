@@ -2,9 +2,11 @@ package dev.jettro.backend;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
 @RegisterReflectionForBinding({
     com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent.class,
     com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent.class
@@ -0,0 +1,70 @@
+package dev.jettro.backend.config;
+
+import dev.jettro.backend.service.DynamoDbJobStore;
+import dev.jettro.backend.service.FileJobStore;
+import dev.jettro.backend.service.InMemoryJobStore;
+import dev.jettro.backend.service.JobDispatcher;
+import dev.jettro.backend.service.JobRunner;
+import dev.jettro.backend.service.JobStore;
+import dev.jettro.backend.service.LambdaJobDispatcher;
+import dev.jettro.backend.service.LocalJobDispatcher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import software.amazon.awssdk.http.urlconnection.UrlConnectionHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.lambda.LambdaClient;
+import tools.jackson.databind.ObjectMapper;
+
+import java.nio.file.Path;
+
+/**
+ * Picks the job store and dispatcher. Deployed on Lambda jobs live in DynamoDB and run in an asynchronous invocation
+ * of the same function; locally the in-memory or file store and a thread in the same JVM are enough.
+ */
+@Configuration
+public class JobConfiguration {
+
+    @Bean
+    @ConditionalOnProperty(name = "agentcore.jobs.store", havingValue = "memory", matchIfMissing = true)
+    public JobStore inMemoryJobStore() {
+        return new InMemoryJobStore();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "agentcore.jobs.store", havingValue = "file")
+    public JobStore fileJobStore(@Value("${agentcore.jobs.file-directory}") Path directory, ObjectMapper objectMapper) {
+        return new FileJobStore(directory, objectMapper);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "agentcore.jobs.store", havingValue = "dynamodb")
+    public JobStore dynamoDbJobStore(@Value("${aws.region}") String region,
+                                     @Value("${agentcore.jobs.table-name}") String tableName) {
+        DynamoDbClient dynamoDb = DynamoDbClient.builder()
+                .region(Region.of(region))
+                .httpClientBuilder(UrlConnectionHttpClient.builder())
+                .build();
+        return new DynamoDbJobStore(dynamoDb, tableName);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "agentcore.jobs.dispatcher", havingValue = "local", matchIfMissing = true)
+    public JobDispatcher localJobDispatcher(JobRunner jobRunner) {
+        return new LocalJobDispatcher(jobRunner);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "agentcore.jobs.dispatcher", havingValue = "lambda")
+    public JobDispatcher lambdaJobDispatcher(@Value("${aws.region}") String region,
+                                             @Value("${agentcore.jobs.function-name}") String functionName,
+                                             ObjectMapper objectMapper) {
+        LambdaClient lambdaClient = LambdaClient.builder()
+                .region(Region.of(region))
+                .httpClientBuilder(UrlConnectionHttpClient.builder())
+                .build();
+        return new LambdaJobDispatcher(lambdaClient, functionName, objectMapper);
+    }
+}
@@ -0,0 +1,70 @@
+package dev.jettro.backend.config;
+
+import dev.jettro.backend.service.AgentCoreInvocationException;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Circuit breaker and bulkhead around the AgentCore Runtime. Both live as long as the Lambda execution environment,
+ * so a warm environment stops sending requests to a runtime that keeps failing or hanging.
+ */
+@Configuration
+public class ResilienceConfiguration {
+
+    private static final Logger log = LoggerFactory.getLogger(ResilienceConfiguration.class);
+
+    @Bean
+    public CircuitBreaker agentCoreCircuitBreaker(
+            @Value("${agentcore.resilience.sliding-window-size:20}") int slidingWindowSize,
+            @Value("${agentcore.resilience.minimum-calls:5}") int minimumCalls,
+            @Value("${agentcore.resilience.failure-rate-threshold:50}") float failureRateThreshold,
+            @Value("${agentcore.resilience.slow-call-rate-threshold:80}") float slowCallRateThreshold,
+            @Value("${agentcore.resilience.slow-call-duration:20s}") Duration slowCallDuration,
+            @Value("${agentcore.resilience.wait-in-open-state:30s}") Duration waitInOpenState,
+            @Value("${agentcore.resilience.half-open-calls:2}") int halfOpenCalls) {
+        CircuitBreakerConfig config = CircuitBreakerConfig.custom()
+                .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+                .slidingWindowSize(slidingWindowSize)
+                .minimumNumberOfCalls(minimumCalls)
+                .failureRateThreshold(failureRateThreshold)
+                .slowCallRateThreshold(slowCallRateThreshold)
+                .slowCallDurationThreshold(slowCallDuration)
+                .waitDurationInOpenState(waitInOpenState)
+                .permittedNumberOfCallsInHalfOpenState(halfOpenCalls)
+                .recordException(e -> !(e instanceof AgentCoreInvocationException invocation)
+                        || invocation.isRuntimeFailure())
+                .ignoreExceptions(BulkheadFullException.class)
+                .build();
+
+        CircuitBreaker circuitBreaker = CircuitBreaker.of("agentcore", config);
+        circuitBreaker.getEventPublisher().onStateTransition(event -> {
+            CircuitBreaker.Metrics metrics = circuitBreaker.getMetrics();
+            log.warn("AgentCore circuit breaker went from {} to {} (failure rate {}%, slow call rate {}%, calls {})",
+                    event.getStateTransition().getFromState(), event.getStateTransition().getToState(),
+                    metrics.getFailureRate(), metrics.getSlowCallRate(), metrics.getNumberOfBufferedCalls());
+        });
+        return circuitBreaker;
+    }
+
+    @Bean
+    public Bulkhead agentCoreBulkhead(
+            @Value("${agentcore.resilience.max-concurrent-calls:8}") int maxConcurrentCalls,
+            @Value("${agentcore.resilience.max-wait:0ms}") Duration maxWait) {
+        Bulkhead bulkhead = Bulkhead.of("agentcore", BulkheadConfig.custom()
+                .maxConcurrentCalls(maxConcurrentCalls)
+                .maxWaitDuration(maxWait)
+                .build());
+        bulkhead.getEventPublisher().onCallRejected(event -> log.warn("AgentCore bulkhead is full, call rejected"));
+        return bulkhead;
+    }
+}
@@ -0,0 +1,40 @@
+package dev.jettro.backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * The AgentCore Runtime endpoints to spread invocations over, for instance one per region or per runtime version.
+ * Without endpoints the single {@code agentcore.runtime.endpoint} and {@code agentcore.runtime.arn} are used with the
+ * DEFAULT qualifier.
+ *
+ * @param endpoints          Runtime endpoints to choose from
+ * @param ewmaAlpha          Weight of the newest sample in the latency and error rate averages, between 0 and 1
+ * @param ejectAfterFailures Consecutive failures after which an endpoint is taken out of rotation
+ * @param ejectionTime       How long the first ejection lasts, it doubles for every ejection in a row
+ * @param maxEjectionTime    Longest ejection
+ */
+@ConfigurationProperties(prefix = "agentcore.routing")
+public record RuntimeRoutingProperties(
+        List<Endpoint> endpoints,
+        @DefaultValue("0.3") double ewmaAlpha,
+        @DefaultValue("3") int ejectAfterFailures,
+        @DefaultValue("30s") Duration ejectionTime,
+        @DefaultValue("5m") Duration maxEjectionTime) {
+
+    public RuntimeRoutingProperties {
+        endpoints = endpoints == null ? List.of() : List.copyOf(endpoints);
+    }
+
+    /**
+     * @param name      Name used in logs, e.g. the region
+     * @param endpoint  Base URL of the AgentCore data plane
+     * @param arn       ARN of the runtime
+     * @param qualifier Endpoint qualifier of the runtime
+     */
+    public record Endpoint(String name, String endpoint, String arn, @DefaultValue("DEFAULT") String qualifier) {
+    }
+}
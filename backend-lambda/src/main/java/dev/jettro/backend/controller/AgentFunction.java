@@ -2,19 +2,36 @@ package dev.jettro.backend.controller;
 
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
-import dev.jettro.backend.model.ErrorResponse;
+import dev.jettro.backend.model.BatchInvokeRequest;
+import dev.jettro.backend.model.BatchInvokeResponse;
+import dev.jettro.backend.model.BatchItemResult;
 import dev.jettro.backend.model.InvokeRequest;
 import dev.jettro.backend.model.InvokeResponse;
+import dev.jettro.backend.model.Job;
+import dev.jettro.backend.model.JobResponse;
+import dev.jettro.backend.model.JobStatus;
 import dev.jettro.backend.service.AgentCoreClientService;
+import dev.jettro.backend.service.AgentTimeoutException;
+import dev.jettro.backend.service.AgentUnavailableException;
+import dev.jettro.backend.service.BatchInvocationService;
+import dev.jettro.backend.service.BodyTooLargeException;
+import dev.jettro.backend.service.JobDispatcher;
+import dev.jettro.backend.service.JobRunner;
+import dev.jettro.backend.service.JobService;
 import dev.jettro.backend.service.TokenValidatorService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectReader;
+import tools.jackson.databind.ObjectWriter;
 
-import java.util.HashMap;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.function.Function;
 
 @Configuration
@@ -24,116 +41,209 @@ public class AgentFunction {
 
     private final TokenValidatorService tokenValidator;
     private final AgentCoreClientService agentCoreClient;
-    private final ObjectMapper objectMapper;
+    private final JobService jobService;
+    private final JobRunner jobRunner;
+    private final BatchInvocationService batchInvocationService;
+    private final ContentEncoding contentEncoding;
+
+    // Readers and writers are bound to their type once, instead of looking it up on every request
+    private final ObjectReader invokeRequestReader;
+    private final ObjectReader batchRequestReader;
+    private final ObjectWriter invokeResponseWriter;
+    private final ObjectWriter batchResponseWriter;
+    private final ObjectWriter jobResponseWriter;
 
     public AgentFunction(TokenValidatorService tokenValidator,
                         AgentCoreClientService agentCoreClient,
+                        JobService jobService,
+                        JobRunner jobRunner,
+                        BatchInvocationService batchInvocationService,
+                        ContentEncoding contentEncoding,
                         ObjectMapper objectMapper) {
         this.tokenValidator = tokenValidator;
         this.agentCoreClient = agentCoreClient;
-        this.objectMapper = objectMapper;
+        this.jobService = jobService;
+        this.jobRunner = jobRunner;
+        this.batchInvocationService = batchInvocationService;
+        this.contentEncoding = contentEncoding;
+        this.invokeRequestReader = objectMapper.readerFor(InvokeRequest.class);
+        this.batchRequestReader = objectMapper.readerFor(BatchInvokeRequest.class);
+        this.invokeResponseWriter = objectMapper.writerFor(InvokeResponse.class);
+        this.batchResponseWriter = objectMapper.writerFor(BatchInvokeResponse.class);
+        this.jobResponseWriter = objectMapper.writerFor(JobResponse.class);
     }
 
     @Bean
     public Function<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> invokeAgent() {
-        return request -> {
-            try {
-                log.info("Received agent invocation request");
+        return request -> contentEncoding.encode(request, handle(request));
+    }
 
-                // Extract Authorization header
-                Map<String, String> headers = request.getHeaders();
-                if (headers == null || !headers.containsKey("Authorization")) {
-                    return createErrorResponse(401, "Missing Authorization header");
-                }
+    private APIGatewayProxyResponseEvent handle(APIGatewayProxyRequestEvent request) {
+        try {
+            log.info("Received agent invocation request");
 
-                String bearerToken = headers.get("Authorization");
-                
-                // Validate token and get user ID
-                String userId;
-                try {
-                    userId = tokenValidator.validateTokenAndGetUserId(bearerToken);
-                } catch (SecurityException e) {
-                    log.error("Token validation failed", e);
-                    return createErrorResponse(401, "Invalid or expired token: " + e.getMessage());
-                }
+            // Asynchronous invocation of this function by the job dispatcher, API Gateway has no such route
+            boolean jobRun = JobDispatcher.RUN_PATH.equals(request.getPath()) && request.getRequestContext() == null;
 
-                // Parse request body
-                InvokeRequest invokeRequest;
-                try {
-                    invokeRequest = objectMapper.readValue(request.getBody(), InvokeRequest.class);
-                } catch (Exception e) {
-                    log.error("Failed to parse request body", e);
-                    return createErrorResponse(400, "Invalid request body: " + e.getMessage());
+            // Extract Authorization header
+            Map<String, String> headers = request.getHeaders();
+            if (headers == null || !headers.containsKey("Authorization")) {
+                if (jobRun) {
+                    jobRunner.fail(pathParameter(request, "jobId"), "Job was dispatched without a token");
                 }
+                return ApiResponses.error(ApiError.MISSING_AUTHORIZATION);
+            }
 
-                // Validate request
-                if (invokeRequest.prompt() == null || invokeRequest.prompt().isBlank()) {
-                    return createErrorResponse(400, "Prompt is required");
+            String bearerToken = headers.get("Authorization");
+            
+            // Validate token and get user ID
+            String userId;
+            try {
+                userId = tokenValidator.validateTokenAndGetUserId(bearerToken);
+            } catch (SecurityException e) {
+                log.error("Token validation failed", e);
+                if (jobRun) {
+                    // Nobody else picks the job up, without this it would stay pending until it expires
+                    jobRunner.fail(pathParameter(request, "jobId"), "Token expired before the job started");
                 }
+                return ApiResponses.error(ApiError.INVALID_TOKEN);
+            }
 
-                // Invoke AgentCore Runtime
-                try {
-                    InvokeResponse response = agentCoreClient.invokeAgent(invokeRequest, bearerToken, userId);
-                    
-                    // Create successful response
-                    String responseBody = objectMapper.writeValueAsString(response);
-                    return createSuccessResponse(200, responseBody);
-                    
-                } catch (Exception e) {
-                    log.error("Failed to invoke AgentCore Runtime", e);
-                    return createErrorResponse(500, "Failed to invoke agent: " + e.getMessage());
-                }
+            if (jobRun) {
+                jobRunner.run(pathParameter(request, "jobId"), bearerToken);
+                return ApiResponses.success(200, "{}");
+            }
+
+            // Poll or cancel a detached job
+            if ("/agent/jobs/{jobId}".equals(request.getResource())) {
+                String jobId = pathParameter(request, "jobId");
+                return "DELETE".equals(request.getHttpMethod())
+                        ? cancelJob(jobId, userId)
+                        : getJob(jobId, userId);
+            }
+
+            // Many independent prompts under one token validation
+            if ("/agent/batch".equals(request.getResource())) {
+                return invokeBatch(request, bearerToken, userId);
+            }
+
+            // Parse request body
+            InvokeRequest invokeRequest;
+            try {
+                invokeRequest = invokeRequestReader.readValue(contentEncoding.requestBody(request));
+            } catch (BodyTooLargeException e) {
+                log.warn("Rejected request body: {}", e.getMessage());
+                return ApiResponses.error(ApiError.BODY_TOO_LARGE);
+            } catch (Exception e) {
+                log.error("Failed to parse request body", e);
+                return ApiResponses.error(ApiError.INVALID_BODY);
+            }
+
+            // Validate request
+            if (invokeRequest.prompt() == null || invokeRequest.prompt().isBlank()) {
+                return ApiResponses.error(ApiError.PROMPT_REQUIRED);
+            }
+
+            // Submit a detached job, the agent call runs after this request returned
+            if ("/agent/jobs".equals(request.getResource())) {
+                Job job = jobService.submit(invokeRequest, bearerToken, userId);
+                return ApiResponses.success(202, jobResponseWriter.writeValueAsString(JobResponse.of(job)));
+            }
 
+            // Invoke AgentCore Runtime
+            try {
+                InvokeResponse response = agentCoreClient.invokeAgent(invokeRequest, bearerToken, userId,
+                        receivedAt(request));
+                
+                return ApiResponses.success(200, invokeResponseWriter.writeValueAsString(response));
+                
+            } catch (AgentUnavailableException e) {
+                log.warn("AgentCore Runtime unavailable: {}", e.getMessage());
+                return ApiResponses.error(ApiError.UNAVAILABLE, e.getRetryAfter());
+            } catch (AgentTimeoutException e) {
+                log.warn("AgentCore Runtime timed out: {}", e.getMessage());
+                return ApiResponses.error(ApiError.TIMEOUT);
             } catch (Exception e) {
-                log.error("Unexpected error processing request", e);
-                return createErrorResponse(500, "Internal server error: " + e.getMessage());
+                log.error("Failed to invoke AgentCore Runtime", e);
+                return ApiResponses.error(ApiError.INVOCATION_FAILED);
             }
-        };
+
+        } catch (Exception e) {
+            log.error("Unexpected error processing request", e);
+            return ApiResponses.error(ApiError.INTERNAL);
+        }
+    }
+
+    /**
+     * Invokes the agent for every item of a batch. Each item gets its own status; the batch itself only fails when
+     * the request is malformed. API Gateway buffers proxy responses, so the results come back together, in the order
+     * the items completed.
+     */
+    private APIGatewayProxyResponseEvent invokeBatch(APIGatewayProxyRequestEvent request, String bearerToken,
+                                                     String userId) {
+        BatchInvokeRequest batchRequest;
+        try {
+            batchRequest = batchRequestReader.readValue(contentEncoding.requestBody(request));
+        } catch (BodyTooLargeException e) {
+            log.warn("Rejected request body: {}", e.getMessage());
+            return ApiResponses.error(ApiError.BODY_TOO_LARGE);
+        } catch (Exception e) {
+            log.error("Failed to parse batch request body", e);
+            return ApiResponses.error(ApiError.INVALID_BODY);
+        }
+        if (batchRequest.items() == null || batchRequest.items().isEmpty()) {
+            return ApiResponses.error(ApiError.ITEMS_REQUIRED);
+        }
+        if (batchRequest.items().size() > batchInvocationService.getMaxItems()) {
+            log.warn("Batch of {} items is over the maximum of {}", batchRequest.items().size(),
+                    batchInvocationService.getMaxItems());
+            return ApiResponses.error(ApiError.TOO_MANY_ITEMS);
+        }
+
+        List<BatchItemResult> results = new ArrayList<>(batchRequest.items().size());
+        batchInvocationService.invokeAll(batchRequest.items(), bearerToken, userId, receivedAt(request), results::add);
+        return ApiResponses.success(200,
+                batchResponseWriter.writeValueAsString(BatchInvokeResponse.of(results, userId)));
     }
 
     /**
-     * Creates a success response with CORS headers
+     * Returns the status of a job, and its result once it has finished
      */
-    private APIGatewayProxyResponseEvent createSuccessResponse(int statusCode, String body) {
-        APIGatewayProxyResponseEvent response = new APIGatewayProxyResponseEvent();
-        response.setStatusCode(statusCode);
-        response.setBody(body);
-        response.setHeaders(createCorsHeaders());
-        return response;
+    private APIGatewayProxyResponseEvent getJob(String jobId, String userId) {
+        Optional<Job> job = jobService.find(jobId, userId);
+        if (job.isEmpty()) {
+            return ApiResponses.error(ApiError.JOB_NOT_FOUND);
+        }
+        return ApiResponses.success(200, jobResponseWriter.writeValueAsString(JobResponse.of(job.get())));
     }
 
     /**
-     * Creates an error response with CORS headers
+     * Cancels a job that has not finished, a finished job results in a conflict
      */
-    private APIGatewayProxyResponseEvent createErrorResponse(int statusCode, String message) {
-        try {
-            ErrorResponse errorResponse = new ErrorResponse(message, "Error", statusCode);
-            String body = objectMapper.writeValueAsString(errorResponse);
-            
-            APIGatewayProxyResponseEvent response = new APIGatewayProxyResponseEvent();
-            response.setStatusCode(statusCode);
-            response.setBody(body);
-            response.setHeaders(createCorsHeaders());
-            return response;
-        } catch (Exception e) {
-            log.error("Failed to serialize error response", e);
-            APIGatewayProxyResponseEvent response = new APIGatewayProxyResponseEvent();
-            response.setStatusCode(statusCode);
-            response.setBody("{\"message\":\"" + message.replace("\"", "\\\"") + "\"}");
-            response.setHeaders(createCorsHeaders());
-            return response;
+    private APIGatewayProxyResponseEvent cancelJob(String jobId, String userId) {
+        Optional<Job> job = jobService.cancel(jobId, userId);
+        if (job.isEmpty()) {
+            return ApiResponses.error(ApiError.JOB_NOT_FOUND);
+        }
+        if (job.get().status() != JobStatus.CANCELLED) {
+            log.info("Job {} has already finished with status {}", jobId, job.get().status());
+            return ApiResponses.error(ApiError.JOB_FINISHED);
         }
+        return ApiResponses.success(200, jobResponseWriter.writeValueAsString(JobResponse.of(job.get())));
+    }
+
+    private String pathParameter(APIGatewayProxyRequestEvent request, String name) {
+        Map<String, String> parameters = request.getPathParameters();
+        return parameters == null ? null : parameters.get(name);
     }
 
     /**
-     * Creates CORS headers for API Gateway responses
+     * The moment API Gateway received the request, falls back to now when the request context is missing
      */
-    private Map<String, String> createCorsHeaders() {
-        Map<String, String> headers = new HashMap<>();
-        headers.put("Content-Type", "application/json");
-        headers.put("Access-Control-Allow-Origin", "*"); // TODO: Restrict in production
-        headers.put("Access-Control-Allow-Headers", "Content-Type,Authorization");
-        headers.put("Access-Control-Allow-Methods", "POST,OPTIONS");
-        return headers;
+    private Instant receivedAt(APIGatewayProxyRequestEvent request) {
+        if (request.getRequestContext() != null && request.getRequestContext().getRequestTimeEpoch() != null) {
+            return Instant.ofEpochMilli(request.getRequestContext().getRequestTimeEpoch());
+        }
+        return Instant.now();
     }
 }
@@ -0,0 +1,41 @@
+package dev.jettro.backend.controller;
+
+import dev.jettro.backend.model.ErrorResponse;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * The error responses of the API. Their messages never contain request data, so each body is serialized once, when
+ * the class is loaded, instead of on every failed request.
+ */
+enum ApiError {
+
+    MISSING_AUTHORIZATION(401, "Missing Authorization header"),
+    INVALID_TOKEN(401, "Invalid or expired token"),
+    INVALID_BODY(400, "Invalid request body"),
+    PROMPT_REQUIRED(400, "Prompt is required"),
+    ITEMS_REQUIRED(400, "Items are required"),
+    TOO_MANY_ITEMS(400, "Too many items in the batch"),
+    JOB_NOT_FOUND(404, "Job not found"),
+    JOB_FINISHED(409, "Job has already finished"),
+    BODY_TOO_LARGE(413, "Request body is too large"),
+    INVOCATION_FAILED(500, "Failed to invoke agent"),
+    INTERNAL(500, "Internal server error"),
+    UNAVAILABLE(503, "Agent is temporarily unavailable, please retry later"),
+    TIMEOUT(504, "Agent did not answer in time, please try again");
+
+    private final int status;
+    private final String body;
+
+    ApiError(int status, String message) {
+        this.status = status;
+        this.body = JsonMapper.shared().writeValueAsString(new ErrorResponse(message, "Error", status));
+    }
+
+    int status() {
+        return status;
+    }
+
+    String body() {
+        return body;
+    }
+}
@@ -0,0 +1,55 @@
+package dev.jettro.backend.controller;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Builds the API Gateway responses. All responses share one immutable map of CORS headers; only a response that
+ * adds a header of its own gets a copy.
+ */
+final class ApiResponses {
+
+    // TODO: Restrict the allowed origin in production
+    private static final Map<String, String> HEADERS = Map.of(
+            "Content-Type", "application/json",
+            "Access-Control-Allow-Origin", "*",
+            "Access-Control-Allow-Headers", "Content-Type,Authorization",
+            "Access-Control-Allow-Methods", "GET,POST,DELETE,OPTIONS");
+
+    private ApiResponses() {
+    }
+
+    /**
+     * Creates a success response with CORS headers
+     */
+    static APIGatewayProxyResponseEvent success(int statusCode, String body) {
+        return response(statusCode, body, HEADERS);
+    }
+
+    /**
+     * Creates an error response with CORS headers and the pre-serialized body of the error
+     */
+    static APIGatewayProxyResponseEvent error(ApiError error) {
+        return response(error.status(), error.body(), HEADERS);
+    }
+
+    /**
+     * Creates an error response that tells the client when to retry
+     */
+    static APIGatewayProxyResponseEvent error(ApiError error, Duration retryAfter) {
+        Map<String, String> headers = new HashMap<>(HEADERS);
+        headers.put("Retry-After", Long.toString(Math.max(1, retryAfter.toSeconds())));
+        return response(error.status(), error.body(), headers);
+    }
+
+    private static APIGatewayProxyResponseEvent response(int statusCode, String body, Map<String, String> headers) {
+        APIGatewayProxyResponseEvent response = new APIGatewayProxyResponseEvent();
+        response.setStatusCode(statusCode);
+        response.setBody(body);
+        response.setHeaders(headers);
+        return response;
+    }
+}
@@ -0,0 +1,80 @@
+package dev.jettro.backend.controller;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import dev.jettro.backend.service.Gzip;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Content negotiation between the frontend and the Lambda through API Gateway.
+ * <p>
+ * A response body of at least {@code api.compression.min-size} bytes is gzipped when the request accepts gzip, and
+ * handed to API Gateway base64-encoded; with the wildcard binary media type API Gateway sends it as binary. Smaller
+ * bodies are sent as they are, the gzip header and the base64 expansion would make them larger. Request bodies come
+ * base64-encoded from API Gateway for the same reason, and may be gzipped by the client.
+ */
+@Component
+public class ContentEncoding {
+
+    private final boolean enabled;
+    private final int minSize;
+
+    public ContentEncoding(@Value("${api.compression.enabled:true}") boolean enabled,
+                    @Value("${api.compression.min-size:1024}") int minSize) {
+        this.enabled = enabled;
+        this.minSize = minSize;
+    }
+
+    /**
+     * The request body as text, decoded from base64 and gzip when needed
+     */
+    String requestBody(APIGatewayProxyRequestEvent request) {
+        String body = request.getBody();
+        if (body == null || !Boolean.TRUE.equals(request.getIsBase64Encoded())) {
+            return body;
+        }
+        byte[] bytes = Base64.getDecoder().decode(body);
+        if (Gzip.ENCODING.equalsIgnoreCase(header(request.getHeaders(), "Content-Encoding"))) {
+            bytes = Gzip.decompress(bytes);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Gzips the response body when the client accepts it and the body is large enough to gain from it
+     */
+    APIGatewayProxyResponseEvent encode(APIGatewayProxyRequestEvent request, APIGatewayProxyResponseEvent response) {
+        String body = response.getBody();
+        // Most bodies are ASCII JSON, the length in chars is a cheap lower bound of the length in bytes
+        if (!enabled || body == null || body.length() < minSize
+                || !Gzip.isAccepted(header(request.getHeaders(), "Accept-Encoding"))) {
+            return response;
+        }
+        byte[] compressed = Gzip.compress(body.getBytes(StandardCharsets.UTF_8));
+        Map<String, String> headers = new HashMap<>(response.getHeaders());
+        headers.put("Content-Encoding", Gzip.ENCODING);
+        headers.put("Vary", "Accept-Encoding");
+        response.setHeaders(headers);
+        response.setBody(Base64.getEncoder().encodeToString(compressed));
+        response.setIsBase64Encoded(true);
+        return response;
+    }
+
+    private static String header(Map<String, String> headers, String name) {
+        if (headers == null) {
+            return null;
+        }
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            if (header.getKey().equalsIgnoreCase(name)) {
+                return header.getValue();
+            }
+        }
+        return null;
+    }
+}
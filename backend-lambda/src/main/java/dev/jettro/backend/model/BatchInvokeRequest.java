@@ -0,0 +1,7 @@
+package dev.jettro.backend.model;
+
+import java.util.List;
+
+public record BatchInvokeRequest(
+    List<InvokeRequest> items
+) {}
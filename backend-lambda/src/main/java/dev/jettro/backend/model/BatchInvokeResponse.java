@@ -0,0 +1,18 @@
+package dev.jettro.backend.model;
+
+import java.util.List;
+
+/**
+ * Results in the order the items completed
+ */
+public record BatchInvokeResponse(
+    List<BatchItemResult> results,
+    String userId,
+    int succeeded,
+    int failed
+) {
+    public static BatchInvokeResponse of(List<BatchItemResult> results, String userId) {
+        int succeeded = (int) results.stream().filter(result -> result.status() == 200).count();
+        return new BatchInvokeResponse(results, userId, succeeded, results.size() - succeeded);
+    }
+}
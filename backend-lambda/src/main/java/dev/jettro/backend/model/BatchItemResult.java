@@ -0,0 +1,20 @@
+package dev.jettro.backend.model;
+
+/**
+ * Outcome of one item of a batch, {@code index} points into the items of the request
+ */
+public record BatchItemResult(
+    int index,
+    int status,
+    String response,
+    String sessionId,
+    String error
+) {
+    public static BatchItemResult success(int index, InvokeResponse response) {
+        return new BatchItemResult(index, 200, response.response(), response.sessionId(), null);
+    }
+
+    public static BatchItemResult failure(int index, int status, String error) {
+        return new BatchItemResult(index, status, null, null, error);
+    }
+}
@@ -0,0 +1,41 @@
+package dev.jettro.backend.model;
+
+import java.time.Instant;
+
+/**
+ * An agent invocation that runs detached from the API request that submitted it
+ */
+public record Job(
+    String jobId,
+    String userId,
+    String prompt,
+    String sessionId,
+    JobStatus status,
+    String response,
+    String error,
+    Instant createdAt,
+    Instant updatedAt,
+    Instant expiresAt
+) {
+    public static Job submitted(String jobId, String userId, InvokeRequest request, Instant now, Instant expiresAt) {
+        return new Job(jobId, userId, request.prompt(), request.sessionId(), JobStatus.PENDING, null, null,
+                now, now, expiresAt);
+    }
+
+    public Job withStatus(JobStatus status, Instant now) {
+        return new Job(jobId, userId, prompt, sessionId, status, response, error, createdAt, now, expiresAt);
+    }
+
+    public Job succeeded(InvokeResponse result, Instant now, Instant expiresAt) {
+        return new Job(jobId, userId, prompt, result.sessionId(), JobStatus.SUCCEEDED, result.response(), null,
+                createdAt, now, expiresAt);
+    }
+
+    public Job failed(String error, Instant now, Instant expiresAt) {
+        return new Job(jobId, userId, prompt, sessionId, JobStatus.FAILED, null, error, createdAt, now, expiresAt);
+    }
+
+    public boolean isExpired(Instant now) {
+        return expiresAt != null && !expiresAt.isAfter(now);
+    }
+}
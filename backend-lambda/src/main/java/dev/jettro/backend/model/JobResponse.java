@@ -0,0 +1,21 @@
+package dev.jettro.backend.model;
+
+import java.time.Instant;
+
+/**
+ * What a user gets to see of a job, the prompt is not echoed back
+ */
+public record JobResponse(
+    String jobId,
+    JobStatus status,
+    String response,
+    String error,
+    String sessionId,
+    Instant createdAt,
+    Instant updatedAt
+) {
+    public static JobResponse of(Job job) {
+        return new JobResponse(job.jobId(), job.status(), job.response(), job.error(), job.sessionId(),
+                job.createdAt(), job.updatedAt());
+    }
+}
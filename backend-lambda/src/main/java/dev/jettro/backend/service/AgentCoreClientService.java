@@ -2,20 +2,25 @@ package dev.jettro.backend.service;
 
 import dev.jettro.backend.model.InvokeRequest;
 import dev.jettro.backend.model.InvokeResponse;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
-import java.net.URI;
 import java.net.URL;
-import java.net.URLEncoder;
 import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.time.Instant;
 import java.util.UUID;
 
 @Service
@@ -23,56 +28,137 @@ public class AgentCoreClientService {
 
     private static final Logger log = LoggerFactory.getLogger(AgentCoreClientService.class);
 
-    @Value("${agentcore.runtime.endpoint}")
-    private String agentCoreEndpoint;
+    /**
+     * Absolute deadline of the invocation in epoch milliseconds, the agent stops working on it after this moment
+     */
+    static final String DEADLINE_HEADER = "X-Amzn-Bedrock-AgentCore-Runtime-Custom-Deadline";
+
+    @Value("${agentcore.deadline.gateway-timeout:29s}")
+    private Duration gatewayTimeout;
+
+    @Value("${agentcore.deadline.response-margin:1s}")
+    private Duration responseMargin;
 
-    @Value("${agentcore.runtime.arn}")
-    private String agentCoreRuntimeArn;
+    // Only when the runtime accepts gzipped request bodies, responses are always accepted gzipped
+    @Value("${agentcore.compression.request-enabled:false}")
+    private boolean compressRequests;
+
+    @Value("${agentcore.compression.min-size:1024}")
+    private int compressionMinSize;
 
     private final HttpClient httpClient;
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    private final EndpointSelector endpointSelector;
 
-    public AgentCoreClientService() {
+    public AgentCoreClientService(CircuitBreaker agentCoreCircuitBreaker, Bulkhead agentCoreBulkhead,
+                                  EndpointSelector endpointSelector) {
         this.httpClient = HttpClient.newBuilder()
                 .connectTimeout(Duration.ofSeconds(30))
                 .build();
+        this.circuitBreaker = agentCoreCircuitBreaker;
+        this.bulkhead = agentCoreBulkhead;
+        this.endpointSelector = endpointSelector;
+    }
+
+    /**
+     * Invokes the AgentCore Runtime with the user's prompt, unless the circuit breaker is open or too many
+     * invocations are already running
+     *
+     * @param request     The invoke request with prompt and optional sessionId
+     * @param bearerToken The JWT bearer token from the frontend
+     * @param userId      The user ID extracted from the token
+     * @param receivedAt  The moment API Gateway received the request, the gateway timeout starts counting there
+     * @return The response from the agent
+     * @throws AgentUnavailableException when the runtime is not called because it is failing or saturated
+     * @throws AgentTimeoutException     when there is no answer before API Gateway gives up on the request
+     */
+    public InvokeResponse invokeAgent(InvokeRequest request, String bearerToken, String userId, Instant receivedAt) {
+        // Leave time to send the response before API Gateway gives up
+        return invokeAgentUntil(request, bearerToken, userId, receivedAt.plus(gatewayTimeout).minus(responseMargin));
     }
 
     /**
-     * Invokes the AgentCore Runtime with the user's prompt
+     * Invokes the AgentCore Runtime with an explicit deadline, for callers that are not bound to the API Gateway
+     * timeout such as detached jobs
      *
      * @param request     The invoke request with prompt and optional sessionId
      * @param bearerToken The JWT bearer token from the frontend
      * @param userId      The user ID extracted from the token
+     * @param deadline    The moment after which the answer is of no use anymore
      * @return The response from the agent
+     * @throws AgentUnavailableException when the runtime is not called because it is failing or saturated
+     * @throws AgentTimeoutException     when there is no answer before the deadline
      */
-    public InvokeResponse invokeAgent(InvokeRequest request, String bearerToken, String userId) {
+    public InvokeResponse invokeAgentUntil(InvokeRequest request, String bearerToken, String userId,
+                                           Instant deadline) {
+        try {
+            return circuitBreaker.executeSupplier(
+                    () -> bulkhead.executeSupplier(() -> doInvokeAgent(request, bearerToken, userId, deadline)));
+        } catch (CallNotPermittedException e) {
+            Duration retryAfter = Duration.ofMillis(
+                    circuitBreaker.getCircuitBreakerConfig().getWaitIntervalFunctionInOpenState().apply(1));
+            throw new AgentUnavailableException("AgentCore Runtime circuit breaker is open", retryAfter, e);
+        } catch (BulkheadFullException e) {
+            throw new AgentUnavailableException("Too many concurrent AgentCore invocations", Duration.ofSeconds(1), e);
+        }
+    }
+
+    private InvokeResponse doInvokeAgent(InvokeRequest request, String bearerToken, String userId,
+                                         Instant deadline) {
+        Duration remaining = Duration.between(Instant.now(), deadline);
+        if (remaining.isNegative() || remaining.isZero()) {
+            throw new AgentTimeoutException("Deadline passed before invoking the AgentCore Runtime", null);
+        }
         try {
             // Build the request body
             String requestBody = buildRequestBody(request, userId);
 
             String sessionId = request.sessionId() != null ? request.sessionId() : "session-" + UUID.randomUUID();
 
-            String escapedArn = URLEncoder.encode(agentCoreRuntimeArn, StandardCharsets.UTF_8);
-
-            String uri =
-                    URI.create(agentCoreEndpoint + "/runtimes/" + escapedArn + "/invocations?qualifier=DEFAULT").toString();
+            // Every execution environment sends a session to the same endpoint while it is healthy
+            RuntimeEndpoint endpoint = endpointSelector.select(sessionId);
 
             // Build HTTP request to AgentCore Runtime
             HttpRequest.Builder requestBuilder = HttpRequest.newBuilder()
-                    .uri(URI.create(uri))
+                    .uri(endpoint.getInvocationUri())
                     .header("Content-Type", "application/json")
                     .header("Authorization", bearerToken)
                     .header("X-Amzn-Bedrock-AgentCore-Runtime-Session-Id", sessionId)
-                    .timeout(Duration.ofSeconds(60))
-                    .POST(HttpRequest.BodyPublishers.ofString(requestBody));
+                    .header(DEADLINE_HEADER, Long.toString(deadline.toEpochMilli()))
+                    .header("Accept-Encoding", Gzip.ENCODING)
+                    .timeout(remaining);
+            byte[] bodyBytes = requestBody.getBytes(StandardCharsets.UTF_8);
+            if (compressRequests && bodyBytes.length >= compressionMinSize) {
+                requestBuilder.header("Content-Encoding", Gzip.ENCODING);
+                bodyBytes = Gzip.compress(bodyBytes);
+            }
+            requestBuilder.POST(HttpRequest.BodyPublishers.ofByteArray(bodyBytes));
 
             HttpRequest httpRequest = requestBuilder.build();
 
-            log.info("Invoking AgentCore Runtime for user: {}", userId);
+            log.info("Invoking AgentCore Runtime {} for user: {}", endpoint.getName(), userId);
 
             // Send request
-            HttpResponse<String> response = httpClient.send(httpRequest,
-                    HttpResponse.BodyHandlers.ofString());
+            long start = System.nanoTime();
+            HttpResponse<String> response;
+            try {
+                response = httpClient.send(httpRequest, responseInfo -> HttpResponse.BodySubscribers.mapping(
+                        HttpResponse.BodySubscribers.ofByteArray(), bytes -> decode(responseInfo, bytes)));
+            } catch (HttpConnectTimeoutException e) {
+                endpointSelector.record(endpoint, Duration.ofNanos(System.nanoTime() - start), false);
+                throw e;
+            } catch (HttpTimeoutException e) {
+                // The request timeout is what is left of our deadline, so it only says the endpoint is slow
+                endpointSelector.recordTimeout(endpoint, Duration.ofNanos(System.nanoTime() - start));
+                throw e;
+            } catch (IOException | RuntimeException e) {
+                // An interrupt is a cancel by us and is not caught here, it says nothing about the endpoint
+                endpointSelector.record(endpoint, Duration.ofNanos(System.nanoTime() - start), false);
+                throw e;
+            }
+            endpointSelector.record(endpoint, Duration.ofNanos(System.nanoTime() - start),
+                    !AgentCoreInvocationException.isRuntimeFailure(response.statusCode()));
 
             if (response.statusCode() >= 200 && response.statusCode() < 300) {
                 log.info("AgentCore invocation successful. Status: {}", response.statusCode());
@@ -88,9 +174,12 @@ public class AgentCoreClientService {
             } else {
                 log.error("AgentCore invocation failed. Status: {}, Body: {}",
                         response.statusCode(), response.body());
-                throw new RuntimeException("AgentCore invocation failed with status: " + response.statusCode());
+                throw new AgentCoreInvocationException(response.statusCode());
             }
 
+        } catch (HttpTimeoutException e) {
+            log.warn("AgentCore Runtime did not answer before the deadline {}", deadline);
+            throw new AgentTimeoutException("AgentCore Runtime did not answer in time", e);
         } catch (IOException | InterruptedException e) {
             log.error("Error invoking AgentCore Runtime", e);
             Thread.currentThread().interrupt();
@@ -98,6 +187,16 @@ public class AgentCoreClientService {
         }
     }
 
+    /**
+     * The response body as text, the JDK client does not decompress it by itself
+     */
+    private static String decode(HttpResponse.ResponseInfo responseInfo, byte[] body) {
+        boolean gzipped = responseInfo.headers().firstValue("Content-Encoding")
+                .map(Gzip.ENCODING::equalsIgnoreCase)
+                .orElse(false);
+        return new String(gzipped ? Gzip.decompress(body) : body, StandardCharsets.UTF_8);
+    }
+
     /**
      * Builds the request body for AgentCore Runtime
      */
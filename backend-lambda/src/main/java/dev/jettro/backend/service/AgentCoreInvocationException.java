@@ -0,0 +1,29 @@
+package dev.jettro.backend.service;
+
+/**
+ * Thrown when the AgentCore Runtime answers with a non-2xx status.
+ */
+public class AgentCoreInvocationException extends RuntimeException {
+
+    private final int statusCode;
+
+    public AgentCoreInvocationException(int statusCode) {
+        super("AgentCore invocation failed with status: " + statusCode);
+        this.statusCode = statusCode;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * Only server-side failures and throttling say something about the health of the runtime
+     */
+    public boolean isRuntimeFailure() {
+        return isRuntimeFailure(statusCode);
+    }
+
+    public static boolean isRuntimeFailure(int statusCode) {
+        return statusCode >= 500 || statusCode == 429;
+    }
+}
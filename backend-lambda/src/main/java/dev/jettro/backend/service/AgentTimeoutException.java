@@ -0,0 +1,11 @@
+package dev.jettro.backend.service;
+
+/**
+ * Thrown when the deadline of the API request passes before the AgentCore Runtime answered, or before it was called.
+ */
+public class AgentTimeoutException extends RuntimeException {
+
+    public AgentTimeoutException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
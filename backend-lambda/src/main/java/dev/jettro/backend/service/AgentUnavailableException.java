@@ -0,0 +1,20 @@
+package dev.jettro.backend.service;
+
+import java.time.Duration;
+
+/**
+ * Thrown without calling the AgentCore Runtime when its circuit breaker is open or its bulkhead is full.
+ */
+public class AgentUnavailableException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public AgentUnavailableException(String message, Duration retryAfter, Throwable cause) {
+        super(message, cause);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,99 @@
+package dev.jettro.backend.service;
+
+import dev.jettro.backend.model.BatchItemResult;
+import dev.jettro.backend.model.InvokeRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Sends the items of a batch to the AgentCore Runtime concurrently. The caller's token was validated once for the
+ * whole batch and all items share the HTTP client and the deadline of the API request. At most
+ * {@code maxConcurrency} items run at the same time, so one batch cannot take all slots of the AgentCore bulkhead.
+ */
+@Service
+public class BatchInvocationService {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchInvocationService.class);
+
+    private final AgentCoreClientService agentCoreClient;
+
+    @Value("${agentcore.batch.max-concurrency:4}")
+    private int maxConcurrency;
+
+    @Value("${agentcore.batch.max-items:50}")
+    private int maxItems;
+
+    public BatchInvocationService(AgentCoreClientService agentCoreClient) {
+        this.agentCoreClient = agentCoreClient;
+    }
+
+    public int getMaxItems() {
+        return maxItems;
+    }
+
+    /**
+     * Invokes all items and hands each result to {@code onResult} as soon as it is available, on the calling thread
+     *
+     * @param items       The prompts of the batch
+     * @param bearerToken The JWT bearer token from the frontend, already validated
+     * @param userId      The user ID extracted from the token
+     * @param receivedAt  The moment API Gateway received the request
+     * @param onResult    Receives the results in the order they complete
+     */
+    public void invokeAll(List<InvokeRequest> items, String bearerToken, String userId, Instant receivedAt,
+                          Consumer<BatchItemResult> onResult) {
+        log.info("Invoking batch of {} items for user: {}", items.size(), userId);
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(
+                Math.max(1, Math.min(maxConcurrency, items.size())), Thread.ofVirtual().factory())) {
+            CompletionService<BatchItemResult> completion = new ExecutorCompletionService<>(executor);
+            int submitted = 0;
+            for (int index = 0; index < items.size(); index++) {
+                InvokeRequest item = items.get(index);
+                if (item == null || item.prompt() == null || item.prompt().isBlank()) {
+                    onResult.accept(BatchItemResult.failure(index, 400, "Prompt is required"));
+                    continue;
+                }
+                int itemIndex = index;
+                completion.submit(() -> invoke(itemIndex, item, bearerToken, userId, receivedAt));
+                submitted++;
+            }
+
+            for (int i = 0; i < submitted; i++) {
+                onResult.accept(completion.take().get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for batch items", e);
+        } catch (ExecutionException e) {
+            // invoke turns every failure into a result, so this is a bug
+            throw new IllegalStateException("Batch item failed unexpectedly", e.getCause());
+        }
+    }
+
+    private BatchItemResult invoke(int index, InvokeRequest item, String bearerToken, String userId,
+                                   Instant receivedAt) {
+        try {
+            return BatchItemResult.success(index, agentCoreClient.invokeAgent(item, bearerToken, userId, receivedAt));
+        } catch (AgentUnavailableException e) {
+            return BatchItemResult.failure(index, 503, "Agent is temporarily unavailable, please retry later");
+        } catch (AgentTimeoutException e) {
+            return BatchItemResult.failure(index, 504, "Agent did not answer in time");
+        } catch (Exception e) {
+            // Like the error responses of the API, the message never contains exception details, those go to the log
+            log.error("Batch item {} failed", index, e);
+            return BatchItemResult.failure(index, 500, "Failed to invoke agent");
+        }
+    }
+}
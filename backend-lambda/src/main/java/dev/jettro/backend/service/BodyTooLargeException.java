@@ -0,0 +1,11 @@
+package dev.jettro.backend.service;
+
+/**
+ * Thrown when a gzipped body inflates to more than {@link Gzip#MAX_INFLATED_SIZE}.
+ */
+public class BodyTooLargeException extends RuntimeException {
+
+    public BodyTooLargeException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,110 @@
+package dev.jettro.backend.service;
+
+import dev.jettro.backend.model.Job;
+import dev.jettro.backend.model.JobStatus;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Job store backed by a DynamoDB table with partition key {@code jobId}. The {@code expiresAt} attribute holds epoch
+ * seconds and is the TTL attribute of the table; DynamoDB removes expired items in the background, until then
+ * {@link #find(String)} hides them.
+ */
+public class DynamoDbJobStore implements JobStore {
+
+    private final DynamoDbClient dynamoDb;
+    private final String tableName;
+
+    public DynamoDbJobStore(DynamoDbClient dynamoDb, String tableName) {
+        this.dynamoDb = dynamoDb;
+        this.tableName = tableName;
+    }
+
+    @Override
+    public void create(Job job) {
+        dynamoDb.putItem(builder -> builder
+                .tableName(tableName)
+                .item(toItem(job))
+                .conditionExpression("attribute_not_exists(jobId)"));
+    }
+
+    @Override
+    public Optional<Job> find(String jobId) {
+        GetItemResponse response = dynamoDb.getItem(builder -> builder
+                .tableName(tableName)
+                .key(Map.of("jobId", AttributeValue.fromS(jobId)))
+                .consistentRead(true));
+        if (!response.hasItem() || response.item().isEmpty()) {
+            return Optional.empty();
+        }
+        Job job = fromItem(response.item());
+        return job.isExpired(Instant.now()) ? Optional.empty() : Optional.of(job);
+    }
+
+    @Override
+    public boolean update(Job job, Set<JobStatus> expectedStatuses) {
+        Map<String, AttributeValue> values = new HashMap<>();
+        List<String> placeholders = expectedStatuses.stream().map(status -> ":" + status.name()).toList();
+        expectedStatuses.forEach(status -> values.put(":" + status.name(), AttributeValue.fromS(status.name())));
+        try {
+            dynamoDb.putItem(builder -> builder
+                    .tableName(tableName)
+                    .item(toItem(job))
+                    .conditionExpression("attribute_exists(jobId) AND #status IN (" + String.join(", ", placeholders) + ")")
+                    .expressionAttributeNames(Map.of("#status", "status"))
+                    .expressionAttributeValues(values));
+            return true;
+        } catch (ConditionalCheckFailedException e) {
+            return false;
+        }
+    }
+
+    private static Map<String, AttributeValue> toItem(Job job) {
+        Map<String, AttributeValue> item = new HashMap<>();
+        item.put("jobId", AttributeValue.fromS(job.jobId()));
+        item.put("userId", AttributeValue.fromS(job.userId()));
+        item.put("prompt", AttributeValue.fromS(job.prompt()));
+        item.put("status", AttributeValue.fromS(job.status().name()));
+        item.put("createdAt", AttributeValue.fromN(Long.toString(job.createdAt().toEpochMilli())));
+        item.put("updatedAt", AttributeValue.fromN(Long.toString(job.updatedAt().toEpochMilli())));
+        item.put("expiresAt", AttributeValue.fromN(Long.toString(job.expiresAt().getEpochSecond())));
+        if (job.sessionId() != null) {
+            item.put("sessionId", AttributeValue.fromS(job.sessionId()));
+        }
+        if (job.response() != null) {
+            item.put("response", AttributeValue.fromS(job.response()));
+        }
+        if (job.error() != null) {
+            item.put("error", AttributeValue.fromS(job.error()));
+        }
+        return item;
+    }
+
+    private static Job fromItem(Map<String, AttributeValue> item) {
+        return new Job(
+                item.get("jobId").s(),
+                item.get("userId").s(),
+                item.get("prompt").s(),
+                stringOrNull(item, "sessionId"),
+                JobStatus.valueOf(item.get("status").s()),
+                stringOrNull(item, "response"),
+                stringOrNull(item, "error"),
+                Instant.ofEpochMilli(Long.parseLong(item.get("createdAt").n())),
+                Instant.ofEpochMilli(Long.parseLong(item.get("updatedAt").n())),
+                Instant.ofEpochSecond(Long.parseLong(item.get("expiresAt").n())));
+    }
+
+    private static String stringOrNull(Map<String, AttributeValue> item, String name) {
+        AttributeValue value = item.get(name);
+        return value == null ? null : value.s();
+    }
+}
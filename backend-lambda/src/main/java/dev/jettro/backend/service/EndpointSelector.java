@@ -0,0 +1,176 @@
+package dev.jettro.backend.service;
+
+import dev.jettro.backend.config.RuntimeRoutingProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Picks the AgentCore Runtime endpoint for an invocation.
+ * <p>
+ * Sessions are spread by weighted rendezvous hashing: every healthy endpoint gets a score from the session id and its
+ * name, scaled by its weight, and the highest score wins. The weight follows the latency and error rate averages: the
+ * fastest endpoint weighs 1, one that is twice as slow 0.5, times the share of requests that succeed. While the weights
+ * do not change a session stays on its endpoint, and when an endpoint gets slower only part of its sessions move to
+ * the others, the rest stay where they were. Execution environments with similar averages send a session to the same
+ * endpoint; an environment that has not seen an endpoint yet weighs it as the fastest.
+ * <p>
+ * An endpoint that fails several times in a row is ejected for a while, longer for every ejection in a row. When an
+ * endpoint is ejected only its own sessions move, and they come back once it is healthy again. When every endpoint
+ * is ejected the one that comes back first is used anyway.
+ */
+@Service
+public class EndpointSelector {
+
+    private static final Logger log = LoggerFactory.getLogger(EndpointSelector.class);
+    private static final double MIN_WEIGHT = 0.01;
+
+    private final RuntimeRoutingProperties properties;
+    private final Clock clock;
+    private final List<RuntimeEndpoint> endpoints;
+
+    @Autowired
+    public EndpointSelector(RuntimeRoutingProperties properties,
+                            @Value("${agentcore.runtime.endpoint}") String defaultEndpoint,
+                            @Value("${agentcore.runtime.arn}") String defaultArn) {
+        this(properties, defaultEndpoint, defaultArn, Clock.systemUTC());
+    }
+
+    EndpointSelector(RuntimeRoutingProperties properties, String defaultEndpoint, String defaultArn, Clock clock) {
+        this.properties = properties;
+        this.clock = clock;
+        this.endpoints = properties.endpoints().isEmpty()
+                ? List.of(new RuntimeEndpoint("default", defaultEndpoint, defaultArn, "DEFAULT"))
+                : properties.endpoints().stream()
+                        .map(e -> new RuntimeEndpoint(e.name(), e.endpoint(), e.arn(), e.qualifier()))
+                        .toList();
+    }
+
+    /**
+     * Selects the endpoint of the session, the outcome goes to {@link #record}
+     */
+    public synchronized RuntimeEndpoint select(String sessionId) {
+        Instant now = clock.instant();
+        double fastest = Double.MAX_VALUE;
+        for (RuntimeEndpoint endpoint : endpoints) {
+            if (endpoint.isHealthy(now) && endpoint.ewmaLatencyNanos >= 0) {
+                fastest = Math.min(fastest, Math.max(endpoint.ewmaLatencyNanos, 1));
+            }
+        }
+        RuntimeEndpoint best = null;
+        double bestScore = 0;
+        for (RuntimeEndpoint endpoint : endpoints) {
+            if (endpoint.isHealthy(now)) {
+                double score = score(sessionId, endpoint, weight(endpoint, fastest));
+                if (best == null || score > bestScore) {
+                    best = endpoint;
+                    bestScore = score;
+                }
+            }
+        }
+        if (best != null) {
+            return best;
+        }
+        RuntimeEndpoint first = endpoints.getFirst();
+        for (RuntimeEndpoint endpoint : endpoints) {
+            if (endpoint.ejectedUntil.isBefore(first.ejectedUntil)) {
+                first = endpoint;
+            }
+        }
+        log.warn("All AgentCore endpoints are ejected, using {}", first.getName());
+        return first;
+    }
+
+    /**
+     * Records the outcome of a request to the endpoint
+     *
+     * @param endpoint the endpoint returned by {@link #select}
+     * @param latency  how long the request took
+     * @param success  false when the runtime failed, client errors do not count against it
+     */
+    public synchronized void record(RuntimeEndpoint endpoint, Duration latency, boolean success) {
+        double alpha = properties.ewmaAlpha();
+        recordLatency(endpoint, latency);
+        endpoint.ewmaErrorRate += alpha * ((success ? 0 : 1) - endpoint.ewmaErrorRate);
+
+        if (success) {
+            endpoint.consecutiveFailures = 0;
+            endpoint.ejections = 0;
+            return;
+        }
+        if (++endpoint.consecutiveFailures >= properties.ejectAfterFailures() && endpoint.isHealthy(clock.instant())) {
+            eject(endpoint);
+        }
+    }
+
+    /**
+     * Records a request that ran out of its deadline. The deadline is ours, so it neither counts as a failure nor
+     * ejects the endpoint, but the endpoint was at least that slow.
+     *
+     * @param endpoint the endpoint returned by {@link #select}
+     * @param latency  how long the request ran before it timed out
+     */
+    public synchronized void recordTimeout(RuntimeEndpoint endpoint, Duration latency) {
+        recordLatency(endpoint, latency);
+    }
+
+    public synchronized List<String> describe() {
+        return endpoints.stream().map(RuntimeEndpoint::toString).toList();
+    }
+
+    private void recordLatency(RuntimeEndpoint endpoint, Duration latency) {
+        endpoint.ewmaLatencyNanos = endpoint.ewmaLatencyNanos < 0
+                ? latency.toNanos()
+                : endpoint.ewmaLatencyNanos + properties.ewmaAlpha() * (latency.toNanos() - endpoint.ewmaLatencyNanos);
+    }
+
+    /**
+     * Weight of the endpoint relative to the fastest healthy one, lowered by its error rate. Never zero, so a slow
+     * endpoint keeps some sessions and its averages keep getting updated.
+     */
+    static double weight(RuntimeEndpoint endpoint, double fastestLatencyNanos) {
+        double speed = endpoint.ewmaLatencyNanos < 0 || fastestLatencyNanos == Double.MAX_VALUE
+                ? 1
+                : fastestLatencyNanos / Math.max(endpoint.ewmaLatencyNanos, 1);
+        return Math.max(MIN_WEIGHT, speed * (1 - endpoint.ewmaErrorRate));
+    }
+
+    /**
+     * Weighted rendezvous score of the endpoint for the session: {@code -weight / ln(u)} with {@code u} uniform in
+     * (0, 1) from the hash, which gives every endpoint a share of the sessions in proportion to its weight.
+     */
+    static double score(String sessionId, RuntimeEndpoint endpoint, double weight) {
+        double u = ((hash(sessionId, endpoint) >>> 11) + 0.5) / (1L << 53);
+        return -weight / Math.log(u);
+    }
+
+    /**
+     * Hash of the session and the endpoint. String hash codes are specified by the language, so the hash is the same
+     * in every JVM; the mix spreads the small differences between similar ids over all bits.
+     */
+    static long hash(String sessionId, RuntimeEndpoint endpoint) {
+        long h = sessionId.hashCode() * 0x9E3779B97F4A7C15L + endpoint.getName().hashCode();
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        return h ^ (h >>> 31);
+    }
+
+    private void eject(RuntimeEndpoint endpoint) {
+        int exponent = Math.min(endpoint.ejections, 16);
+        Duration duration = properties.ejectionTime().multipliedBy(1L << exponent);
+        if (duration.compareTo(properties.maxEjectionTime()) > 0) {
+            duration = properties.maxEjectionTime();
+        }
+        endpoint.ejections++;
+        endpoint.ejectedUntil = clock.instant().plus(duration);
+        log.warn("Ejecting AgentCore endpoint {} for {} after {} failures in a row", endpoint, duration,
+                endpoint.consecutiveFailures);
+    }
+}
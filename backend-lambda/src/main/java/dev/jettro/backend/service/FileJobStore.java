@@ -0,0 +1,129 @@
+package dev.jettro.backend.service;
+
+import dev.jettro.backend.model.Job;
+import dev.jettro.backend.model.JobStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Job store that writes every job as a JSON file in a directory. Meant for running the backend locally, where jobs
+ * should survive a restart. Files are replaced atomically and expired files are removed when new jobs are created.
+ */
+public class FileJobStore implements JobStore {
+
+    private static final Logger log = LoggerFactory.getLogger(FileJobStore.class);
+
+    private final Path directory;
+    private final ObjectMapper objectMapper;
+
+    public FileJobStore(Path directory, ObjectMapper objectMapper) {
+        this.directory = directory;
+        this.objectMapper = objectMapper;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create job directory " + directory, e);
+        }
+    }
+
+    @Override
+    public void create(Job job) {
+        removeExpired();
+        write(job);
+    }
+
+    @Override
+    public Optional<Job> find(String jobId) {
+        if (!isValidId(jobId)) {
+            return Optional.empty();
+        }
+        Path file = fileOf(jobId);
+        if (!Files.exists(file)) {
+            return Optional.empty();
+        }
+        Job job = read(file);
+        return job.isExpired(Instant.now()) ? Optional.empty() : Optional.of(job);
+    }
+
+    @Override
+    public synchronized boolean update(Job job, Set<JobStatus> expectedStatuses) {
+        Optional<Job> current = find(job.jobId());
+        if (current.isEmpty() || !expectedStatuses.contains(current.get().status())) {
+            return false;
+        }
+        write(job);
+        return true;
+    }
+
+    private synchronized void write(Job job) {
+        try {
+            Path temp = Files.createTempFile(directory, job.jobId(), ".tmp");
+            Files.writeString(temp, objectMapper.writeValueAsString(job));
+            Files.move(temp, fileOf(job.jobId()), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write job " + job.jobId(), e);
+        }
+    }
+
+    private Job read(Path file) {
+        try {
+            return objectMapper.readValue(Files.readString(file), Job.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read job file " + file, e);
+        }
+    }
+
+    private void removeExpired() {
+        Instant now = Instant.now();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> file.toString().endsWith(".json"))
+                    .filter(file -> isExpired(file, now))
+                    .forEach(file -> {
+                        try {
+                            Files.deleteIfExists(file);
+                        } catch (IOException e) {
+                            log.warn("Cannot remove expired job file {}", file, e);
+                        }
+                    });
+        } catch (IOException e) {
+            log.warn("Cannot list job directory {}", directory, e);
+        }
+    }
+
+    /**
+     * A file that cannot be read is skipped, so one corrupt job does not stop the cleanup of the others
+     */
+    private boolean isExpired(Path file, Instant now) {
+        try {
+            return read(file).isExpired(now);
+        } catch (RuntimeException e) {
+            log.warn("Skipping unreadable job file {}", file, e);
+            return false;
+        }
+    }
+
+    private Path fileOf(String jobId) {
+        if (!isValidId(jobId)) {
+            throw new IllegalArgumentException("Invalid job id");
+        }
+        return directory.resolve(jobId + ".json");
+    }
+
+    /**
+     * Job ids are generated UUIDs, the check keeps a crafted id from escaping the directory
+     */
+    private static boolean isValidId(String jobId) {
+        return jobId != null && jobId.matches("[A-Za-z0-9-]+");
+    }
+}
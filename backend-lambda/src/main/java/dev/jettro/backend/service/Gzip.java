@@ -0,0 +1,68 @@
+package dev.jettro.backend.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzip for the bodies between frontend, Lambda and AgentCore Runtime. Brotli would compress JSON a little better, but
+ * the JDK has no encoder for it and a native one costs more Lambda init time than it saves.
+ */
+public final class Gzip {
+
+    public static final String ENCODING = "gzip";
+
+    /**
+     * Lambda takes no larger payload for a synchronous invocation, so no uncompressed body can be larger either
+     */
+    public static final int MAX_INFLATED_SIZE = 6 * 1024 * 1024;
+
+    private Gzip() {
+    }
+
+    public static byte[] compress(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out, 8192)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Inflates at most {@link #MAX_INFLATED_SIZE} bytes, a larger body throws a {@link BodyTooLargeException} before
+     * it is held in memory
+     */
+    public static byte[] decompress(byte[] data) {
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(data), 8192)) {
+            byte[] inflated = gzip.readNBytes(MAX_INFLATED_SIZE);
+            if (gzip.read() >= 0) {
+                throw new BodyTooLargeException("Gzipped body inflates to more than " + MAX_INFLATED_SIZE + " bytes");
+            }
+            return inflated;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Whether an Accept-Encoding header allows gzip, honouring {@code gzip;q=0}
+     */
+    public static boolean isAccepted(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            String name = parts[0].trim();
+            if (name.equalsIgnoreCase(ENCODING) || name.equals("*")) {
+                return parts.length < 2 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+}
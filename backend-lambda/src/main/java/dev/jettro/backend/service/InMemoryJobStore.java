@@ -0,0 +1,49 @@
+package dev.jettro.backend.service;
+
+import dev.jettro.backend.model.Job;
+import dev.jettro.backend.model.JobStatus;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Job store for local runs and tests. Jobs only live as long as the JVM, so on Lambda a job is only visible to the
+ * execution environment that created it.
+ */
+public class InMemoryJobStore implements JobStore {
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    @Override
+    public void create(Job job) {
+        removeExpired();
+        jobs.put(job.jobId(), job);
+    }
+
+    @Override
+    public Optional<Job> find(String jobId) {
+        Job job = jobs.get(jobId);
+        return job == null || job.isExpired(Instant.now()) ? Optional.empty() : Optional.of(job);
+    }
+
+    @Override
+    public boolean update(Job job, Set<JobStatus> expectedStatuses) {
+        boolean[] updated = new boolean[1];
+        jobs.computeIfPresent(job.jobId(), (id, current) -> {
+            if (!expectedStatuses.contains(current.status())) {
+                return current;
+            }
+            updated[0] = true;
+            return job;
+        });
+        return updated[0];
+    }
+
+    private void removeExpired() {
+        Instant now = Instant.now();
+        jobs.values().removeIf(job -> job.isExpired(now));
+    }
+}
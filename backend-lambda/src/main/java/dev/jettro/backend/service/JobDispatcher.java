@@ -0,0 +1,14 @@
+package dev.jettro.backend.service;
+
+/**
+ * Starts a submitted job outside of the request that submitted it
+ */
+public interface JobDispatcher {
+
+    /**
+     * Path of the event that runs a job, API Gateway has no resource for it so it can only come from a dispatcher
+     */
+    String RUN_PATH = "/internal/jobs/run";
+
+    void dispatch(String jobId, String bearerToken);
+}
@@ -0,0 +1,131 @@
+package dev.jettro.backend.service;
+
+import dev.jettro.backend.model.InvokeRequest;
+import dev.jettro.backend.model.InvokeResponse;
+import dev.jettro.backend.model.Job;
+import dev.jettro.backend.model.JobStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs a submitted job: invokes the AgentCore Runtime and stores the outcome. While the agent is working the job is
+ * checked for cancellation, a cancelled job aborts the HTTP call to the runtime.
+ */
+@Service
+public class JobRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(JobRunner.class);
+
+    private final JobStore jobStore;
+    private final AgentCoreClientService agentCoreClient;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Value("${agentcore.jobs.timeout:10m}")
+    private Duration timeout;
+
+    @Value("${agentcore.jobs.ttl:24h}")
+    private Duration ttl;
+
+    @Value("${agentcore.jobs.cancel-poll-interval:2s}")
+    private Duration cancelPollInterval;
+
+    public JobRunner(JobStore jobStore, AgentCoreClientService agentCoreClient) {
+        this.jobStore = jobStore;
+        this.agentCoreClient = agentCoreClient;
+    }
+
+    /**
+     * Runs the job, unless it was cancelled or already picked up by an earlier delivery of the same event
+     */
+    public void run(String jobId, String bearerToken) {
+        Job job = jobStore.find(jobId).orElse(null);
+        if (job == null) {
+            log.warn("Job {} does not exist or has expired", jobId);
+            return;
+        }
+        Job running = job.withStatus(JobStatus.RUNNING, Instant.now());
+        if (!jobStore.update(running, Set.of(JobStatus.PENDING))) {
+            log.info("Job {} is not pending anymore, skipping it", jobId);
+            return;
+        }
+
+        InvokeRequest request = new InvokeRequest(job.prompt(), job.sessionId());
+        Instant deadline = Instant.now().plus(timeout);
+        Future<InvokeResponse> invocation = executor.submit(
+                () -> agentCoreClient.invokeAgentUntil(request, bearerToken, job.userId(), deadline));
+
+        try {
+            InvokeResponse response = awaitUnlessCancelled(jobId, invocation);
+            if (response == null) {
+                log.info("Job {} was cancelled while running", jobId);
+                return;
+            }
+            Instant now = Instant.now();
+            if (!jobStore.update(running.succeeded(response, now, now.plus(ttl)), Set.of(JobStatus.RUNNING))) {
+                log.info("Job {} was cancelled, dropping its result", jobId);
+            }
+        } catch (ExecutionException e) {
+            log.error("Job {} failed", jobId, e.getCause());
+            Instant now = Instant.now();
+            jobStore.update(running.failed(failureMessage(e.getCause()), now, now.plus(ttl)), Set.of(JobStatus.RUNNING));
+        } catch (InterruptedException e) {
+            invocation.cancel(true);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Marks a pending job as failed without running it, for instance when its token expired before it started
+     */
+    public void fail(String jobId, String error) {
+        Job job = jobId == null ? null : jobStore.find(jobId).orElse(null);
+        if (job == null) {
+            return;
+        }
+        Instant now = Instant.now();
+        if (jobStore.update(job.failed(error, now, now.plus(ttl)), Set.of(JobStatus.PENDING))) {
+            log.warn("Job {} failed before it started: {}", jobId, error);
+        }
+    }
+
+    /**
+     * @return the response, or null when the job was cancelled before the agent answered
+     */
+    private InvokeResponse awaitUnlessCancelled(String jobId, Future<InvokeResponse> invocation)
+            throws ExecutionException, InterruptedException {
+        while (true) {
+            try {
+                return invocation.get(cancelPollInterval.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                JobStatus status = jobStore.find(jobId).map(Job::status).orElse(JobStatus.CANCELLED);
+                if (status == JobStatus.CANCELLED) {
+                    // Interrupting the sending thread aborts the HTTP exchange with the runtime
+                    invocation.cancel(true);
+                    return null;
+                }
+            }
+        }
+    }
+
+    private static String failureMessage(Throwable cause) {
+        if (cause instanceof AgentTimeoutException) {
+            return "Agent did not answer in time";
+        }
+        if (cause instanceof AgentUnavailableException) {
+            return "Agent is temporarily unavailable";
+        }
+        return "Failed to invoke agent";
+    }
+}
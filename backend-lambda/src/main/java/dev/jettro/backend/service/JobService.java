@@ -0,0 +1,80 @@
+package dev.jettro.backend.service;
+
+import dev.jettro.backend.model.InvokeRequest;
+import dev.jettro.backend.model.Job;
+import dev.jettro.backend.model.JobStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Submit, poll and cancel for agent invocations that run detached from the API request. Users only see their own
+ * jobs; a job of someone else looks the same as a job that does not exist.
+ */
+@Service
+public class JobService {
+
+    private static final Logger log = LoggerFactory.getLogger(JobService.class);
+
+    private final JobStore jobStore;
+    private final JobDispatcher jobDispatcher;
+
+    @Value("${agentcore.jobs.ttl:24h}")
+    private Duration ttl;
+
+    public JobService(JobStore jobStore, JobDispatcher jobDispatcher) {
+        this.jobStore = jobStore;
+        this.jobDispatcher = jobDispatcher;
+    }
+
+    /**
+     * Stores the job and starts it without waiting for the agent
+     */
+    public Job submit(InvokeRequest request, String bearerToken, String userId) {
+        Instant now = Instant.now();
+        Job job = Job.submitted(UUID.randomUUID().toString(), userId, request, now, now.plus(ttl));
+        jobStore.create(job);
+        try {
+            jobDispatcher.dispatch(job.jobId(), bearerToken);
+        } catch (RuntimeException e) {
+            Instant failedAt = Instant.now();
+            jobStore.update(job.failed("Failed to start job", failedAt, failedAt.plus(ttl)), Set.of(JobStatus.PENDING));
+            throw e;
+        }
+        log.info("Submitted job {} for user: {}", job.jobId(), userId);
+        return job;
+    }
+
+    public Optional<Job> find(String jobId, String userId) {
+        if (jobId == null || jobId.isBlank()) {
+            return Optional.empty();
+        }
+        return jobStore.find(jobId).filter(job -> job.userId().equals(userId));
+    }
+
+    /**
+     * Cancels a job that has not finished yet
+     *
+     * @return the job after the attempt, its status tells whether the cancel succeeded
+     */
+    public Optional<Job> cancel(String jobId, String userId) {
+        Optional<Job> job = find(jobId, userId);
+        if (job.isEmpty() || job.get().status().isFinished()) {
+            return job;
+        }
+        Job cancelled = job.get().withStatus(JobStatus.CANCELLED, Instant.now());
+        if (jobStore.update(cancelled, Set.of(JobStatus.PENDING, JobStatus.RUNNING))) {
+            log.info("Cancelled job {}", jobId);
+            return Optional.of(cancelled);
+        }
+        // Finished in the meantime
+        return jobStore.find(jobId);
+    }
+}
@@ -0,0 +1,31 @@
+package dev.jettro.backend.service;
+
+import dev.jettro.backend.model.Job;
+import dev.jettro.backend.model.JobStatus;
+
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Keeps submitted jobs until they expire. Status changes are conditional, so a job that was cancelled while running
+ * is not overwritten by the result that arrives later.
+ */
+public interface JobStore {
+
+    /**
+     * Stores a new job
+     */
+    void create(Job job);
+
+    /**
+     * Finds a job that has not expired yet
+     */
+    Optional<Job> find(String jobId);
+
+    /**
+     * Replaces a job, but only when its stored status is one of the expected statuses
+     *
+     * @return true when the job was replaced
+     */
+    boolean update(Job job, Set<JobStatus> expectedStatuses);
+}
@@ -0,0 +1,45 @@
+package dev.jettro.backend.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.lambda.LambdaClient;
+import software.amazon.awssdk.services.lambda.model.InvocationType;
+import tools.jackson.databind.ObjectMapper;
+
+import java.util.Map;
+
+/**
+ * Runs a job by invoking this Lambda function asynchronously. The event looks like an API Gateway request for
+ * {@link JobDispatcher#RUN_PATH}, so the same function handler picks it up. The bearer token travels in the event
+ * and is never stored with the job.
+ */
+public class LambdaJobDispatcher implements JobDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(LambdaJobDispatcher.class);
+
+    private final LambdaClient lambdaClient;
+    private final String functionName;
+    private final ObjectMapper objectMapper;
+
+    public LambdaJobDispatcher(LambdaClient lambdaClient, String functionName, ObjectMapper objectMapper) {
+        this.lambdaClient = lambdaClient;
+        this.functionName = functionName;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void dispatch(String jobId, String bearerToken) {
+        String event = objectMapper.writeValueAsString(Map.of(
+                "path", RUN_PATH,
+                "httpMethod", "POST",
+                "headers", Map.of("Authorization", bearerToken),
+                "pathParameters", Map.of("jobId", jobId)));
+
+        lambdaClient.invoke(builder -> builder
+                .functionName(functionName)
+                .invocationType(InvocationType.EVENT)
+                .payload(SdkBytes.fromUtf8String(event)));
+        log.info("Dispatched job {} to {}", jobId, functionName);
+    }
+}
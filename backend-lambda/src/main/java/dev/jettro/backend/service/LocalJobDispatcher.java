@@ -0,0 +1,23 @@
+package dev.jettro.backend.service;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs jobs on a virtual thread in the same JVM. Good for local runs; on Lambda the execution environment is frozen
+ * as soon as the submit request returns, so there the {@link LambdaJobDispatcher} is used.
+ */
+public class LocalJobDispatcher implements JobDispatcher {
+
+    private final JobRunner jobRunner;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public LocalJobDispatcher(JobRunner jobRunner) {
+        this.jobRunner = jobRunner;
+    }
+
+    @Override
+    public void dispatch(String jobId, String bearerToken) {
+        executor.submit(() -> jobRunner.run(jobId, bearerToken));
+    }
+}
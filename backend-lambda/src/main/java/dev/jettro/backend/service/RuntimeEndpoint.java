@@ -0,0 +1,47 @@
+package dev.jettro.backend.service;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * One AgentCore Runtime endpoint with the statistics the {@link EndpointSelector} keeps for it. All mutable state
+ * is guarded by the selector.
+ */
+public class RuntimeEndpoint {
+
+    private final String name;
+    private final URI invocationUri;
+
+    double ewmaLatencyNanos = -1;
+    double ewmaErrorRate;
+    int consecutiveFailures;
+    int ejections;
+    Instant ejectedUntil = Instant.MIN;
+
+    public RuntimeEndpoint(String name, String endpoint, String arn, String qualifier) {
+        this.name = name;
+        this.invocationUri = URI.create(endpoint + "/runtimes/" + URLEncoder.encode(arn, StandardCharsets.UTF_8)
+                + "/invocations?qualifier=" + URLEncoder.encode(qualifier, StandardCharsets.UTF_8));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public URI getInvocationUri() {
+        return invocationUri;
+    }
+
+    boolean isHealthy(Instant now) {
+        return !ejectedUntil.isAfter(now);
+    }
+
+    @Override
+    public String toString() {
+        return "%s (latency %s, error rate %.2f, ejections %d)".formatted(name,
+                Duration.ofNanos((long) Math.max(0, ewmaLatencyNanos)), ewmaErrorRate, ejections);
+    }
+}
@@ -0,0 +1,122 @@
+package dev.jettro.backend;
+
+import ch.qos.logback.classic.Level;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import dev.jettro.backend.config.RuntimeRoutingProperties;
+import dev.jettro.backend.controller.AgentFunction;
+import dev.jettro.backend.controller.ContentEncoding;
+import dev.jettro.backend.model.InvokeRequest;
+import dev.jettro.backend.model.InvokeResponse;
+import dev.jettro.backend.service.AgentCoreClientService;
+import dev.jettro.backend.service.BatchInvocationService;
+import dev.jettro.backend.service.EndpointSelector;
+import dev.jettro.backend.service.JobRunner;
+import dev.jettro.backend.service.JobService;
+import dev.jettro.backend.service.TokenValidatorService;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Measures the bytes the {@code invokeAgent} handler allocates per invocation and fails when a path goes over its
+ * budget. Token validation and the AgentCore call are stubbed, so the numbers cover the handler itself: routing,
+ * JSON mapping and building the response. Logging is set to WARN, the budget does not include log events.
+ * <p>
+ * Uses the allocation counter of the current thread, exact and without a profiler:
+ * {@code mvn exec:java -Dexec.mainClass=dev.jettro.backend.RunAllocationBudget -Dexec.classpathScope=test
+ * -Dexec.args="<success-budget> <error-budget>"}
+ */
+public class RunAllocationBudget {
+
+    private static final int WARMUP = 50_000;
+    private static final int MEASURED = 100_000;
+
+    public static void main(String[] args) {
+        long successBudget = args.length > 0 ? Long.parseLong(args[0]) : 6_144;
+        long errorBudget = args.length > 1 ? Long.parseLong(args[1]) : 1_024;
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+
+        Function<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> handler = handler();
+        boolean withinBudget = measure("invoke", handler, request("Bearer stub",
+                "{\"prompt\":\"What time is it?\",\"sessionId\":\"session-00000000000000000000000000000001\"}"),
+                200, successBudget);
+        withinBudget &= measure("missing token", handler, request(null, "{}"), 401, errorBudget);
+        withinBudget &= measure("blank prompt", handler, request("Bearer stub", "{\"prompt\":\" \"}"), 400,
+                errorBudget);
+
+        if (!withinBudget) {
+            System.exit(1);
+        }
+    }
+
+    private static boolean measure(String name,
+                                   Function<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> handler,
+                                   APIGatewayProxyRequestEvent request, int expectedStatus, long budget) {
+        var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < WARMUP; i++) {
+            check(handler.apply(request), expectedStatus);
+        }
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < MEASURED; i++) {
+            handler.apply(request);
+        }
+        long perInvocation = (threads.getCurrentThreadAllocatedBytes() - before) / MEASURED;
+        boolean within = perInvocation <= budget;
+        System.out.printf("%-14s %6d bytes per invocation, budget %6d: %s%n", name, perInvocation, budget,
+                within ? "ok" : "OVER BUDGET");
+        return within;
+    }
+
+    private static void check(APIGatewayProxyResponseEvent response, int expectedStatus) {
+        if (response.getStatusCode() != expectedStatus) {
+            throw new IllegalStateException("Expected status " + expectedStatus + " but got "
+                    + response.getStatusCode() + ": " + response.getBody());
+        }
+    }
+
+    private static APIGatewayProxyRequestEvent request(String authorization, String body) {
+        APIGatewayProxyRequestEvent request = new APIGatewayProxyRequestEvent();
+        request.setHttpMethod("POST");
+        request.setPath("/agent/invoke");
+        request.setResource("/agent/invoke");
+        request.setHeaders(authorization == null ? Map.of() : Map.of("Authorization", authorization));
+        request.setRequestContext(new APIGatewayProxyRequestEvent.ProxyRequestContext()
+                .withRequestTimeEpoch(System.currentTimeMillis()));
+        request.setBody(body);
+        return request;
+    }
+
+    private static Function<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> handler() {
+        TokenValidatorService tokenValidator = new TokenValidatorService() {
+            @Override
+            public String validateTokenAndGetUserId(String token) {
+                return "stub-user";
+            }
+        };
+        RuntimeRoutingProperties routing = new RuntimeRoutingProperties(List.of(new RuntimeRoutingProperties.Endpoint(
+                "stub", "http://localhost:1", "arn:aws:bedrock-agentcore:local:0:runtime/stub", "DEFAULT")),
+                0.3, 3, Duration.ofSeconds(2), Duration.ofSeconds(10));
+        AgentCoreClientService agentCoreClient = new AgentCoreClientService(CircuitBreaker.ofDefaults("agentcore"),
+                Bulkhead.ofDefaults("agentcore"), new EndpointSelector(routing, null, null)) {
+            @Override
+            public InvokeResponse invokeAgent(InvokeRequest request, String bearerToken, String userId,
+                                              Instant receivedAt) {
+                return new InvokeResponse("It is 10 o'clock.", request.sessionId(), userId);
+            }
+        };
+        AgentFunction agentFunction = new AgentFunction(tokenValidator, agentCoreClient, new JobService(null, null),
+                new JobRunner(null, agentCoreClient), new BatchInvocationService(agentCoreClient),
+                new ContentEncoding(true, 1024), JsonMapper.builder().build());
+        return agentFunction.invokeAgent();
+    }
+}
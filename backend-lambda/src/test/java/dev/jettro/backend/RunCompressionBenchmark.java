@@ -0,0 +1,57 @@
+package dev.jettro.backend;
+
+import dev.jettro.backend.service.Gzip;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Compares the bytes on the wire and the time spent per response with and without gzip, for answers of increasing
+ * length. API Gateway only passes binary bodies as base64, so compressed sizes include that third on top. The output
+ * shows below which size compressing is not worth it, use it to pick {@code api.compression.min-size}.
+ * <p>
+ * {@code mvn exec:java -Dexec.mainClass=dev.jettro.backend.RunCompressionBenchmark -Dexec.classpathScope=test}
+ */
+public class RunCompressionBenchmark {
+
+    private static final int[] ANSWER_LENGTHS = {64, 256, 512, 1024, 4096, 16384, 65536};
+    private static final int ITERATIONS = 2_000;
+
+    private static final String SENTENCE = "The agent remembered that you prefer concise answers about the weather "
+            + "in Utrecht, so here is a short summary of the forecast for the coming days. ";
+
+    public static void main(String[] args) {
+        System.out.printf("%8s %8s %10s %9s %12s%n", "answer", "plain", "gzip+b64", "ratio", "us/response");
+        for (int length : ANSWER_LENGTHS) {
+            byte[] body = json(length);
+
+            // Warm up the deflater and the JIT before measuring
+            for (int i = 0; i < ITERATIONS; i++) {
+                encode(body);
+            }
+            long start = System.nanoTime();
+            int size = 0;
+            for (int i = 0; i < ITERATIONS; i++) {
+                size = encode(body).length();
+            }
+            double micros = (System.nanoTime() - start) / 1_000.0 / ITERATIONS;
+
+            System.out.printf("%8d %8d %10d %8.2fx %12.1f%n",
+                    length, body.length, size, (double) body.length / size, micros);
+        }
+    }
+
+    private static String encode(byte[] body) {
+        return Base64.getEncoder().encodeToString(Gzip.compress(body));
+    }
+
+    private static byte[] json(int answerLength) {
+        StringBuilder answer = new StringBuilder(answerLength + SENTENCE.length());
+        while (answer.length() < answerLength) {
+            answer.append(SENTENCE);
+        }
+        answer.setLength(answerLength);
+        return ("{\"response\":\"" + answer + "\",\"sessionId\":\"3f2b8c1e-7a4d-4e59-9c1a-5b6d7e8f9a0b\"}")
+                .getBytes(StandardCharsets.UTF_8);
+    }
+}
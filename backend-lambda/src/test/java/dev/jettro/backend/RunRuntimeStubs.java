@@ -0,0 +1,132 @@
+package dev.jettro.backend;
+
+import com.sun.net.httpserver.HttpServer;
+import dev.jettro.backend.config.RuntimeRoutingProperties;
+import dev.jettro.backend.model.InvokeRequest;
+import dev.jettro.backend.service.AgentCoreClientService;
+import dev.jettro.backend.service.EndpointSelector;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Starts three local AgentCore Runtime stubs, a fast one, a slow one and one that fails for a while, and sends
+ * sessions through {@link AgentCoreClientService} to show how the {@link EndpointSelector} spreads them.
+ * <p>
+ * No AWS account is needed: {@code mvn exec:java -Dexec.mainClass=dev.jettro.backend.RunRuntimeStubs
+ * -Dexec.classpathScope=test}
+ */
+public class RunRuntimeStubs {
+
+    private static final int SESSIONS = 40;
+    private static final int TURNS_PER_SESSION = 5;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, Set<String>> endpointsPerSession = new ConcurrentHashMap<>();
+        Map<String, AtomicInteger> requestsPerEndpoint = new ConcurrentHashMap<>();
+        Instant flakyUntil = Instant.now().plusSeconds(3);
+
+        List<HttpServer> servers = new ArrayList<>();
+        List<RuntimeRoutingProperties.Endpoint> endpoints = new ArrayList<>();
+        for (String name : List.of("fast", "slow", "flaky")) {
+            HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+            server.createContext("/", exchange -> {
+                String sessionId = exchange.getRequestHeaders().getFirst("X-Amzn-Bedrock-AgentCore-Runtime-Session-Id");
+                endpointsPerSession.computeIfAbsent(sessionId, id -> ConcurrentHashMap.newKeySet()).add(name);
+                requestsPerEndpoint.computeIfAbsent(name, n -> new AtomicInteger()).incrementAndGet();
+                exchange.getRequestBody().readAllBytes();
+
+                int status = 200;
+                try {
+                    switch (name) {
+                        case "fast" -> Thread.sleep(50);
+                        case "slow" -> Thread.sleep(400);
+                        default -> {
+                            Thread.sleep(50);
+                            status = Instant.now().isBefore(flakyUntil) ? 500 : 200;
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+
+                byte[] body = ("answer from " + name).getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(status, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            });
+            server.start();
+            servers.add(server);
+            endpoints.add(new RuntimeRoutingProperties.Endpoint(name,
+                    "http://localhost:" + server.getAddress().getPort(), "arn:aws:bedrock-agentcore:local:0:runtime/" + name,
+                    "DEFAULT"));
+        }
+
+        RuntimeRoutingProperties properties = new RuntimeRoutingProperties(endpoints, 0.3, 3, Duration.ofSeconds(2),
+                Duration.ofSeconds(10));
+        EndpointSelector selector = new EndpointSelector(properties, null, null);
+        // Breaker that never opens, the point is to see the per-endpoint ejection
+        CircuitBreaker circuitBreaker = CircuitBreaker.of("agentcore", CircuitBreakerConfig.custom()
+                .failureRateThreshold(100)
+                .build());
+        Bulkhead bulkhead = Bulkhead.of("agentcore", BulkheadConfig.custom().maxConcurrentCalls(64).build());
+        AgentCoreClientService client = new AgentCoreClientService(circuitBreaker, bulkhead, selector);
+
+        AtomicInteger failures = new AtomicInteger();
+        try (ExecutorService sessions = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int s = 0; s < SESSIONS; s++) {
+                String sessionId = "session-" + s;
+                sessions.submit(() -> {
+                    for (int turn = 0; turn < TURNS_PER_SESSION; turn++) {
+                        try {
+                            client.invokeAgentUntil(new InvokeRequest("What time is it?", sessionId), "Bearer stub",
+                                    "stub-user", Instant.now().plusSeconds(10));
+                        } catch (RuntimeException e) {
+                            failures.incrementAndGet();
+                        }
+                        try {
+                            Thread.sleep(200);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                    }
+                });
+            }
+        }
+
+        long moved = endpointsPerSession.values().stream().filter(names -> names.size() > 1).count();
+        System.out.println("Requests per endpoint: " + requestsPerEndpoint);
+        System.out.println("Failed invocations: " + failures.get());
+        System.out.println("Sessions that moved to another endpoint: " + moved + " of " + endpointsPerSession.size()
+                + " (expected for sessions of the flaky endpoint and part of those of the slow endpoint)");
+        selector.describe().forEach(endpoint -> System.out.println("  " + endpoint));
+
+        // A fresh selector stands in for a cold Lambda execution environment, it has no averages yet
+        EndpointSelector other = new EndpointSelector(properties, null, null);
+        long differ = endpointsPerSession.keySet().stream()
+                .filter(id -> !other.select(id).getName().equals(selector.select(id).getName()))
+                .count();
+        System.out.println("Sessions a cold execution environment sends elsewhere: " + differ
+                + " (the sessions that moved away from the slow endpoint, until it has averages of its own)");
+
+        servers.forEach(server -> server.stop(0));
+    }
+}
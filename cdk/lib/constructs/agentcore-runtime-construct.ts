@@ -67,6 +67,11 @@ export class AgentCoreRuntimeConstruct extends Construct {
             networkConfiguration: agentcore.RuntimeNetworkConfiguration.usingPublicNetwork(),
             environmentVariables: Object.keys(environmentVariables).length > 0 ? environmentVariables : undefined,
             authorizerConfiguration: authorizerConfig,
+            // The backend sends the absolute deadline of each invocation, custom headers must be allowlisted.
+            // Authorization passes the validated JWT on, the agent attributes usage to its subject.
+            requestHeaderConfiguration: {
+                allowlistedHeaders: ['X-Amzn-Bedrock-AgentCore-Runtime-Custom-Deadline', 'Authorization'],
+            },
         });
 
         // Ensure runtime depends on image deployment
@@ -26,6 +26,9 @@ export class ApiGatewayConstruct extends Construct {
                 // Can be enabled after setting up CloudWatch role via AWS Console or CLI
                 metricsEnabled: true,
             },
+            // The Lambda gzips large responses and returns them base64 encoded; API Gateway only decodes them
+            // back to binary when the response media type is listed here
+            binaryMediaTypes: ['*/*'],
             defaultCorsPreflightOptions: {
                 allowOrigins: apigateway.Cors.ALL_ORIGINS, // TODO: Restrict in production
                 allowMethods: apigateway.Cors.ALL_METHODS,
@@ -76,9 +79,60 @@ export class ApiGatewayConstruct extends Construct {
                 {
                     statusCode: '500',
                 },
+                {
+                    statusCode: '503',
+                },
+                {
+                    statusCode: '504',
+                },
+            ],
+        });
+
+        // Batch of independent prompts under one token validation
+        const batchResource = agentResource.addResource('batch');
+        batchResource.addMethod('POST', lambdaIntegration, {
+            authorizationType: apigateway.AuthorizationType.NONE, // Auth handled by Lambda
+            methodResponses: [
+                { statusCode: '200' },
+                { statusCode: '400' },
+                { statusCode: '401' },
+                { statusCode: '500' },
             ],
         });
 
+        // Detached jobs: POST /agent/jobs submits, GET and DELETE /agent/jobs/{jobId} poll and cancel
+        const jobsResource = agentResource.addResource('jobs');
+        jobsResource.addMethod('POST', lambdaIntegration, {
+            authorizationType: apigateway.AuthorizationType.NONE, // Auth handled by Lambda
+            methodResponses: [
+                { statusCode: '202' },
+                { statusCode: '400' },
+                { statusCode: '401' },
+                { statusCode: '500' },
+            ],
+        });
+
+        const jobResource = jobsResource.addResource('{jobId}');
+        for (const method of ['GET', 'DELETE']) {
+            jobResource.addMethod(method, lambdaIntegration, {
+                authorizationType: apigateway.AuthorizationType.NONE, // Auth handled by Lambda
+                methodResponses: [
+                    { statusCode: '200' },
+                    { statusCode: '401' },
+                    { statusCode: '404' },
+                    { statusCode: '409' },
+                    { statusCode: '500' },
+                ],
+            });
+        }
+
+        // With binaryMediaTypes set to */* the mock CORS preflight integrations would treat their JSON template as
+        // binary, keep them text
+        for (const method of this.api.methods.filter(m => m.httpMethod === 'OPTIONS')) {
+            (method.node.defaultChild as apigateway.CfnMethod)
+                .addPropertyOverride('Integration.ContentHandling', 'CONVERT_TO_TEXT');
+        }
+
         // Store API URL
         this.apiUrl = this.api.url;
 
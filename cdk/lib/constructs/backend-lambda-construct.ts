@@ -3,6 +3,7 @@ import * as lambda from 'aws-cdk-lib/aws-lambda';
 import * as iam from 'aws-cdk-lib/aws-iam';
 import * as ecr from 'aws-cdk-lib/aws-ecr';
 import * as logs from 'aws-cdk-lib/aws-logs';
+import * as dynamodb from 'aws-cdk-lib/aws-dynamodb';
 import { Construct } from 'constructs';
 import * as path from 'path';
 import { DockerImageAsset, Platform } from 'aws-cdk-lib/aws-ecr-assets';
@@ -17,6 +18,7 @@ export interface BackendLambdaConstructProps {
 
 export class BackendLambdaConstruct extends Construct {
     public readonly lambdaFunction: lambda.Function;
+    public readonly jobsTable: dynamodb.Table;
 
     constructor(scope: Construct, id: string, props: BackendLambdaConstructProps) {
         super(scope, id);
@@ -27,6 +29,16 @@ export class BackendLambdaConstruct extends Construct {
             platform: Platform.LINUX_AMD64,
         });
 
+        // Detached agent jobs, removed by DynamoDB once expiresAt has passed
+        this.jobsTable = new dynamodb.Table(this, 'AgentJobsTable', {
+            partitionKey: { name: 'jobId', type: dynamodb.AttributeType.STRING },
+            billingMode: dynamodb.BillingMode.PAY_PER_REQUEST,
+            timeToLiveAttribute: 'expiresAt',
+            removalPolicy: cdk.RemovalPolicy.DESTROY, // Change to RETAIN for production
+        });
+
+        const functionName = 'agentcore-backend-api';
+
         // Create Lambda function from Docker image (uses standard Java runtime)
         this.lambdaFunction = new lambda.DockerImageFunction(this, 'BackendLambdaFunction', {
             code: lambda.DockerImageCode.fromEcr(
@@ -35,7 +47,7 @@ export class BackendLambdaConstruct extends Construct {
                     tagOrDigest: dockerImageAsset.imageTag,
                 }
             ),
-            functionName: 'agentcore-backend-api',
+            functionName: functionName,
             description: 'Spring Boot Lambda for AgentCore Runtime API',
             memorySize: props.memorySize || 1024, // Standard Java needs more memory than native
             timeout: props.timeout || cdk.Duration.seconds(60),
@@ -45,10 +57,29 @@ export class BackendLambdaConstruct extends Construct {
                 AGENTCORE_RUNTIME_ENDPOINT: props.agentCoreEndpoint,
                 SPRING_CLOUD_FUNCTION_DEFINITION: 'agentFunction',
                 AGENTCORE_RUNTIME_ARN: props.agentCoreRuntimeArn,
+                AGENTCORE_JOBS_STORE: 'dynamodb',
+                AGENTCORE_JOBS_DISPATCHER: 'lambda',
+                AGENTCORE_JOBS_TABLE: this.jobsTable.tableName,
             },
             logRetention: logs.RetentionDays.ONE_WEEK,
+            // A job runs once; the job status guards against duplicates, a retry would only repeat a failure
+            retryAttempts: 0,
         });
 
+        this.jobsTable.grantReadWriteData(this.lambdaFunction);
+
+        // Jobs run in an asynchronous invocation of this same function. The ARN is built from the name, referencing
+        // the function itself would make its role policy depend on the function.
+        this.lambdaFunction.addToRolePolicy(
+            new iam.PolicyStatement({
+                effect: iam.Effect.ALLOW,
+                actions: ['lambda:InvokeFunction'],
+                resources: [
+                    `arn:aws:lambda:${cdk.Stack.of(this).region}:${cdk.Stack.of(this).account}:function:${functionName}`,
+                ],
+            })
+        );
+
         // Grant permissions to invoke AgentCore Runtime
         this.lambdaFunction.addToRolePolicy(
             new iam.PolicyStatement({
@@ -28,7 +28,8 @@ export class ApiStack extends cdk.Stack {
             agentCoreEndpoint: agentCoreEndpoint,
             agentCoreRuntimeArn: props.agentCoreRuntimeArn,
             memorySize: 512, // GraalVM native image - minimal memory
-            timeout: cdk.Duration.seconds(60),
+            // Synchronous requests are cut off by API Gateway after 29s, detached jobs may take up to 10 minutes
+            timeout: cdk.Duration.minutes(11),
         });
 
         // Create API Gateway